@@ -0,0 +1,407 @@
+package api;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents a directed, weighted graph that many threads can read and change at once
+ * (e.g. a planner thread, the window and background precomputations sharing one game graph).
+ * Used by a single thread, it behaves as DWGraph_DS.
+ *
+ * Every node holds its own maps of outgoing and incoming edges, and all maps are ConcurrentHashMaps:
+ * getNode(), getEdge(), getV() and getE() never lock. The collections returned by getV() and getE() are
+ * weakly consistent views: iterating them never throws a ConcurrentModificationException, and sees every
+ * node (edge) that was there when the iteration began and was not removed since, maybe some changes made meanwhile.
+ *
+ * Changes lock only the nodes involved, through a fixed array of striped locks (the stripe of a node is a hash
+ * of its key): connect() and removeEdge() lock the stripes of both ends (the lower stripe first, so two changes
+ * never deadlock), so an edge is always in both its src's out map and its dest's in map, or in neither.
+ * removeNode() takes the node out of the graph under its stripe, so no edge can be connected to it anymore,
+ * then removes its edges one by one, each under the stripes of its ends.
+ * The edge count, the mode count and the structural fingerprint (see DWGraph_DS.fingerprint(): a sum, so it
+ * does not depend on the order of concurrent changes) are atomic counters.
+ *
+ * Unlike DWGraph_DS: getE() of a missing node is empty (another thread may have just removed it),
+ * the returned collections are read only, and removals count in getMC() as well.
+ */
+public class ConcurrentDWGraph_DS implements directed_weighted_graph {
+
+    private static final int STRIPES = 256; //A power of 2.
+
+    private final ConcurrentHashMap<Integer, Vertex> nodes; //Every node, with its edges.
+    private final Collection<node_data> nodeView = new NodeView();
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicInteger edgeSize = new AtomicInteger();
+    private final AtomicInteger countMC = new AtomicInteger();
+    private final AtomicLong fingerprint = new AtomicLong(); //Sum of nodeHash() of all nodes and edgeHash() of all edges.
+
+    /**
+     * A node of the graph, with its edges:
+     * out.get(dest) is the edge (key, dest), in.get(src) is the same object as the out map of src holds.
+     */
+    private static final class Vertex {
+        final node_data node;
+        final ConcurrentHashMap<Integer, edge_data> out = new ConcurrentHashMap<Integer, edge_data>(4);
+        final ConcurrentHashMap<Integer, edge_data> in = new ConcurrentHashMap<Integer, edge_data>(4);
+        final Collection<edge_data> outView = Collections.unmodifiableCollection(out.values());
+        final Collection<edge_data> inView = Collections.unmodifiableCollection(in.values());
+
+        Vertex(node_data node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * Empty constructor.
+     */
+    public ConcurrentDWGraph_DS() {
+        this(16);
+    }
+
+    /**
+     * Constructor for a graph that is about to get (about) expectedNodes nodes,
+     * so its node map is not resized while it is being built.
+     * @param expectedNodes - number of nodes to make room for.
+     */
+    public ConcurrentDWGraph_DS(int expectedNodes) {
+        nodes = new ConcurrentHashMap<Integer, Vertex>(Math.max(expectedNodes, 16));
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+    }
+
+    /**
+     * Deep copy constructor (of a graph no other thread changes meanwhile).
+     * @param g - the graph to copy.
+     */
+    public ConcurrentDWGraph_DS(directed_weighted_graph g) {
+        this(g.nodeSize());
+        for (node_data v : g.getV()) addNode(new NodeData(v));
+        for (node_data v : g.getV()) {
+            for (edge_data e : g.getE(v.getKey())) {
+                edge_data copy = new EdgeData(e);
+                nodes.get(copy.getSrc()).out.put(copy.getDest(), copy);
+                nodes.get(copy.getDest()).in.put(copy.getSrc(), copy);
+                edgeSize.incrementAndGet();
+                fingerprint.addAndGet(DWGraph_DS.edgeHash(copy.getSrc(), copy.getDest(), copy.getWeight()));
+            }
+        }
+        countMC.set(g.getMC());
+    }
+
+    /**
+     * returns the node_data by the node_id,
+     * @Runtime: O(1), lock free.
+     *
+     * @param key - the node_id
+     * @return the node_data by the node_id, null if none.
+     */
+    @Override
+    public node_data getNode(int key) {
+        Vertex v = nodes.get(key);
+        return v == null ? null : v.node;
+    }
+
+    /**
+     * returns the data of the edge (src,dest), null if none.
+     * @Runtime: O(1), lock free.
+     *
+     * @param src - source node
+     * @param dest - destination node
+     * @return - the edge connecting both nodes, if there exists one.
+     */
+    @Override
+    public edge_data getEdge(int src, int dest) {
+        Vertex v = nodes.get(src);
+        if (v == null || !nodes.containsKey(dest)) return null;
+        return v.out.get(dest);
+    }
+
+    /**
+     * adds a new node to the graph with the given node_data (nothing if its key is already in the graph).
+     * @Runtime: O(1).
+     *
+     * @param n - node
+     */
+    @Override
+    public void addNode(node_data n) {
+        if (nodes.containsKey(n.getKey())) return;
+        if (nodes.putIfAbsent(n.getKey(), new Vertex(n)) == null) {
+            fingerprint.addAndGet(DWGraph_DS.nodeHash(n.getKey()));
+            countMC.incrementAndGet();
+        }
+    }
+
+    /**
+     * Connects an edge with weight w between node src to node dest (replacing the edge there was).
+     * Nothing happens if one of the nodes is missing, src == dest or w < 0.
+     * @Runtime: O(1), locks the stripes of src and dest.
+     *
+     * @param src  - the source of the edge.
+     * @param dest - the destination of the edge.
+     * @param w    - positive weight representing the cost (aka time, price, etc) between src-->dest.
+     */
+    @Override
+    public void connect(int src, int dest, double w) {
+        if (src == dest || w < 0) return;
+        synchronized (locks[Math.min(stripe(src), stripe(dest))]) {
+            synchronized (locks[Math.max(stripe(src), stripe(dest))]) {
+                Vertex s = nodes.get(src), d = nodes.get(dest); //Looked up under the locks: not being removed.
+                if (s == null || d == null) return;
+                edge_data edge = new EdgeData(src, dest, w);
+                edge_data old = s.out.put(dest, edge);
+                d.in.put(src, edge);
+                if (old == null) edgeSize.incrementAndGet();
+                else fingerprint.addAndGet(-edgeHash(old));
+                fingerprint.addAndGet(edgeHash(edge));
+                countMC.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * This method returns a live, read only and weakly consistent view of all the nodes in the graph.
+     * @Runtime: O(1).
+     *
+     * @return Collection<node_data>
+     */
+    @Override
+    public Collection<node_data> getV() {
+        return nodeView;
+    }
+
+    /**
+     * This method returns a live, read only and weakly consistent view of the edges getting out of the given node
+     * (empty if the node is not in the graph).
+     * @Runtime: O(1).
+     *
+     * @param node_id - node key
+     * @return Collection<edge_data>
+     */
+    @Override
+    public Collection<edge_data> getE(int node_id) {
+        Vertex v = nodes.get(node_id);
+        return v == null ? Collections.<edge_data>emptyList() : v.outView;
+    }
+
+    /**
+     * This method returns a live, read only and weakly consistent view of the edges getting into the given node
+     * (empty if the node is not in the graph).
+     * @Runtime: O(1).
+     *
+     * @param node_id - node key
+     * @return Collection<edge_data>
+     */
+    public Collection<edge_data> getInE(int node_id) {
+        Vertex v = nodes.get(node_id);
+        return v == null ? Collections.<edge_data>emptyList() : v.inView;
+    }
+
+    /**
+     * Deletes the node (with the given ID) from the graph -
+     * and removes all edges which starts or ends at this node.
+     * @Runtime: O(k), V.degree=k, locks the node's stripe, then the stripes of every edge's ends.
+     *
+     * @param key - the node to delete.
+     * @return the data of the removed node (null if none).
+     */
+    @Override
+    public node_data removeNode(int key) {
+        Vertex v;
+        synchronized (locks[stripe(key)]) { //No connect() to the node from now on.
+            v = nodes.remove(key);
+            if (v == null) return null;
+            fingerprint.addAndGet(-DWGraph_DS.nodeHash(key));
+            countMC.incrementAndGet();
+        }
+        //Only this thread can still change v.out (nobody finds v anymore); the in maps of other nodes
+        //and their out maps (for v.in) are changed under the stripes of both ends, as connect() does.
+        for (Map.Entry<Integer, edge_data> entry : v.out.entrySet()) {
+            int dest = entry.getKey();
+            edge_data e = entry.getValue();
+            synchronized (locks[Math.min(stripe(key), stripe(dest))]) {
+                synchronized (locks[Math.max(stripe(key), stripe(dest))]) {
+                    if (!removeSame(v.out, dest, e)) continue;
+                    Vertex d = nodes.get(dest);
+                    if (d != null) removeSame(d.in, key, e);
+                    removed(e);
+                }
+            }
+        }
+        for (Map.Entry<Integer, edge_data> entry : v.in.entrySet()) {
+            int src = entry.getKey();
+            edge_data e = entry.getValue();
+            synchronized (locks[Math.min(stripe(key), stripe(src))]) {
+                synchronized (locks[Math.max(stripe(key), stripe(src))]) {
+                    removeSame(v.in, src, e);
+                    Vertex s = nodes.get(src);
+                    //Counted by whoever takes it out of its src's out map (the src may be being removed too).
+                    if (s != null && removeSame(s.out, key, e)) removed(e);
+                }
+            }
+        }
+        return v.node;
+    }
+
+    /**
+     * Deletes the edge from the graph,
+     * @Runtime: O(1), locks the stripes of src and dest.
+     *
+     * @param src - source node.
+     * @param dest - dest node.
+     * @return the data of the removed edge (null if none).
+     */
+    @Override
+    public edge_data removeEdge(int src, int dest) {
+        if (src == dest) return null;
+        synchronized (locks[Math.min(stripe(src), stripe(dest))]) {
+            synchronized (locks[Math.max(stripe(src), stripe(dest))]) {
+                Vertex s = nodes.get(src), d = nodes.get(dest);
+                if (s == null || d == null) return null;
+                edge_data e = s.out.remove(dest);
+                if (e == null) return null;
+                removeSame(d.in, src, e);
+                removed(e);
+                return e;
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping of key if it is e itself: an equal edge (same ends and weight) may be
+     * a new one, connected after the node was removed and added again.
+     */
+    private static boolean removeSame(Map<Integer, edge_data> m, int key, edge_data e) {
+        if (m.get(key) != e) return false;
+        m.remove(key);
+        return true;
+    }
+
+    private void removed(edge_data e) {
+        edgeSize.decrementAndGet();
+        fingerprint.addAndGet(-edgeHash(e));
+        countMC.incrementAndGet();
+    }
+
+    /**
+     * Returns the stripe (index in locks) of a node key.
+     */
+    private static int stripe(int key) {
+        return (int) DWGraph_DS.nodeHash(key) & (STRIPES - 1);
+    }
+
+    private static long edgeHash(edge_data e) {
+        return DWGraph_DS.edgeHash(e.getSrc(), e.getDest(), e.getWeight());
+    }
+
+    /**
+     * Returns the number of vertices (nodes) in the graph.
+     * @Runtime: O(1).
+     *
+     * @return - graph node size.
+     */
+    @Override
+    public int nodeSize() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of edges (assume directional graph).
+     * @Runtime: O(1).
+     *
+     * @return - graph edge size.
+     */
+    @Override
+    public int edgeSize() {
+        return edgeSize.get();
+    }
+
+    /**
+     * Returns the Mode Count - for testing changes in the graph.
+     *
+     * @return - the meta changes made on this graph.
+     */
+    @Override
+    public int getMC() {
+        return countMC.get();
+    }
+
+    /**
+     * Returns the structural fingerprint of this graph, the same as a DWGraph_DS of the same nodes and edges
+     * has (see DWGraph_DS.fingerprint()).
+     * @Runtime: O(1).
+     *
+     * @return the fingerprint.
+     */
+    public long fingerprint() {
+        return fingerprint.get();
+    }
+
+    /**
+     * The nodes, as a read only view of the node map.
+     */
+    private final class NodeView extends AbstractCollection<node_data> {
+        @Override
+        public Iterator<node_data> iterator() {
+            Iterator<Vertex> itr = nodes.values().iterator();
+            return new Iterator<node_data>() {
+                @Override
+                public boolean hasNext() {
+                    return itr.hasNext();
+                }
+
+                @Override
+                public node_data next() {
+                    return itr.next().node;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (Vertex v : nodes.values()) {
+            str.append(v.node.getKey()).append(" --> out [");
+            for (edge_data e : v.out.values()) str.append(e.getDest()).append(" (").append(e.getWeight()).append(") , ");
+            str.append("] \n").append(v.node.getKey()).append(" --> in [");
+            for (edge_data e : v.in.values()) str.append(e.getSrc()).append(" (").append(e.getWeight()).append(") , ");
+            str.append("] \n");
+        }
+        return str.append(" ").toString();
+    }
+
+    /**
+     * Compares graphs by: node size, edge size, nodes and outgoing edges (as DWGraph_DS.equals()).
+     * Graphs with different fingerprints are rejected without comparing them.
+     * @param o - graph to compare to.
+     * @return - true or false if graphs are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConcurrentDWGraph_DS g = (ConcurrentDWGraph_DS) o;
+        if (fingerprint() != g.fingerprint()) return false; //Quick reject, O(1).
+        if (edgeSize() != g.edgeSize() || nodes.size() != g.nodes.size()) return false;
+        for (Vertex v : nodes.values()) {
+            Vertex u = g.nodes.get(v.node.getKey());
+            if (u == null || !v.node.equals(u.node) || !v.out.equals(u.out)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprint());
+    }
+}
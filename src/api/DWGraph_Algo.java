@@ -5,8 +5,13 @@ import gameClient.util.Point3D;
 import kotlin.jvm.internal.MagicApiIntrinsics;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This class represents a set of graph theory algorithms to
@@ -19,6 +24,8 @@ import java.util.List;
  */
 public class DWGraph_Algo implements dw_graph_algorithms {
 
+    private static final int BUFFER_SIZE = 1 << 16;
+
     private directed_weighted_graph graph;
 
     /**
@@ -111,6 +118,7 @@ public class DWGraph_Algo implements dw_graph_algorithms {
      * src--> n1-->n2-->...dest
      * Logic only was taken from: https://en.wikipedia.org/wiki/Shortest_path_problem
      * Note if no such path --> returns null;
+     * Every call is a ShortestPathEvent in flight recordings.
      * @Runtime: Regular BFS using a priority queue = O(|V|+|E|).
      * @param src  - start node
      * @param dest - end (target) node
@@ -118,6 +126,21 @@ public class DWGraph_Algo implements dw_graph_algorithms {
      */
     @Override
     public List<node_data> shortestPath(int src, int dest) {
+        ShortestPathEvent event = new ShortestPathEvent();
+        event.begin();
+        List<node_data> path = search(src, dest);
+        if (event.shouldCommit()) {
+            event.src = src;
+            event.dest = dest;
+            event.nodes = graph.nodeSize();
+            event.edges = graph.edgeSize();
+            event.pathNodes = path == null ? -1 : path.size();
+            event.commit();
+        }
+        return path;
+    }
+
+    private List<node_data> search(int src, int dest) {
         resetTags();
 
         if (graph.getNode(src) == null || graph.getNode(dest) == null) return null;
@@ -167,43 +190,27 @@ public class DWGraph_Algo implements dw_graph_algorithms {
     /**
      * Saves this weighted (directed) graph to the given.
      * file name - in JSON format.
+     * A file name ending with ".gz" is written GZIP compressed (load() reads both).
      *
      * @param file - the file name (may include a relative path).
      * @return true - iff the file was successfully saved.
      */
     @Override
     public boolean save(String file) {
+        return save(file, file.endsWith(".gz"));
+    }
 
-        Gson json = new GsonBuilder().create();
-        JsonObject graph = new JsonObject();
-        JsonArray nodes = new JsonArray();
-        JsonArray edges = new JsonArray();
-
-
-        for (node_data node : this.graph.getV()) {
-            JsonObject v = new JsonObject();
-            double x = node.getLocation().x(), y = node.getLocation().y(), z = node.getLocation().z();
-            v.addProperty("pos", x + "," + y + "," + z);
-            v.addProperty("id", node.getKey());
-            nodes.add(v);
-
-            for (edge_data outEdge : this.graph.getE(node.getKey())) {
-                JsonObject edge = new JsonObject();
-                edge.addProperty("src", outEdge.getSrc());
-                edge.addProperty("w", outEdge.getWeight());
-                edge.addProperty("dest", outEdge.getDest());
-                edges.add(edge);
-            } //Add all edges to the JSONArray Object
-        } //Add all nodes to the JSONArray Object
-
-        graph.add("Edges", edges);
-        graph.add("Nodes", nodes);
-
-        File f = new File(file);
-        try {
-            FileWriter writer = new FileWriter(f);
-            writer.write(json.toJson(graph));
-            writer.close();
+    /**
+     * Saves this weighted (directed) graph to the given file name - in JSON format,
+     * streamed node by node through a buffered file channel (no json tree or string of the whole graph is built).
+     *
+     * @param file - the file name (may include a relative path).
+     * @param gzip - true to compress the file with GZIP.
+     * @return true - iff the file was successfully saved.
+     */
+    public boolean save(String file, boolean gzip) {
+        try (Writer writer = openWriter(file, gzip)) {
+            GraphJson.write(this.graph, writer);
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -217,50 +224,57 @@ public class DWGraph_Algo implements dw_graph_algorithms {
      * If the file was successfully loaded - the underlying graph
      * of this class will be changed (to the loaded one), in case the
      * graph was not loaded the original graph should remain "as is".
+     * GZIP compressed files are recognized by their content, and read as well.
      *
      * @param file - file name of JSON file.
      * @return true - iff the graph was successfully loaded.
      */
     @Override
     public boolean load(String file) {
+        try (Reader reader = openReader(file)) {
+            this.graph = GraphJson.read(reader); //Streamed: no json tree of the whole file is built.
+            System.out.println("Graph loaded successfully");
+            return true;
+        } catch (IOException | RuntimeException e) { //RuntimeException: Gson's reader reports bad json as IllegalStateException.
+            System.out.println("Failed to load graph");
+            e.printStackTrace();
+        }
 
-        directed_weighted_graph newGraph = new DWGraph_DS(); //The graph to load onto.
-        JsonObject graph; //The Gson Object to read from.
-        File f = new File(file); //The file containing the data.
-        try {
-            FileReader reader = new FileReader(f);
-            graph = new JsonParser().parse(reader).getAsJsonObject();
-            JsonArray edges = graph.getAsJsonArray("Edges"); //Get The "Edges" member from the Json Value.
-            JsonArray nodes = graph.getAsJsonArray("Nodes"); //Get The "Edges" member from the Json Value.
-
-            for (JsonElement node : nodes) {
-
-                int key = ((JsonObject) node).get("id").getAsInt();
-                double x,y,z;
-                String pos = ((JsonObject) node).get("pos").getAsString();
-                String[] posArr = pos.split(",");
-                x = Double.parseDouble(posArr[0]);
-                y = Double.parseDouble(posArr[1]);
-                z = Double.parseDouble(posArr[2]);
-                geo_location location = new Point3D(x, y, z);
-                node_data n = new NodeData(key); //Insert into node_data n values from Json.
-                n.setLocation(location); //Insert into node_data n location values from Json that created.
-                newGraph.addNode(n);
-            }
+        return false;
+    }
 
-            for (JsonElement edge : edges) {
-                int src = ((JsonObject) edge).get("src").getAsInt(); //Receive src
-                double weight = ((JsonObject) edge).get("w").getAsDouble(); //Receive weight
-                int dest = ((JsonObject) edge).get("dest").getAsInt(); //Receive dest
+    /**
+     * Saves this weighted (directed) graph to the given file name - in the binary format of GraphBinary
+     * (packed coordinates and CSR adjacency), which loads much faster than JSON.
+     *
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved.
+     */
+    public boolean saveBinary(String file) {
+        try {
+            GraphBinary.write(this.graph, file);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed to save graph");
+            return false;
+        }
+    }
 
-                edge_data e = new EdgeData(src, dest, weight); //Build a new edge with given args
-                newGraph.connect(e.getSrc(), e.getDest(), e.getWeight()); //Connect between nodes on the new graph
-            }
-            this.graph = newGraph;
+    /**
+     * This method loads a graph saved by saveBinary() to this graph algorithm's class.
+     * The file is memory mapped and read in place - nothing is parsed.
+     * In case the graph was not loaded the original graph remains "as is".
+     *
+     * @param file - file name of the binary file.
+     * @return true - iff the graph was successfully loaded.
+     */
+    public boolean loadBinary(String file) {
+        try {
+            this.graph = GraphBinary.open(file).toGraph();
             System.out.println("Graph loaded successfully");
             return true;
-
-        } catch (FileNotFoundException e) {
+        } catch (IOException | RuntimeException e) { //RuntimeException: a corrupt file may index outside the mapping.
             System.out.println("Failed to load graph");
             e.printStackTrace();
         }
@@ -268,6 +282,21 @@ public class DWGraph_Algo implements dw_graph_algorithms {
         return false;
     }
 
+    static Writer openWriter(String file, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(file)), BUFFER_SIZE);
+        if (gzip) out = new GZIPOutputStream(out, BUFFER_SIZE);
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static Reader openReader(String file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(file)), BUFFER_SIZE);
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b; //GZIP magic number.
+        in.reset();
+        if (gzip) in = new GZIPInputStream(in, BUFFER_SIZE);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
     /**
      * resets all tags to 0.
      */
@@ -10,11 +10,17 @@ import java.util.Objects;
  * Graph data is stored in HashMaps inorder to achieve O(1) access to nodes and edges.
  * The graph supports some methodology like adding/removing nodes/edges from the graph,
  * connecting nodes on the graph and holding counts of edge size and node size.
+ *
+ * The graph also keeps a structural fingerprint (see fingerprint()): a 64 bit hash of its node keys
+ * and of its edges (src, dest, weight), kept up to date in O(1) by every change, since it is the sum
+ * of a hash of every node and edge. Equal graphs have equal fingerprints, so hashCode() is O(1) and equals()
+ * rejects most different graphs in O(1).
  */
 public class DWGraph_DS implements directed_weighted_graph {
 
     private int edgeSize;
     private int countMC;
+    private long fingerprint; //Sum of nodeHash() of all nodes and edgeHash() of all edges.
     private HashMap<Integer, node_data> nodes; //A map that stores nodes on the graph
     private HashMap<Integer, HashMap<Integer, edge_data>> outEdges; //A map that stores outgoing edges on the graph.
     private HashMap<Integer, HashMap<Integer, edge_data>> inEdges; //A map that stores incoming edges on the graph.
@@ -33,6 +39,20 @@ public class DWGraph_DS implements directed_weighted_graph {
         inEdges = new HashMap<Integer, HashMap<Integer, edge_data>>();
     }
 
+    /**
+     * Constructor for a graph that is about to get (about) expectedNodes nodes,
+     * so its maps are not rehashed while it is being built.
+     * @param expectedNodes - number of nodes to make room for.
+     */
+    public DWGraph_DS(int expectedNodes) {
+        int capacity = (int) (Math.max(expectedNodes, 0) / 0.75f) + 1;
+        edgeSize = 0;
+        countMC = 0;
+        nodes = new HashMap<Integer, node_data>(capacity);
+        outEdges = new HashMap<Integer, HashMap<Integer, edge_data>>(capacity);
+        inEdges = new HashMap<Integer, HashMap<Integer, edge_data>>(capacity);
+    }
+
     /**
      * Deep copy constructor.
      * @param g
@@ -49,9 +69,11 @@ public class DWGraph_DS implements directed_weighted_graph {
                 outEdges.put(vCopy.getKey(), new HashMap<Integer, edge_data>());
                 inEdges.put(vCopy.getKey(), new HashMap<Integer, edge_data>());
 
+                fingerprint += nodeHash(vCopy.getKey());
                 for (edge_data e : g.getE(v.getKey())) { //Iterate over outgoing edges from original node 'v'
                     edge_data eCopy = new EdgeData(e); //Copy edge info
                     outEdges.get(vCopy.getKey()).put(eCopy.getDest(), eCopy); //Update copied map
+                    fingerprint += edgeHash(eCopy);
                 }
                 for (edge_data e : getInE(v.getKey())) { //Iterate over incoming edges into original node 'v'
                     edge_data eCopy = new EdgeData(e); //Copy edge info
@@ -101,6 +123,7 @@ public class DWGraph_DS implements directed_weighted_graph {
             nodes.put(n.getKey(), n); //Add it to the nodes map.
             outEdges.put(n.getKey(), new HashMap<Integer, edge_data>()); //Init its out-going edge map.
             inEdges.put(n.getKey(), new HashMap<Integer, edge_data>()); //Init its in-coming edge map.
+            fingerprint += nodeHash(n.getKey());
             countMC++; //Count 1 meta-change.
         }
     }
@@ -121,8 +144,10 @@ public class DWGraph_DS implements directed_weighted_graph {
         if (!outEdges.get(src).containsKey(dest))  //If edge (src,dest) did not exist before, increment edgeSize.
             edgeSize++;
         edge_data edge = new EdgeData(src, dest, w); //Generate a new edge from src to dest with weight 'w'.
-        outEdges.get(src).put(dest, edge); //Put a new outgoing edge from src to dest
+        edge_data old = outEdges.get(src).put(dest, edge); //Put a new outgoing edge from src to dest
         inEdges.get(dest).put(src, edge); //Put a new incoming edge from dest to src
+        if (old != null) fingerprint -= edgeHash(old);
+        fingerprint += edgeHash(edge);
         countMC++;
     }
 
@@ -189,6 +214,7 @@ public class DWGraph_DS implements directed_weighted_graph {
             itr.remove(); //This fixes a ConcurrentModificationException error
             removeEdge(e.getSrc(), e.getDest());
         }
+        fingerprint -= nodeHash(key);
         return nodes.remove(key);
     }
 
@@ -204,9 +230,14 @@ public class DWGraph_DS implements directed_weighted_graph {
     public edge_data removeEdge(int src, int dest) {
         if (getNode(src) != null && getNode(dest) != null && src != dest) {
 //            if (getEdge(src, dest) != null) {
-                inEdges.get(dest).remove(src);
-                edgeSize--;
-                return outEdges.get(src).remove(dest);
+                edge_data in = inEdges.get(dest).remove(src);
+                edge_data out = outEdges.get(src).remove(dest);
+                //removeNode() takes the edge out of one of the maps itself, so look at both.
+                if (out != null || in != null) {
+                    edgeSize--;
+                    fingerprint -= edgeHash(out != null ? out : in);
+                }
+                return out;
 //            }
         }
         return null;
@@ -244,6 +275,59 @@ public class DWGraph_DS implements directed_weighted_graph {
         return countMC;
     }
 
+    /**
+     * Returns the structural fingerprint of this graph: a hash of its node keys and its edges (src, dest, weight).
+     * Node and edge info, tags and locations are not part of it.
+     * Graphs with the same nodes and edges have the same fingerprint, no matter the order they were built in,
+     * so it can key caches of anything computed from the graph's structure (such as shortest paths).
+     * @Runtime: O(1).
+     *
+     * @return the fingerprint.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the structural fingerprint of any graph (see fingerprint()):
+     * O(1) for a DWGraph_DS or a ConcurrentDWGraph_DS, computed in O(|V| + |E|) for other graphs.
+     *
+     * @param g - the graph.
+     * @return the fingerprint.
+     */
+    public static long fingerprint(directed_weighted_graph g) {
+        if (g instanceof DWGraph_DS) return ((DWGraph_DS) g).fingerprint;
+        if (g instanceof ConcurrentDWGraph_DS) return ((ConcurrentDWGraph_DS) g).fingerprint();
+        long f = 0;
+        for (node_data n : g.getV()) {
+            f += nodeHash(n.getKey());
+            for (edge_data e : g.getE(n.getKey())) f += edgeHash(e);
+        }
+        return f;
+    }
+
+    static long nodeHash(int key) {
+        return mix(key * 0x9E3779B97F4A7C15L + 1);
+    }
+
+    private static long edgeHash(edge_data e) {
+        return edgeHash(e.getSrc(), e.getDest(), e.getWeight());
+    }
+
+    static long edgeHash(int src, int dest, double w) {
+        long ends = ((long) src << 32) ^ (dest & 0xFFFFFFFFL);
+        return mix(mix(ends) + Double.doubleToLongBits(w));
+    }
+
+    /**
+     * A 64 bit mixing function (the finalizer of SplitMix64).
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     @Override
     public String toString() {
         String str = "";
@@ -265,6 +349,7 @@ public class DWGraph_DS implements directed_weighted_graph {
     /**
      * Override equals() method to compare graphs
      * by: node size, edge size, and outgoing edges.
+     * Graphs with different fingerprints are rejected without comparing them.
      * @param o - graph to compare to.
      * @return - true or false if graphs are equal
      */
@@ -273,6 +358,7 @@ public class DWGraph_DS implements directed_weighted_graph {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DWGraph_DS graph_ds = (DWGraph_DS) o;
+        if (fingerprint != graph_ds.fingerprint) return false; //Quick reject, O(1).
         return edgeSize == graph_ds.edgeSize &&
                 Objects.equals(nodes, graph_ds.nodes) &&
                 Objects.equals(outEdges, graph_ds.outEdges);
@@ -280,6 +366,6 @@ public class DWGraph_DS implements directed_weighted_graph {
 
     @Override
     public int hashCode() {
-        return Objects.hash(edgeSize, nodes, outEdges);
+        return Long.hashCode(fingerprint);
     }
 }
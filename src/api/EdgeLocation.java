@@ -0,0 +1,107 @@
+package api;
+
+import java.util.Objects;
+
+/**
+ * This class represents a position on an edge of a graph:
+ * the edge, and the relative ratio [0,1] of the position between the edge's src and dest.
+ * Ratio 0 is the src node, ratio 1 is the dest node.
+ * Positions in space (geo_locations) are mapped to an edge by projecting them
+ * onto the straight segment between the edge's nodes.
+ */
+public class EdgeLocation implements edge_location {
+
+    private edge_data edge;
+    private double ratio;
+
+    /**
+     * Constructor.
+     * @param edge  - the edge on which the location is.
+     * @param ratio - relative position on the edge, clamped to [0,1].
+     */
+    public EdgeLocation(edge_data edge, double ratio) {
+        this.edge = edge;
+        this.ratio = Math.max(0, Math.min(1, ratio));
+    }
+
+    /**
+     * Projects a position onto an edge of the graph.
+     * @Runtime: O(1).
+     *
+     * @param g - the graph holding the edge.
+     * @param e - the edge.
+     * @param p - the position to project (usually a pokemon's position, which lies on the edge).
+     * @return the location on e closest to p.
+     */
+    public static EdgeLocation project(directed_weighted_graph g, edge_data e, geo_location p) {
+        geo_location src = g.getNode(e.getSrc()).getLocation();
+        geo_location dest = g.getNode(e.getDest()).getLocation();
+        return project(e, src.x(), src.y(), src.z(), dest.x(), dest.y(), dest.z(), p);
+    }
+
+    /**
+     * Projects a position onto an edge whose end positions are given
+     * (e.g. kept packed, see gameClient.util.PointBuffer), without looking the nodes up.
+     * @Runtime: O(1).
+     *
+     * @param e - the edge.
+     * @param p - the position to project.
+     * @return the location on e closest to p.
+     */
+    public static EdgeLocation project(edge_data e, double srcX, double srcY, double srcZ,
+                                       double destX, double destY, double destZ, geo_location p) {
+        double dx = destX - srcX, dy = destY - srcY, dz = destZ - srcZ;
+        double length2 = dx * dx + dy * dy + dz * dz;
+        if (length2 == 0) return new EdgeLocation(e, 0);
+        double t = ((p.x() - srcX) * dx + (p.y() - srcY) * dy + (p.z() - srcZ) * dz) / length2;
+        return new EdgeLocation(e, t);
+    }
+
+    /**
+     * Returns the edge on which the location is.
+     *
+     * @return - the edge.
+     */
+    @Override
+    public edge_data getEdge() {
+        return edge;
+    }
+
+    /**
+     * Returns the relative ratio [0,1] of the location between src and dest.
+     *
+     * @return - the ratio.
+     */
+    @Override
+    public double getRatio() {
+        return ratio;
+    }
+
+    /**
+     * Returns the weight (cost) of the part of the edge between src and this location.
+     *
+     * @return - ratio * edge weight.
+     */
+    public double getWeightFromSrc() {
+        return ratio * edge.getWeight();
+    }
+
+    @Override
+    public String toString() {
+        return edge + " @" + ratio;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EdgeLocation that = (EdgeLocation) o;
+        return Double.compare(that.ratio, ratio) == 0 &&
+                Objects.equals(edge, that.edge);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(edge, ratio);
+    }
+}
@@ -0,0 +1,285 @@
+package api;
+
+import gameClient.util.Point3D;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class represents a graph stored in a compact binary file, read through a memory mapping:
+ * nothing is parsed or copied when the file is opened, every accessor reads the mapped bytes directly.
+ * Nodes have dense indices 0..nodeCount()-1, in ascending order of their ids, and the out edges
+ * of every node are kept as CSR (compressed sparse rows): the edges of node i are edgeStart(i) .. edgeStart(i+1)-1.
+ *
+ * File layout (version 2, little endian), every section aligned to its element size:
+ * <pre>
+ * header   int magic ("DWGB"), int version, int nodes (n), int edges (e), long fingerprint (DWGraph_DS.fingerprint())
+ * coords   double[3n]  x,y,z of every node
+ * weights  double[e]   weight of every edge
+ * ids      int[n]      node ids, ascending
+ * start    int[n+1]    first edge of every node (start[n] = e)
+ * dest     int[e]      node index every edge ends at
+ * </pre>
+ */
+public class GraphBinary {
+
+    private static final int MAGIC = 'D' | 'W' << 8 | 'G' << 16 | 'B' << 24;
+    private static final int VERSION = 2;
+    private static final int HEADER = 24;
+
+    private final ByteBuffer buf;
+    private final int nodes, edges;
+    private final long fingerprint;
+    private final int coords, weights, ids, start, dest; //Byte offsets of the sections.
+
+    private GraphBinary(ByteBuffer buf) throws IOException {
+        this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.capacity() < HEADER || buf.getInt(0) != MAGIC) throw new IOException("Not a binary graph file");
+        if (buf.getInt(4) != VERSION) throw new IOException("Unsupported binary graph version " + buf.getInt(4));
+        nodes = buf.getInt(8);
+        edges = buf.getInt(12);
+        fingerprint = buf.getLong(16);
+        if (nodes < 0 || edges < 0 || buf.capacity() != size(nodes, edges))
+            throw new IOException("Truncated binary graph file");
+        coords = HEADER;
+        weights = coords + 24 * nodes;
+        ids = weights + 8 * edges;
+        start = ids + 4 * nodes;
+        dest = start + 4 * (nodes + 1);
+    }
+
+    private static long size(long nodes, long edges) {
+        return HEADER + 24 * nodes + 8 * edges + 4 * nodes + 4 * (nodes + 1) + 4 * edges;
+    }
+
+    /**
+     * Maps a binary graph file.
+     * @Runtime: O(1) - the file is validated by its header and size only.
+     *
+     * @param file - the file name.
+     * @return a view of the file.
+     * @throws IOException if the file cannot be read or is not a binary graph.
+     */
+    public static GraphBinary open(String file) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            return new GraphBinary(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size())); //Stays valid after close.
+        }
+    }
+
+    /**
+     * Writes a graph in the binary format.
+     * @Runtime: O(|V|log|V| + |E|).
+     *
+     * @param g    - the graph.
+     * @param file - the file name (replaced if it exists).
+     * @throws IOException if writing fails.
+     */
+    public static void write(directed_weighted_graph g, String file) throws IOException {
+        Builder b = new Builder(g.nodeSize(), g.edgeSize());
+        for (node_data node : g.getV()) {
+            geo_location p = node.getLocation();
+            b.node(node.getKey(), p.x(), p.y(), p.z());
+        }
+        for (node_data node : g.getV())
+            for (edge_data e : g.getE(node.getKey())) b.edge(e.getSrc(), e.getDest(), e.getWeight());
+        b.write(file);
+    }
+
+    /**
+     * This class collects a graph into primitive arrays (nodes and edges in any order, edges given by node ids),
+     * and writes it in the binary format - a graph too large for a DWGraph_DS can be streamed into it,
+     * such as from a GraphGenerator. Every edge must be given once.
+     */
+    public static class Builder implements GraphGenerator.Sink {
+        private int nodes, edges;
+        private int[] ids;
+        private double[] xyz;
+        private int[] src, dest;
+        private double[] w;
+        private long fingerprint; //Summed as DWGraph_DS does, so it matches the loaded graph.
+
+        /**
+         * Constructor.
+         *
+         * @param expectedNodes - number of nodes to make room for (more may be added).
+         * @param expectedEdges - number of edges to make room for (more may be added).
+         */
+        public Builder(int expectedNodes, int expectedEdges) {
+            ids = new int[Math.max(expectedNodes, 16)];
+            xyz = new double[3 * ids.length];
+            src = new int[Math.max(expectedEdges, 16)];
+            dest = new int[src.length];
+            w = new double[src.length];
+        }
+
+        @Override
+        public void node(int key, double x, double y, double z) {
+            if (nodes == ids.length) {
+                ids = Arrays.copyOf(ids, grow(nodes));
+                xyz = Arrays.copyOf(xyz, 3 * ids.length);
+            }
+            ids[nodes] = key;
+            xyz[3 * nodes] = x;
+            xyz[3 * nodes + 1] = y;
+            xyz[3 * nodes + 2] = z;
+            nodes++;
+            fingerprint += DWGraph_DS.nodeHash(key);
+        }
+
+        @Override
+        public void edge(int src, int dest, double w) {
+            if (edges == this.src.length) {
+                int size = grow(edges);
+                this.src = Arrays.copyOf(this.src, size);
+                this.dest = Arrays.copyOf(this.dest, size);
+                this.w = Arrays.copyOf(this.w, size);
+            }
+            this.src[edges] = src;
+            this.dest[edges] = dest;
+            this.w[edges] = w;
+            edges++;
+            fingerprint += DWGraph_DS.edgeHash(src, dest, w);
+        }
+
+        private static int grow(int size) {
+            if (size == Integer.MAX_VALUE - 8) throw new IllegalStateException("Graph too large");
+            return (int) Math.min(Integer.MAX_VALUE - 8, 2L * size);
+        }
+
+        /**
+         * Writes the graph collected so far (the builder cannot be used afterwards).
+         * @Runtime: O(|V|log|V| + |E|log|V|) (O(|V| + |E|) if the node ids are 0..|V|-1).
+         *
+         * @param file - the file name (replaced if it exists).
+         * @throws IOException if writing fails, or an edge ends at a missing node, or a node was given twice.
+         */
+        public void write(String file) throws IOException {
+            int n = nodes, e = edges;
+            if (size(n, e) > Integer.MAX_VALUE) throw new IOException("Graph too large for a binary graph file");
+
+            //Sort the nodes by id (if they are not already).
+            boolean sorted = true;
+            for (int i = 1; i < n && sorted; i++) sorted = ids[i - 1] < ids[i];
+            int[] order = null; //Sorted position --> position given.
+            if (!sorted) {
+                long[] packed = new long[n];
+                for (int i = 0; i < n; i++) packed[i] = (long) ids[i] << 32 | (i & 0xFFFFFFFFL); //Signed order of the ids, as index() searches them.
+                Arrays.sort(packed);
+                order = new int[n];
+                int[] sortedIds = new int[n];
+                for (int i = 0; i < n; i++) {
+                    order[i] = (int) packed[i];
+                    sortedIds[i] = ids[order[i]];
+                    if (i > 0 && sortedIds[i] == sortedIds[i - 1]) throw new IOException("Node " + sortedIds[i] + " was given twice");
+                }
+                ids = sortedIds;
+            }
+            boolean dense = n == 0 || (ids[0] == 0 && ids[n - 1] == n - 1);
+
+            //Node index of every edge's source, and the CSR row starts.
+            int[] start = new int[n + 1];
+            for (int k = 0; k < e; k++) {
+                src[k] = index(src[k], dense);
+                start[src[k] + 1]++;
+            }
+            for (int i = 0; i < n; i++) start[i + 1] += start[i];
+
+            new File(file).delete(); //A smaller file cannot be truncated while an old mapping of it is alive (on some systems).
+            try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size(n, e));
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(e).putLong(fingerprint);
+                for (int i = 0; i < n; i++) {
+                    int at = order == null ? i : order[i];
+                    buf.putDouble(xyz[3 * at]).putDouble(xyz[3 * at + 1]).putDouble(xyz[3 * at + 2]);
+                }
+                int weights = buf.position(), idsAt = weights + 8 * e, startAt = idsAt + 4 * n, destAt = startAt + 4 * (n + 1);
+                for (int i = 0; i < n; i++) buf.putInt(idsAt + 4 * i, ids[i]);
+                for (int i = 0; i <= n; i++) buf.putInt(startAt + 4 * i, start[i]);
+                for (int k = 0; k < e; k++) { //Every edge goes to the next free place of its source's row.
+                    int at = start[src[k]]++;
+                    buf.putDouble(weights + 8 * at, w[k]);
+                    buf.putInt(destAt + 4 * at, index(dest[k], dense));
+                }
+                buf.force();
+            }
+        }
+
+        private int index(int id, boolean dense) throws IOException {
+            int i = dense ? (id >= 0 && id < nodes ? id : -1) : Arrays.binarySearch(ids, 0, nodes, id);
+            if (i < 0) throw new IOException("Edge to missing node " + id);
+            return i;
+        }
+    }
+
+    public int nodeCount() {return nodes;}
+    public int edgeCount() {return edges;}
+    /** The structural fingerprint of the saved graph, so a file can be matched to a graph without reading it. */
+    public long fingerprint() {return fingerprint;}
+    public int nodeId(int i) {return buf.getInt(ids + 4 * i);}
+    public double x(int i) {return buf.getDouble(coords + 24 * i);}
+    public double y(int i) {return buf.getDouble(coords + 24 * i + 8);}
+    public double z(int i) {return buf.getDouble(coords + 24 * i + 16);}
+    /** First edge of node i; its edges end at edgeStart(i+1) (exclusive). */
+    public int edgeStart(int i) {return buf.getInt(start + 4 * i);}
+    /** Index of the node edge k ends at. */
+    public int edgeDest(int k) {return buf.getInt(dest + 4 * k);}
+    public double edgeWeight(int k) {return buf.getDouble(weights + 8 * k);}
+
+    /**
+     * Returns the index of a node id, -1 if there is no such node.
+     * @Runtime: O(log|V|) (binary search over the mapped ids).
+     */
+    public int indexOf(int id) {
+        int lo = 0, hi = nodes - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1, key = nodeId(mid);
+            if (key < id) lo = mid + 1;
+            else if (key > id) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a DWGraph_DS of this file.
+     * @Runtime: O(|V| + |E|).
+     *
+     * @return the graph.
+     * @throws IOException if the graph does not match the fingerprint it was saved with (a damaged file).
+     */
+    public directed_weighted_graph toGraph() throws IOException {
+        directed_weighted_graph g = new DWGraph_DS(nodes);
+        for (int i = 0; i < nodes; i++) {
+            node_data n = new NodeData(nodeId(i));
+            n.setLocation(new Point3D(x(i), y(i), z(i)));
+            g.addNode(n);
+        }
+        for (int i = 0; i < nodes; i++) {
+            int src = nodeId(i);
+            for (int k = edgeStart(i), end = edgeStart(i + 1); k < end; k++) g.connect(src, nodeId(edgeDest(k)), edgeWeight(k));
+        }
+        if (DWGraph_DS.fingerprint(g) != fingerprint) throw new IOException("Damaged binary graph file");
+        return g;
+    }
+
+    /**
+     * Converts json graph files (such as data/A0..A5) to the binary format.
+     * Usage: GraphBinary json-file... (each one is written next to it, as file.dwg).
+     */
+    public static void main(String[] args) {
+        for (String json : args) {
+            DWGraph_Algo ga = new DWGraph_Algo();
+            if (!ga.load(json) || !ga.saveBinary(json + ".dwg")) System.exit(1);
+            System.out.println(json + " -> " + json + ".dwg (" + new File(json + ".dwg").length() + " bytes)");
+        }
+    }
+}
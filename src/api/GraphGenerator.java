@@ -0,0 +1,412 @@
+package api;
+
+import gameClient.util.Point3D;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class generates large synthetic graphs, with geo positions around the game arenas, in four families:
+ * geometric  - random points, with edges (both ways) between all points closer than a radius.
+ * grid       - a road-like lattice: jittered crossings, streets to the 4 neighbours (a few missing), a few diagonals.
+ * scalefree  - preferential attachment (Barabasi-Albert): a few hubs with very high degrees.
+ * arena      - like data/A0..A5: strongly connected, every edge both ways, about 3 out edges per node,
+ *              weights in [0.25, 2) that do not depend on the distance, positions as dense as in the arenas.
+ *
+ * A graph is not built in memory: nodes and edges are given to a Sink as they are generated (all nodes first,
+ * then edges, every edge once), so they can go straight to a DWGraph_DS (GraphSink), a json file
+ * (GraphJson.StreamWriter) or a binary file (GraphBinary.Builder). Generators keep only primitive arrays
+ * (positions, and for some families a spatial grid or the list of edges), so graphs of tens of millions of
+ * edges can be written. The same seed always gives the same graph.
+ */
+public class GraphGenerator {
+
+    /**
+     * Receives a generated graph. All nodes are given before the first edge.
+     */
+    public interface Sink {
+        void node(int key, double x, double y, double z) throws IOException;
+
+        void edge(int src, int dest, double w) throws IOException;
+    }
+
+    /**
+     * A Sink that builds a DWGraph_DS.
+     */
+    public static class GraphSink implements Sink {
+        private final DWGraph_DS g;
+
+        public GraphSink(int expectedNodes) {
+            g = new DWGraph_DS(expectedNodes);
+        }
+
+        @Override
+        public void node(int key, double x, double y, double z) {
+            node_data n = new NodeData(key);
+            n.setLocation(new Point3D(x, y, z));
+            g.addNode(n);
+        }
+
+        @Override
+        public void edge(int src, int dest, double w) {
+            g.connect(src, dest, w);
+        }
+
+        public DWGraph_DS getGraph() {
+            return g;
+        }
+    }
+
+    public static final String[] FAMILIES = {"geometric", "grid", "scalefree", "arena"};
+
+    private static final double X0 = 35.187, Y0 = 32.099; //The south west corner of the game arenas.
+    private static final double ARENA_SIDE = 0.026; //Size of the arenas (degrees), for ARENA_NODES nodes.
+    private static final int ARENA_NODES = 48;
+
+    private GraphGenerator() {
+    }
+
+    /**
+     * Generates a graph of a family with its default parameters:
+     * geometric with 8 out edges per node on average, a square grid, scalefree with 4 links per new node, arena.
+     *
+     * @param family - geometric, grid, scalefree or arena.
+     * @param nodes  - number of nodes (a grid may have a few less, to be a full rectangle).
+     * @param seed   - random seed.
+     * @param out    - receives the graph.
+     * @throws IOException if the sink fails.
+     */
+    public static void generate(String family, int nodes, long seed, Sink out) throws IOException {
+        switch (family) {
+            case "geometric":
+                geometric(nodes, 8, seed, out);
+                break;
+            case "grid":
+                int rows = Math.max(1, (int) Math.sqrt(nodes));
+                grid(rows, nodes / rows, seed, out);
+                break;
+            case "scalefree":
+                scaleFree(nodes, 4, seed, out);
+                break;
+            case "arena":
+                arena(nodes, seed, out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown graph family " + family + ", expected one of " + Arrays.toString(FAMILIES));
+        }
+    }
+
+    /**
+     * Generates a graph of a family (see generate(String, int, long, Sink)) as a DWGraph_DS.
+     */
+    public static DWGraph_DS generate(String family, int nodes, long seed) {
+        GraphSink sink = new GraphSink(nodes);
+        try {
+            generate(family, nodes, seed, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //A GraphSink does not throw.
+        }
+        return sink.getGraph();
+    }
+
+    /**
+     * Random geometric graph: nodes at uniform random positions, and edges both ways between every two nodes
+     * closer than the radius that gives the requested average degree. Weight = 1 + distance / radius (jittered by 10%).
+     * @Runtime: O(|V| + |E|).
+     *
+     * @param nodes  - number of nodes.
+     * @param degree - average number of out edges per node.
+     * @param seed   - random seed.
+     * @param out    - receives the graph.
+     */
+    public static void geometric(int nodes, double degree, long seed, Sink out) throws IOException {
+        checkSize(nodes);
+        SplittableRandom r = new SplittableRandom(seed);
+        double side = side(nodes), radius = side * Math.sqrt(degree / (Math.PI * Math.max(nodes, 1)));
+        double[] xy = randomPoints(r, nodes, side);
+        for (int i = 0; i < nodes; i++) out.node(i, X0 + xy[2 * i], Y0 + xy[2 * i + 1], 0);
+
+        PointGrid grid = new PointGrid(xy, nodes, side, radius);
+        for (int i = 0; i < nodes; i++) {
+            double x = xy[2 * i], y = xy[2 * i + 1];
+            int cx = grid.cell(x), cy = grid.cell(y);
+            for (int row = Math.max(0, cy - 1); row <= Math.min(grid.side - 1, cy + 1); row++) {
+                for (int col = Math.max(0, cx - 1); col <= Math.min(grid.side - 1, cx + 1); col++) {
+                    int c = row * grid.side + col;
+                    for (int k = grid.start[c]; k < grid.start[c + 1]; k++) {
+                        int j = grid.items[k];
+                        if (j <= i) continue; //Every pair once.
+                        double d = Math.hypot(xy[2 * j] - x, xy[2 * j + 1] - y);
+                        if (d > radius) continue;
+                        out.edge(i, j, (1 + d / radius) * (0.95 + 0.1 * r.nextDouble()));
+                        out.edge(j, i, (1 + d / radius) * (0.95 + 0.1 * r.nextDouble()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Road-like grid: rows x cols crossings at jittered lattice positions (about 100 meters apart),
+     * streets both ways to the right and lower neighbours (5% of them missing), and 5% diagonal shortcuts.
+     * Weight = street length in lattice units, times 1 to 1.2 (traffic).
+     * Node rc is row * cols + col.
+     * @Runtime: O(rows * cols).
+     *
+     * @param rows - number of rows.
+     * @param cols - number of columns.
+     * @param seed - random seed.
+     * @param out  - receives the graph.
+     */
+    public static void grid(int rows, int cols, long seed, Sink out) throws IOException {
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE) throw new IllegalArgumentException("Bad grid size");
+        SplittableRandom r = new SplittableRandom(seed);
+        double cell = 0.001;
+        int n = rows * cols;
+        double[] xy = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = (i % cols + 0.5 + 0.5 * (r.nextDouble() - 0.5)) * cell;
+            xy[2 * i + 1] = (i / cols + 0.5 + 0.5 * (r.nextDouble() - 0.5)) * cell;
+            out.node(i, X0 + xy[2 * i], Y0 + xy[2 * i + 1], 0);
+        }
+        for (int i = 0; i < n; i++) {
+            int row = i / cols, col = i % cols;
+            if (col + 1 < cols && r.nextDouble() >= 0.05) street(out, r, xy, cell, i, i + 1);
+            if (row + 1 < rows && r.nextDouble() >= 0.05) street(out, r, xy, cell, i, i + cols);
+            if (col + 1 < cols && row + 1 < rows && r.nextDouble() < 0.05) street(out, r, xy, cell, i, i + cols + 1);
+        }
+    }
+
+    private static void street(Sink out, SplittableRandom r, double[] xy, double cell, int a, int b) throws IOException {
+        double length = Math.hypot(xy[2 * a] - xy[2 * b], xy[2 * a + 1] - xy[2 * b + 1]) / cell;
+        out.edge(a, b, length * (1 + 0.2 * r.nextDouble()));
+        out.edge(b, a, length * (1 + 0.2 * r.nextDouble()));
+    }
+
+    /**
+     * Scale-free graph (Barabasi-Albert): starts with a full graph of links+1 nodes, then every new node
+     * links (both ways) to `links` distinct nodes, picked with probability proportional to their degree.
+     * Positions are uniform random, weights uniform in [1, 2).
+     * @Runtime: O(|V| * links).
+     *
+     * @param nodes - number of nodes.
+     * @param links - links of every new node.
+     * @param seed  - random seed.
+     * @param out   - receives the graph.
+     */
+    public static void scaleFree(int nodes, int links, long seed, Sink out) throws IOException {
+        checkSize(nodes);
+        if (links < 1) throw new IllegalArgumentException("links must be positive");
+        SplittableRandom r = new SplittableRandom(seed);
+        double[] xy = randomPoints(r, nodes, side(nodes));
+        for (int i = 0; i < nodes; i++) out.node(i, X0 + xy[2 * i], Y0 + xy[2 * i + 1], 0);
+
+        int core = Math.min(nodes, links + 1);
+        int[] ends = new int[(int) Math.min(Integer.MAX_VALUE - 8, 2L * links * nodes + 2L * core * core)]; //A node appears once per link end.
+        int size = 0;
+        for (int i = 0; i < core; i++) {
+            for (int j = i + 1; j < core; j++) {
+                out.edge(i, j, 1 + r.nextDouble());
+                out.edge(j, i, 1 + r.nextDouble());
+                ends[size++] = i;
+                ends[size++] = j;
+            }
+        }
+        int[] picked = new int[links];
+        for (int i = core; i < nodes; i++) {
+            for (int k = 0; k < links; k++) {
+                int t;
+                do t = ends[r.nextInt(size)]; while (contains(picked, k, t));
+                picked[k] = t;
+            }
+            for (int k = 0; k < links; k++) {
+                out.edge(i, picked[k], 1 + r.nextDouble());
+                out.edge(picked[k], i, 1 + r.nextDouble());
+                ends[size++] = i;
+                ends[size++] = picked[k];
+            }
+        }
+    }
+
+    private static boolean contains(int[] a, int count, int v) {
+        for (int i = 0; i < count; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    /**
+     * Arena-like graph, as data/A0..A5: nodes at uniform random positions, as dense as in the arenas
+     * (the area grows with the number of nodes); every node is linked to its nearest node among the
+     * ones before it (so the graph is connected) and to its 1 or 2 nearest nodes; every link is an edge
+     * both ways, with independent weights uniform in [0.25, 2).
+     * @Runtime: about O(|V|log|V|).
+     *
+     * @param nodes - number of nodes.
+     * @param seed  - random seed.
+     * @param out   - receives the graph.
+     */
+    public static void arena(int nodes, long seed, Sink out) throws IOException {
+        checkSize(nodes);
+        SplittableRandom r = new SplittableRandom(seed);
+        double side = side(nodes);
+        double[] xy = randomPoints(r, nodes, side);
+        for (int i = 0; i < nodes; i++) out.node(i, X0 + xy[2 * i], Y0 + xy[2 * i + 1], 0);
+
+        PointGrid grid = new PointGrid(xy, nodes, side, side / Math.sqrt(Math.max(nodes, 1) / 2.0));
+        long[] links = new long[Math.max(16, 3 * nodes)]; //Every link as (smaller node << 32 | larger node).
+        int count = 0;
+        int[] found = new int[2];
+        double[] dist = new double[2];
+        for (int i = 0; i < nodes; i++) {
+            if (i > 0 && grid.nearest(i, i, 1, found, dist) == 1) links = add(links, count++, i, found[0]);
+            int near = grid.nearest(i, nodes, 1 + r.nextInt(2), found, dist);
+            for (int k = 0; k < near; k++) links = add(links, count++, i, found[k]);
+        }
+        Arrays.sort(links, 0, count);
+        for (int k = 0; k < count; k++) {
+            if (k > 0 && links[k] == links[k - 1]) continue; //The same link, found from both its ends.
+            int a = (int) (links[k] >>> 32), b = (int) links[k];
+            out.edge(a, b, 0.25 + 1.75 * r.nextDouble());
+            out.edge(b, a, 0.25 + 1.75 * r.nextDouble());
+        }
+    }
+
+    private static long[] add(long[] links, int count, int a, int b) {
+        if (count == links.length) links = Arrays.copyOf(links, 2 * count);
+        links[count] = (long) Math.min(a, b) << 32 | Math.max(a, b);
+        return links;
+    }
+
+    private static void checkSize(int nodes) {
+        if (nodes < 0) throw new IllegalArgumentException("Negative number of nodes");
+    }
+
+    /**
+     * Side of the square holding n nodes as densely as the game arenas.
+     */
+    private static double side(int n) {
+        return ARENA_SIDE * Math.sqrt(Math.max(n, 1) / (double) ARENA_NODES);
+    }
+
+    private static double[] randomPoints(SplittableRandom r, int n, double side) {
+        double[] xy = new double[2 * n];
+        for (int i = 0; i < 2 * n; i++) xy[i] = r.nextDouble() * side;
+        return xy;
+    }
+
+    /**
+     * A uniform grid over points in [0, extent)^2: the points of cell c are items[start[c] .. start[c+1]).
+     */
+    private static class PointGrid {
+        private final double[] xy;
+        private final double cell;
+        private final int side;
+        private final int[] start, items;
+
+        /**
+         * @param minCell - smallest cell size (the grid has at most about 4 cells per point).
+         */
+        PointGrid(double[] xy, int n, double extent, double minCell) {
+            this.xy = xy;
+            int cells = (int) Math.max(1, Math.min(extent / minCell, Math.sqrt(4.0 * n + 1)));
+            side = cells;
+            cell = extent / side;
+            start = new int[side * side + 1];
+            items = new int[n];
+            for (int i = 0; i < n; i++) start[cellOf(i) + 1]++;
+            for (int c = 0; c < side * side; c++) start[c + 1] += start[c];
+            int[] fill = Arrays.copyOf(start, side * side);
+            for (int i = 0; i < n; i++) items[fill[cellOf(i)]++] = i;
+        }
+
+        int cell(double v) {
+            return Math.max(0, Math.min(side - 1, (int) (v / cell)));
+        }
+
+        private int cellOf(int i) {
+            return cell(xy[2 * i + 1]) * side + cell(xy[2 * i]);
+        }
+
+        /**
+         * Finds the k nearest points to point i among points 0..before-1 (but i),
+         * searching rings of cells around it until no closer point can be found.
+         *
+         * @return how many were found (up to k), nearest first in found[] and dist[].
+         */
+        int nearest(int i, int before, int k, int[] found, double[] dist) {
+            double x = xy[2 * i], y = xy[2 * i + 1];
+            int cx = cell(x), cy = cell(y), count = 0;
+            for (int ring = 0; ring < side; ring++) {
+                for (int row = cy - ring; row <= cy + ring; row++) {
+                    if (row < 0 || row >= side) continue;
+                    boolean edgeRow = row == cy - ring || row == cy + ring;
+                    for (int col = cx - ring; col <= cx + ring; col += edgeRow || ring == 0 ? 1 : 2 * ring) {
+                        if (col < 0 || col >= side) continue;
+                        int c = row * side + col;
+                        for (int m = start[c]; m < start[c + 1]; m++) {
+                            int j = items[m];
+                            if (j == i || j >= before) continue;
+                            double d = Math.hypot(xy[2 * j] - x, xy[2 * j + 1] - y);
+                            if (count == k && d >= dist[k - 1]) continue;
+                            int at = count < k ? count++ : k - 1; //Insertion into the sorted k best.
+                            while (at > 0 && dist[at - 1] > d) {
+                                dist[at] = dist[at - 1];
+                                found[at] = found[at - 1];
+                                at--;
+                            }
+                            dist[at] = d;
+                            found[at] = j;
+                        }
+                    }
+                }
+                if (count == k && dist[k - 1] <= ring * cell) break; //Points of the next rings are farther.
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Writes a generated graph to a file, streamed: binary (GraphBinary) if the name ends with ".dwg",
+     * otherwise json (GZIP compressed if the name ends with ".gz").
+     * Usage: GraphGenerator family nodes seed file, e.g. GraphGenerator geometric 2000000 1 /tmp/g.dwg
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.out.println("Usage: GraphGenerator " + String.join("|", FAMILIES) + " nodes seed file(.json|.json.gz|.dwg)");
+            System.exit(1);
+        }
+        String family = args[0], file = args[3];
+        int nodes = Integer.parseInt(args[1]);
+        long seed = Long.parseLong(args[2]), start = System.nanoTime();
+        long[] count = new long[2];
+        if (file.endsWith(".dwg")) {
+            GraphBinary.Builder b = new GraphBinary.Builder(nodes, (int) Math.min(Integer.MAX_VALUE - 8, 8L * nodes));
+            generate(family, nodes, seed, counting(b, count));
+            b.write(file);
+        } else {
+            try (Writer w = DWGraph_Algo.openWriter(file, file.endsWith(".gz"));
+                 GraphJson.StreamWriter json = new GraphJson.StreamWriter(w)) {
+                generate(family, nodes, seed, counting(json, count));
+            }
+        }
+        System.out.printf("%s: %d nodes, %d edges, %.1f s%n", file, count[0], count[1], (System.nanoTime() - start) / 1e9);
+    }
+
+    private static Sink counting(Sink sink, long[] count) {
+        return new Sink() {
+            @Override
+            public void node(int key, double x, double y, double z) throws IOException {
+                count[0]++;
+                sink.node(key, x, y, z);
+            }
+
+            @Override
+            public void edge(int src, int dest, double w) throws IOException {
+                count[1]++;
+                sink.edge(src, dest, w);
+            }
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import gameClient.util.Point3D;
+import gameClient.util.PointBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * This class reads and writes graphs in the json format of the game server and of DWGraph_Algo.save():
+ * {"Edges":[{"src":0,"w":1.02,"dest":1},...],"Nodes":[{"pos":"35.18,32.10,0.0","id":0},...]}.
+ * The document is streamed token by token (Gson's JsonReader), never held as a tree:
+ * nodes and edges are collected into primitive arrays (the file may list edges before nodes),
+ * then the graph is built once, pre-sized to its number of nodes.
+ * Positions are parsed straight from the "pos" string into a packed PointBuffer, without splitting it.
+ * Writing streams as well (Gson's JsonWriter), node by node, in the same format (see also StreamWriter).
+ */
+public class GraphJson {
+
+    private int nodes, edges;
+    private int[] keys = new int[16];
+    private final PointBuffer pos = new PointBuffer();
+    private int[] src = new int[16], dest = new int[16];
+    private double[] w = new double[16];
+
+    private GraphJson() {
+    }
+
+    /**
+     * Reads a graph.
+     * @Runtime: O(|V| + |E|), memory O(|V| + |E|) primitives besides the graph itself.
+     *
+     * @param in - the json (it is read to its end, but not closed).
+     * @return the graph.
+     * @throws IOException if reading fails or the json is not a graph.
+     */
+    public static directed_weighted_graph read(Reader in) throws IOException {
+        GraphJson r = new GraphJson();
+        JsonReader json = new JsonReader(in);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("Nodes")) r.readNodes(json);
+            else if (name.equals("Edges")) r.readEdges(json);
+            else json.skipValue();
+        }
+        json.endObject();
+        return r.build();
+    }
+
+    private void readNodes(JsonReader json) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            int key = 0;
+            pos.add(0, 0, 0);
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (name.equals("id")) key = json.nextInt();
+                else if (name.equals("pos") && json.peek() == JsonToken.STRING) {
+                    String s = json.nextString();
+                    try {
+                        pos.set(nodes, s, 0, s.length());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad pos \"" + s + "\" of node " + key);
+                    }
+                } else json.skipValue();
+            }
+            json.endObject();
+            if (nodes == keys.length) keys = Arrays.copyOf(keys, nodes * 2);
+            keys[nodes] = key;
+            nodes++;
+        }
+        json.endArray();
+    }
+
+    private void readEdges(JsonReader json) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            int s = 0, d = 0;
+            double weight = 0;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (name.equals("src")) s = json.nextInt();
+                else if (name.equals("dest")) d = json.nextInt();
+                else if (name.equals("w")) weight = json.nextDouble();
+                else json.skipValue();
+            }
+            json.endObject();
+            if (edges == src.length) {
+                src = Arrays.copyOf(src, edges * 2);
+                dest = Arrays.copyOf(dest, edges * 2);
+                w = Arrays.copyOf(w, edges * 2);
+            }
+            src[edges] = s;
+            dest[edges] = d;
+            w[edges] = weight;
+            edges++;
+        }
+        json.endArray();
+    }
+
+    /**
+     * Writes a graph, edges first and then nodes, as the game server does.
+     * @Runtime: O(|V| + |E|), memory O(1) besides the writer's buffer.
+     *
+     * @param g   - the graph.
+     * @param out - where to write (flushed, but not closed).
+     * @throws IOException if writing fails.
+     */
+    public static void write(directed_weighted_graph g, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("Edges").beginArray();
+        for (node_data node : g.getV()) {
+            for (edge_data e : g.getE(node.getKey())) {
+                json.beginObject();
+                json.name("src").value(e.getSrc());
+                json.name("w").value(e.getWeight());
+                json.name("dest").value(e.getDest());
+                json.endObject();
+            }
+        }
+        json.endArray();
+        json.name("Nodes").beginArray();
+        for (node_data node : g.getV()) {
+            geo_location p = node.getLocation();
+            json.beginObject();
+            json.name("pos").value(p.x() + "," + p.y() + "," + p.z());
+            json.name("id").value(node.getKey());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * This class writes a graph as it is given, node by node and edge by edge, never holding it
+     * (so a GraphGenerator can stream a graph of any size to a file):
+     * {"Nodes":[...],"Edges":[...]} - nodes first, so all nodes must be given before the first edge.
+     * GraphJson.read() and DWGraph_Algo.load() read it as any other graph json.
+     */
+    public static class StreamWriter implements GraphGenerator.Sink, Closeable {
+        private final JsonWriter json;
+        private boolean edges;
+
+        /**
+         * Constructor.
+         *
+         * @param out - where to write (closed by close()).
+         */
+        public StreamWriter(Writer out) throws IOException {
+            json = new JsonWriter(out);
+            json.beginObject();
+            json.name("Nodes").beginArray();
+        }
+
+        @Override
+        public void node(int key, double x, double y, double z) throws IOException {
+            if (edges) throw new IllegalStateException("Nodes must be written before edges");
+            json.beginObject();
+            json.name("pos").value(x + "," + y + "," + z);
+            json.name("id").value(key);
+            json.endObject();
+        }
+
+        @Override
+        public void edge(int src, int dest, double w) throws IOException {
+            if (!edges) startEdges();
+            json.beginObject();
+            json.name("src").value(src);
+            json.name("w").value(w);
+            json.name("dest").value(dest);
+            json.endObject();
+        }
+
+        private void startEdges() throws IOException {
+            json.endArray();
+            json.name("Edges").beginArray();
+            edges = true;
+        }
+
+        /**
+         * Ends the json, and closes the writer.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!edges) startEdges();
+            json.endArray();
+            json.endObject();
+            json.close();
+        }
+    }
+
+    private directed_weighted_graph build() {
+        directed_weighted_graph g = new DWGraph_DS(nodes);
+        for (int i = 0; i < nodes; i++) {
+            node_data n = new NodeData(keys[i]);
+            n.setLocation(new Point3D(pos.x(i), pos.y(i), pos.z(i)));
+            g.addNode(n);
+        }
+        for (int i = 0; i < edges; i++) g.connect(src[i], dest[i], w[i]);
+        return g;
+    }
+}
@@ -0,0 +1,34 @@
+package api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one DWGraph_Algo.shortestPath() call (and so one shortestPathDist() call).
+ * Its duration is the search time. When no recording is on, begin() and commit() cost nothing
+ * and the event is never filled.
+ */
+@Name("ex2.ShortestPath")
+@Label("Shortest Path")
+@Category({"Ex2", "Graph"})
+@Description("A single source, single destination shortest path search")
+class ShortestPathEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    int src;
+
+    @Label("Destination")
+    int dest;
+
+    @Label("Graph Nodes")
+    int nodes;
+
+    @Label("Graph Edges")
+    int edges;
+
+    @Label("Path Nodes")
+    @Description("Number of nodes on the path found, -1 if there is none")
+    int pathNodes;
+}
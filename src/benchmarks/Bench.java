@@ -0,0 +1,317 @@
+package benchmarks;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * This class is a small micro benchmark harness, shared by all benchmark suites of this package.
+ * Every benchmark is warmed up for a while (so the JIT compiles it), then measured in batches:
+ * each batch runs the operation enough times to take at least ~50 micro seconds, and the
+ * time per operation of every batch is one sample. Reported are the mean, p50 and p99 of the samples,
+ * the throughput, and the bytes allocated per operation and per second
+ * (from the thread's allocation counter, when the JVM has one).
+ * runConcurrent() measures the same way in several threads at once, and reports their total throughput.
+ *
+ * Each operation returns a value that is folded into a public sink, so the JIT cannot drop the work.
+ * Reports go to the System.out the JVM started with, so a suite may silence System.out
+ * for code that prints as it works (such as DWGraph_Algo.load()).
+ *
+ * Tuning (system properties): bench.warmup.ms (default 500), bench.measure.ms (default 1000),
+ * bench.filter (regex, only matching benchmark names run), bench.json (file to write all results to, as json).
+ */
+public class Bench {
+
+    /**
+     * A benchmarked operation.
+     */
+    public interface Op {
+        /**
+         * Runs the operation once.
+         *
+         * @return any result of the operation (it is consumed, so the work is not optimized away).
+         */
+        Object run() throws Exception;
+    }
+
+    private static final long MIN_BATCH_NANOS = 50_000;
+
+    public static volatile int sink; //Consumes results.
+    private static final PrintStream OUT = System.out;
+
+    private final String suite;
+    private final long warmupNanos = Long.getLong("bench.warmup.ms", 500) * 1_000_000L;
+    private final long measureNanos = Long.getLong("bench.measure.ms", 1000) * 1_000_000L;
+    private final Pattern filter = Pattern.compile(System.getProperty("bench.filter", ".*"));
+    private final List<Result> results = new ArrayList<Result>();
+
+    /**
+     * Constructor.
+     *
+     * @param suite - name of the benchmark suite, used in the report.
+     */
+    public Bench(String suite) {
+        this.suite = suite;
+    }
+
+    /**
+     * Measures one operation (unless it is filtered out) and prints its result.
+     *
+     * @param name - the benchmark's name.
+     * @param op   - the operation to measure.
+     * @return the result, null if the benchmark was filtered out.
+     */
+    public Result run(String name, Op op) {
+        return run(name, 1, op);
+    }
+
+    /**
+     * Measures an operation that does `perCall` units of work per call
+     * (such as a loop over 1024 lookups), and reports the time and allocation per unit.
+     *
+     * @param name    - the benchmark's name.
+     * @param perCall - units of work done by each call of op.
+     * @param op      - the operation to measure.
+     * @return the result, null if the benchmark was filtered out.
+     */
+    public Result run(String name, int perCall, Op op) {
+        if (!enabled(name)) return null;
+        try {
+            //Warm up, and find a batch size that makes a batch long enough to time.
+            long batch = 1, start = System.nanoTime();
+            while (System.nanoTime() - start < warmupNanos) {
+                long t = System.nanoTime();
+                consume(op, batch);
+                if (System.nanoTime() - t < MIN_BATCH_NANOS) batch *= 2;
+            }
+
+            long[] samples = new long[64];
+            int count = 0;
+            long ops = 0, bytes = allocatedBytes();
+            start = System.nanoTime();
+            long total;
+            do {
+                long t = System.nanoTime();
+                consume(op, batch);
+                long elapsed = System.nanoTime() - t;
+                if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+                samples[count++] = elapsed / (batch * perCall);
+                ops += batch * perCall;
+                total = System.nanoTime() - start;
+            } while (total < measureNanos);
+            bytes = allocatedBytes() - bytes;
+
+            Arrays.sort(samples, 0, count);
+            Result r = new Result(suite, name, ops, total / (double) ops,
+                    samples[(int) Math.ceil(0.5 * count) - 1], samples[(int) Math.ceil(0.99 * count) - 1],
+                    bytes < 0 ? -1 : bytes / (double) ops);
+            results.add(r);
+            OUT.println(r);
+            return r;
+        } catch (Exception e) {
+            throw new RuntimeException("Benchmark " + name + " failed", e);
+        }
+    }
+
+    /**
+     * Measures an operation run by `threads` threads at once (op must be thread safe), for throughput under
+     * contention: every thread warms up on its own, then all measure their batches side by side, from a barrier.
+     * Reported are the total throughput of all threads (mean = wall time / all units, so ops/s is the sum),
+     * p50 and p99 of the time per unit of the batches of all threads, and the bytes all threads allocated per unit.
+     *
+     * @param name    - the benchmark's name.
+     * @param threads - number of threads running op.
+     * @param perCall - units of work done by each call of op.
+     * @param op      - the operation to measure.
+     * @return the result, null if the benchmark was filtered out.
+     */
+    public Result runConcurrent(String name, int threads, int perCall, Op op) {
+        if (!enabled(name)) return null;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        long[][] samples = new long[threads][];
+        int[] counts = new int[threads];
+        long[] ops = new long[threads], bytes = new long[threads], totals = new long[threads];
+        AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int id = w;
+            workers[w] = new Thread(() -> {
+                try {
+                    long batch = 1, start = System.nanoTime();
+                    while (System.nanoTime() - start < warmupNanos) {
+                        long t = System.nanoTime();
+                        consume(op, batch);
+                        if (System.nanoTime() - t < MIN_BATCH_NANOS) batch *= 2;
+                    }
+                    barrier.await();
+                    long[] mine = new long[64];
+                    int count = 0;
+                    long done = 0, allocated = allocatedBytes(), total;
+                    start = System.nanoTime();
+                    do {
+                        long t = System.nanoTime();
+                        consume(op, batch);
+                        long elapsed = System.nanoTime() - t;
+                        if (count == mine.length) mine = Arrays.copyOf(mine, count * 2);
+                        mine[count++] = elapsed / (batch * perCall);
+                        done += batch * perCall;
+                        total = System.nanoTime() - start;
+                    } while (total < measureNanos);
+                    bytes[id] = allocated < 0 ? -1 : allocatedBytes() - allocated;
+                    samples[id] = mine;
+                    counts[id] = count;
+                    ops[id] = done;
+                    totals[id] = total;
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    barrier.reset(); //Releases the others.
+                }
+            }, name + "#" + w);
+            workers[w].start();
+        }
+        try {
+            for (Thread t : workers) t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Benchmark " + name + " interrupted", e);
+        }
+        if (failure.get() != null) throw new RuntimeException("Benchmark " + name + " failed", failure.get());
+
+        int count = 0;
+        for (int c : counts) count += c;
+        long[] all = new long[count];
+        long allOps = 0, allBytes = 0, wall = 0;
+        for (int w = 0, at = 0; w < threads; w++) {
+            System.arraycopy(samples[w], 0, all, at, counts[w]);
+            at += counts[w];
+            allOps += ops[w];
+            allBytes = allBytes < 0 || bytes[w] < 0 ? -1 : allBytes + bytes[w];
+            wall = Math.max(wall, totals[w]);
+        }
+        Arrays.sort(all);
+        Result r = new Result(suite, name, allOps, wall / (double) allOps,
+                all[(int) Math.ceil(0.5 * count) - 1], all[(int) Math.ceil(0.99 * count) - 1],
+                allBytes < 0 ? -1 : allBytes / (double) allOps);
+        results.add(r);
+        OUT.println(r);
+        return r;
+    }
+
+    /**
+     * Returns true if a benchmark of this name would run (it matches bench.filter),
+     * so suites can skip building fixtures nothing will use.
+     */
+    public boolean enabled(String name) {
+        return filter.matcher(name).find();
+    }
+
+    private static void consume(Op op, long times) throws Exception {
+        int h = 0;
+        for (long i = 0; i < times; i++) {
+            Object o = op.run();
+            if (o != null) h += System.identityHashCode(o);
+        }
+        sink += h;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, -1 if the JVM cannot tell.
+     */
+    public static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    /**
+     * Returns all results measured so far.
+     */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Prints the table header, and writes all results to the bench.json file (if set) once the JVM exits.
+     * Call once, before the first run().
+     */
+    public void start() {
+        OUT.println("# " + suite + " (warmup " + warmupNanos / 1_000_000 + " ms, measure " + measureNanos / 1_000_000 + " ms)");
+        OUT.println(Result.HEADER);
+        String file = System.getProperty("bench.json");
+        if (file != null) Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                writeJson(file);
+            } catch (IOException e) {
+                System.err.println("Cannot write " + file + ": " + e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Writes all results to a json file (an array of result objects).
+     *
+     * @param file - the file to write.
+     */
+    public void writeJson(String file) throws IOException {
+        try (Writer w = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(results, w);
+        }
+    }
+
+    /**
+     * The measurements of one benchmark. Times are in nano seconds per operation.
+     */
+    public static class Result {
+        static final String HEADER = String.format(Locale.ROOT, "%-40s %12s %12s %12s %12s %12s %14s %12s",
+                "benchmark", "ops", "mean(ns)", "p50(ns)", "p99(ns)", "ops/s", "bytes/op", "alloc(MB/s)");
+
+        private final String suite, name;
+        private final long ops;
+        private final double mean;
+        private final long p50, p99;
+        private final double bytesPerOp;
+        private final double opsPerSecond, allocMBPerSecond;
+
+        Result(String suite, String name, long ops, double mean, long p50, long p99, double bytesPerOp) {
+            this.suite = suite;
+            this.name = name;
+            this.ops = ops;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.bytesPerOp = bytesPerOp;
+            opsPerSecond = 1e9 / mean;
+            allocMBPerSecond = bytesPerOp < 0 ? -1 : bytesPerOp * opsPerSecond / 1e6;
+        }
+
+        public String getSuite() {return suite;}
+        public String getName() {return name;}
+        public long getOps() {return ops;}
+        public double getMean() {return mean;}
+        public long getP50() {return p50;}
+        public long getP99() {return p99;}
+        /** -1 if the JVM cannot count allocations. */
+        public double getBytesPerOp() {return bytesPerOp;}
+        public double getOpsPerSecond() {return opsPerSecond;}
+        /** Allocation rate, -1 if the JVM cannot count allocations. */
+        public double getAllocMBPerSecond() {return allocMBPerSecond;}
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %12d %12.1f %12d %12d %12.1f %14.1f %12.1f",
+                    name, ops, mean, p50, p99, opsPerSecond, bytesPerOp, allocMBPerSecond);
+        }
+    }
+}
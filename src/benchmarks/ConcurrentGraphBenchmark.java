@@ -0,0 +1,133 @@
+package benchmarks;
+
+import api.ConcurrentDWGraph_DS;
+import api.DWGraph_DS;
+import api.NodeData;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.node_data;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ConcurrentDWGraph_DS against DWGraph_DS, shared by several threads, on a random graph (GraphDSBenchmark's "random" shape).
+ * DWGraph_DS is not thread safe, so when threads change it, it is guarded by a ReentrantReadWriteLock
+ * (as a caller sharing it would have to), as "DWGraph_DS+lock"; read only, it is also run unguarded.
+ * Every thread runs operations on random nodes and edges; reported ops/s is the total of all threads:
+ * read   - getEdge() of a random pair, and iterating getE() of a random node.
+ * mixed  - read, but 10% of the operations connect() or removeEdge() a random pair.
+ * write  - 50% connect(), 50% removeEdge().
+ * churn  - a stress mix: 40% connect(), 40% removeEdge(), 10% removeNode(), 10% addNode() (of the same random keys),
+ *          after which the graph is checked: its out and in maps must hold the same edges, and its edge count
+ *          and fingerprint must match them.
+ * Benchmarks are named op/impl/threads=t, pick some with -Dbench.filter, export with -Dbench.json.
+ *
+ * Properties: bench.nodes (default 100000), bench.degree (average out degree, default 8),
+ * bench.threads (default 1,2,4 and the number of processors).
+ */
+public class ConcurrentGraphBenchmark {
+
+    private static final String[] OPS = {"read", "mixed", "write", "churn"};
+
+    public static void main(String[] args) {
+        int n = Integer.getInteger("bench.nodes", 100000);
+        int degree = Integer.getInteger("bench.degree", 8);
+        int cpus = Runtime.getRuntime().availableProcessors();
+        String threads = System.getProperty("bench.threads", "1,2,4" + (cpus > 4 ? "," + cpus : ""));
+        Bench bench = new Bench("Concurrent graphs");
+        bench.start();
+        for (String op : OPS) {
+            for (String t : threads.split(",")) {
+                int count = Integer.parseInt(t.trim());
+                if (op.equals("read")) run(bench, op, "DWGraph_DS", count, n, degree);
+                run(bench, op, "DWGraph_DS+lock", count, n, degree);
+                run(bench, op, "ConcurrentDWGraph_DS", count, n, degree);
+            }
+        }
+    }
+
+    private static void run(Bench bench, String op, String impl, int threads, int n, int degree) {
+        String name = op + "/" + impl + "/threads=" + threads;
+        if (!bench.enabled(name)) return;
+        DWGraph_DS base = GraphDSBenchmark.graph("random", n, degree, 1); //A fresh graph: writes change it.
+        directed_weighted_graph g = impl.startsWith("Concurrent") ? new ConcurrentDWGraph_DS(base) : base;
+        ReadWriteLock lock = impl.endsWith("+lock") ? new ReentrantReadWriteLock() : null;
+        int writes = op.equals("read") ? 0 : op.equals("mixed") ? 10 : op.equals("write") ? 100 : -1;
+        bench.runConcurrent(name, threads, 1, () -> {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            int a = r.nextInt(n), b = r.nextInt(n), p = r.nextInt(100);
+            if (writes < 0) return churn(g, lock, a, b, p);
+            if (p < writes) return write(g, lock, a, b, p % 2 == 0);
+            return read(g, lock, a, b);
+        });
+        if (writes < 0) System.out.println("# " + name + ": " + check(g));
+    }
+
+    private static Object read(directed_weighted_graph g, ReadWriteLock lock, int a, int b) {
+        if (lock != null) lock.readLock().lock();
+        try {
+            double sum = 0;
+            edge_data e = g.getEdge(a, b);
+            if (e != null) sum += e.getWeight();
+            for (edge_data out : g.getE(a)) sum += out.getWeight();
+            return sum > 0 ? null : g; //Consumed either way.
+        } finally {
+            if (lock != null) lock.readLock().unlock();
+        }
+    }
+
+    private static Object write(directed_weighted_graph g, ReadWriteLock lock, int a, int b, boolean connect) {
+        if (lock != null) lock.writeLock().lock();
+        try {
+            if (connect) {
+                g.connect(a, b, 1 + (a ^ b) % 7);
+                return null;
+            }
+            return g.removeEdge(a, b);
+        } finally {
+            if (lock != null) lock.writeLock().unlock();
+        }
+    }
+
+    private static Object churn(directed_weighted_graph g, ReadWriteLock lock, int a, int b, int p) {
+        if (lock != null) lock.writeLock().lock();
+        try {
+            if (p < 40) g.connect(a, b, 1 + (a ^ b) % 7);
+            else if (p < 80) return g.removeEdge(a, b);
+            else if (p < 90) return g.removeNode(a);
+            else g.addNode(new NodeData(a));
+            return null;
+        } finally {
+            if (lock != null) lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks that a graph (no longer changed) is consistent: every edge is in the in map of its dest,
+     * and every in edge in the out map of its src (the same object), and its edge count and fingerprint match its edges.
+     */
+    private static String check(directed_weighted_graph g) {
+        int edges = 0, inEdges = 0;
+        boolean ok = true;
+        for (node_data v : g.getV()) {
+            for (edge_data e : g.getE(v.getKey())) {
+                edges++;
+                ok &= inE(g, e.getDest()).contains(e);
+            }
+            for (edge_data e : inE(g, v.getKey())) {
+                inEdges++;
+                ok &= g.getEdge(e.getSrc(), v.getKey()) == e;
+            }
+        }
+        ok &= edges == inEdges && edges == g.edgeSize() && DWGraph_DS.fingerprint(g) == new DWGraph_DS(g).fingerprint();
+        return (ok ? "consistent, " : "INCONSISTENT, ") + g.nodeSize() + " nodes, " + edges + " edges (edgeSize() "
+                + g.edgeSize() + ", " + inEdges + " in edges)";
+    }
+
+    private static Collection<edge_data> inE(directed_weighted_graph g, int key) {
+        return g instanceof ConcurrentDWGraph_DS ? ((ConcurrentDWGraph_DS) g).getInE(key) : ((DWGraph_DS) g).getInE(key);
+    }
+}
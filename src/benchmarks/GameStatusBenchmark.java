@@ -0,0 +1,38 @@
+package benchmarks;
+
+import Server.Game_Server_Ex2;
+import api.game_service;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gameClient.GameStatus;
+
+/**
+ * Cost of reading the game status for the window's panel (level, moves, grade):
+ * the old way - three game_service.toString() calls and three full json parses per painted frame -
+ * against a GameStatus parsed once per move() and only read by each frame.
+ *
+ * Usage: GameStatusBenchmark [level] (run from the project directory, the server reads data/).
+ */
+public class GameStatusBenchmark {
+
+    public static void main(String[] args) {
+        int level = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+        game_service game = Game_Server_Ex2.getServer(level);
+        GameStatus status = GameStatus.of(game);
+
+        Bench bench = new Bench("GameStatus");
+        bench.start();
+        bench.run("frame.parse3x", () -> field(game, "game_level") + field(game, "moves") + field(game, "grade"));
+        bench.run("frame.cachedStatus", () -> status.getLevel() + status.getMoves() + (int) status.getGrade());
+        bench.run("move.GameStatus.of", () -> GameStatus.of(game));
+    }
+
+    /**
+     * What MyFrame.getLevel()/getMoves()/getGrade() did for every frame.
+     */
+    private static int field(game_service game, String name) {
+        JsonObject json = JsonParser.parseString(game.toString()).getAsJsonObject();
+        JsonObject gameServer = json.getAsJsonObject("GameServer");
+        return gameServer.get(name).getAsInt();
+    }
+}
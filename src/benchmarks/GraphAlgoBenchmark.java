@@ -0,0 +1,93 @@
+package benchmarks;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import api.node_data;
+import gameClient.RoutingTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * The algorithms of DWGraph_Algo: shortestPath, shortestPathDist, isConnected, connected_component(s),
+ * save/load (json and binary), and the all-pairs precompute of the game (RoutingTable, what Ex2.calcAllPaths was),
+ * on the game graphs data/A0..A5 and on random graphs of increasing size.
+ * Every result has the throughput and the allocation rate, so a change to an algorithm shows in both.
+ * Benchmarks are named op/graph (graph is A0..A5 or n=size); pick some with -Dbench.filter, export with -Dbench.json.
+ *
+ * Path queries cycle over 64 random (src, dest) pairs, connected_component over 64 random nodes.
+ * shortestPath is quadratic today (PriorityQueue.contains() per edge), so the default sizes stop at 10000 nodes.
+ * connected_components is worse (seconds at 1000 nodes), and the all-pairs tables take n*n memory, so they only
+ * run up to bench.components.max (default 1000) and bench.allPairs.max (default 2000) nodes.
+ *
+ * Properties: bench.sizes (random graph sizes, default 1000,3000,10000), bench.degree (average out degree, default 8),
+ * bench.components.max, bench.allPairs.max. Run from the project directory (the game graphs are read from data/).
+ */
+public class GraphAlgoBenchmark {
+
+    private static final int QUERIES = 64;
+    private static final String[] OPS = {"shortestPath", "shortestPathDist", "isConnected", "connected_component",
+            "connected_components", "save", "load", "saveBinary", "loadBinary", "allPairs"};
+
+    public static void main(String[] args) throws IOException {
+        int degree = Integer.getInteger("bench.degree", 8);
+        Bench bench = new Bench("DWGraph_Algo");
+        bench.start();
+        System.setOut(new PrintStream(new OutputStream() { //DWGraph_Algo prints on every load.
+            @Override
+            public void write(int b) {
+            }
+        }));
+        for (int i = 0; i <= 5; i++) {
+            DWGraph_Algo algo = new DWGraph_Algo();
+            if (!algo.load("data/A" + i)) throw new IOException("Cannot load data/A" + i);
+            run(bench, "A" + i, algo);
+        }
+        for (String size : System.getProperty("bench.sizes", "1000,3000,10000").split(",")) {
+            int n = Integer.parseInt(size.trim());
+            boolean any = false;
+            for (String op : OPS) any |= bench.enabled(op + "/n=" + n);
+            if (any) run(bench, "n=" + n, new DWGraph_Algo(GraphDSBenchmark.graph("random", n, degree, 1)));
+        }
+    }
+
+    private static void run(Bench bench, String graphName, DWGraph_Algo algo) throws IOException {
+        directed_weighted_graph g = algo.getGraph();
+        node_data[] nodes = g.getV().toArray(new node_data[0]);
+        Random r = new Random(3);
+        int[] src = new int[QUERIES], dest = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            src[i] = nodes[r.nextInt(nodes.length)].getKey();
+            dest[i] = nodes[r.nextInt(nodes.length)].getKey();
+        }
+        int[] next = {0};
+
+        bench.run("shortestPath/" + graphName, () -> {
+            int q = next[0]++ & (QUERIES - 1);
+            return algo.shortestPath(src[q], dest[q]);
+        });
+        bench.run("shortestPathDist/" + graphName, () -> {
+            int q = next[0]++ & (QUERIES - 1);
+            return algo.shortestPathDist(src[q], dest[q]);
+        });
+        bench.run("isConnected/" + graphName, algo::isConnected);
+        bench.run("connected_component/" + graphName, () -> algo.connected_component(src[next[0]++ & (QUERIES - 1)]));
+        if (nodes.length <= Integer.getInteger("bench.components.max", 1000))
+            bench.run("connected_components/" + graphName, algo::connected_components);
+
+        File json = File.createTempFile("graph", ".json"), binary = File.createTempFile("graph", ".dwg");
+        json.deleteOnExit();
+        binary.deleteOnExit();
+        DWGraph_Algo loader = new DWGraph_Algo();
+        bench.run("save/" + graphName, () -> algo.save(json.getPath()));
+        bench.run("load/" + graphName, () -> loader.load(json.getPath()));
+        bench.run("saveBinary/" + graphName, () -> algo.saveBinary(binary.getPath()));
+        bench.run("loadBinary/" + graphName, () -> loader.loadBinary(binary.getPath()));
+
+        if (nodes.length <= Integer.getInteger("bench.allPairs.max", 2000))
+            bench.run("allPairs/" + graphName, () -> new RoutingTable(algo));
+    }
+}
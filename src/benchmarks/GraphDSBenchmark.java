@@ -0,0 +1,188 @@
+package benchmarks;
+
+import api.DWGraph_DS;
+import api.NodeData;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.node_data;
+import gameClient.util.Point3D;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The operations of DWGraph_DS, on graphs of several sizes and degree distributions:
+ * addNode, connect, getEdge, getE iteration, removeNode, the deep copy constructor, equals, hashCode and toString.
+ * Benchmarks are named op/shape/n=size, so one operation or one graph can be picked with -Dbench.filter,
+ * and -Dbench.json=file exports all results.
+ *
+ * Shapes (all with the same average out degree):
+ * fixed    - every node has exactly `degree` edges to random nodes.
+ * random   - n*degree edges between uniformly random nodes (binomial degrees).
+ * powerlaw - edge ends are drawn from a heavy-tailed distribution: a few hubs with huge in and out degrees.
+ *
+ * Lookups (connect, getEdge, getE) are timed per call, over 1024 random existing edges or nodes.
+ * removeNode is timed together with restoring the node and its edges, so the graph stays the same.
+ * toString builds its result by string concatenation (quadratic), so it only runs up to bench.toString.max nodes.
+ *
+ * Properties: bench.sizes (default 1000,10000,100000; 1000000 needs about -Xmx6g), bench.shapes
+ * (default fixed,random,powerlaw), bench.degree (average out degree, default 8), bench.toString.max (default 1000).
+ */
+public class GraphDSBenchmark {
+
+    private static final int LOOKUPS = 1024;
+    private static final String[] OPS = {"addNode", "connect", "getEdge", "getE", "removeNode", "copy",
+            "equals", "equals.reject", "hashCode", "toString"};
+
+    public static void main(String[] args) {
+        int degree = Integer.getInteger("bench.degree", 8);
+        int toStringMax = Integer.getInteger("bench.toString.max", 1000);
+        Bench bench = new Bench("DWGraph_DS");
+        bench.start();
+        for (String size : System.getProperty("bench.sizes", "1000,10000,100000").split(",")) {
+            int n = Integer.parseInt(size.trim());
+            for (String shape : System.getProperty("bench.shapes", "fixed,random,powerlaw").split(",")) {
+                shape = shape.trim();
+                boolean any = false;
+                for (String op : OPS) any |= bench.enabled(name(op, shape, n));
+                if (any) run(bench, shape, n, degree, n <= toStringMax);
+            }
+        }
+    }
+
+    private static String name(String op, String shape, int n) {
+        return op + "/" + shape + "/n=" + n;
+    }
+
+    private static void run(Bench bench, String shape, int n, int degree, boolean withToString) {
+        DWGraph_DS g = graph(shape, n, degree, 1);
+        Random r = new Random(2);
+        node_data[] nodes = g.getV().toArray(new node_data[0]);
+        int[] src = new int[LOOKUPS], dest = new int[LOOKUPS], keys = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            keys[i] = nodes[r.nextInt(n)].getKey();
+            edge_data e;
+            do e = anyEdge(g, nodes[r.nextInt(n)]); while (e == null);
+            src[i] = e.getSrc();
+            dest[i] = e.getDest();
+        }
+        DWGraph_DS copy = new DWGraph_DS(g), different = new DWGraph_DS(g);
+        different.connect(src[0], dest[0], 1e9);
+
+        bench.run(name("addNode", shape, n), n, () -> {
+            DWGraph_DS h = new DWGraph_DS();
+            for (node_data v : nodes) h.addNode(v);
+            return h;
+        });
+        double[] w = new double[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) w[i] = g.getEdge(src[i], dest[i]).getWeight();
+        bench.run(name("connect", shape, n), LOOKUPS, () -> { //Overrides existing edges with their own weight.
+            for (int i = 0; i < LOOKUPS; i++) g.connect(src[i], dest[i], w[i]);
+            return null;
+        });
+        bench.run(name("getEdge", shape, n), LOOKUPS, () -> {
+            int found = 0;
+            for (int i = 0; i < LOOKUPS; i++) if (g.getEdge(src[i], dest[i]) != null) found++;
+            return found;
+        });
+        bench.run(name("getE", shape, n), LOOKUPS, () -> {
+            double sum = 0;
+            for (int i = 0; i < LOOKUPS; i++) for (edge_data e : g.getE(keys[i])) sum += e.getWeight();
+            return sum;
+        });
+        Restorer restorer = new Restorer(g);
+        bench.run(name("removeNode", shape, n), () -> restorer.removeAndRestore(keys[restorer.next++ & (LOOKUPS - 1)]));
+        bench.run(name("copy", shape, n), () -> new DWGraph_DS(g));
+        bench.run(name("equals", shape, n), () -> g.equals(copy));
+        bench.run(name("equals.reject", shape, n), () -> g.equals(different));
+        bench.run(name("hashCode", shape, n), g::hashCode);
+        if (withToString) bench.run(name("toString", shape, n), g::toString);
+    }
+
+    /**
+     * Removes a node, then puts it back with all its edges.
+     */
+    private static class Restorer {
+        private final DWGraph_DS g;
+        private int[] ends = new int[64];
+        private double[] weights = new double[64];
+        int next;
+
+        Restorer(DWGraph_DS g) {
+            this.g = g;
+        }
+
+        node_data removeAndRestore(int key) {
+            int count = 0;
+            for (edge_data e : g.getE(key)) count = save(count, e.getDest(), e.getWeight());
+            int out = count;
+            for (edge_data e : g.getInE(key)) count = save(count, e.getSrc(), e.getWeight());
+            node_data node = g.removeNode(key);
+            g.addNode(node);
+            for (int i = 0; i < count; i++) {
+                if (i < out) g.connect(key, ends[i], weights[i]);
+                else g.connect(ends[i], key, weights[i]);
+            }
+            return node;
+        }
+
+        private int save(int count, int end, double w) {
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, 2 * count);
+                weights = Arrays.copyOf(weights, 2 * count);
+            }
+            ends[count] = end;
+            weights[count] = w;
+            return count + 1;
+        }
+    }
+
+    private static edge_data anyEdge(directed_weighted_graph g, node_data v) {
+        for (edge_data e : g.getE(v.getKey())) return e;
+        return null;
+    }
+
+    /**
+     * Builds a graph of n nodes (keys 0..n-1, random positions) of the given shape
+     * (see the class comment), with an average out degree of about `degree`.
+     *
+     * @param shape  - fixed, random or powerlaw.
+     * @param n      - number of nodes.
+     * @param degree - average out degree.
+     * @param seed   - random seed (the same seed gives the same graph).
+     * @return the graph.
+     */
+    static DWGraph_DS graph(String shape, int n, int degree, long seed) {
+        Random r = new Random(seed);
+        DWGraph_DS g = new DWGraph_DS(n);
+        for (int i = 0; i < n; i++) {
+            node_data v = new NodeData(i);
+            v.setLocation(new Point3D(35 + r.nextDouble(), 32 + r.nextDouble(), 0));
+            g.addNode(v);
+        }
+        long edges = (long) n * degree;
+        switch (shape) {
+            case "fixed":
+                for (int i = 0; i < n; i++)
+                    for (int k = 0; k < degree; k++) g.connect(i, r.nextInt(n), 1 + r.nextDouble());
+                break;
+            case "random":
+                for (long k = 0; k < edges; k++) g.connect(r.nextInt(n), r.nextInt(n), 1 + r.nextDouble());
+                break;
+            case "powerlaw":
+                for (long k = 0; k < edges; k++) g.connect(skewed(r, n), n - 1 - skewed(r, n), 1 + r.nextDouble());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown graph shape " + shape);
+        }
+        return g;
+    }
+
+    /**
+     * A node index with a heavy-tailed distribution: index k is drawn with probability about k^(-2/3).
+     */
+    private static int skewed(Random r, int n) {
+        double u = r.nextDouble();
+        return Math.min(n - 1, (int) (n * u * u * u));
+    }
+}
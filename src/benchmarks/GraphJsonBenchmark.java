@@ -0,0 +1,132 @@
+package benchmarks;
+
+import api.*;
+import com.google.gson.JsonArray;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gameClient.util.Point3D;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.util.Random;
+
+/**
+ * Loading and saving a large graph json: the streaming GraphJson reader (used by DWGraph_Algo.load and Ex2.loadGraph)
+ * against the previous loader, which parsed the whole file into a Gson tree and split every "pos",
+ * and the streaming writer of DWGraph_Algo.save (plain and GZIP) against the previous save,
+ * which built a Gson tree and a string of the whole file before writing it.
+ * load.binary / load.binary.mapOnly load the same graph from the memory mapped binary format (GraphBinary).
+ *
+ * Usage: GraphJsonBenchmark [nodes] [edges per node] (defaults: 100000, 10 - a million edges; give the JVM -Xmx2g).
+ */
+public class GraphJsonBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        File file = File.createTempFile("graph", ".json"), out = File.createTempFile("saved", ".json");
+        File binary = File.createTempFile("graph", ".dwg");
+        file.deleteOnExit();
+        out.deleteOnExit();
+        binary.deleteOnExit();
+        directed_weighted_graph g = randomGraph(nodes, degree, 1);
+        DWGraph_Algo algo = new DWGraph_Algo(g);
+        algo.save(file.getPath());
+        algo.save(out.getPath(), true);
+        algo.saveBinary(binary.getPath());
+        System.out.printf("graph: %d nodes, %d edges, %.1f MB json, %.1f MB gzip, %.1f MB binary%n",
+                nodes, nodes * degree, file.length() / 1e6, out.length() / 1e6, binary.length() / 1e6);
+
+        Bench bench = new Bench("GraphJson");
+        bench.start();
+        bench.run("load.tree", () -> treeLoad(file));
+        bench.run("load.stream", () -> {
+            try (Reader r = new BufferedReader(new FileReader(file), 1 << 16)) {
+                return GraphJson.read(r);
+            }
+        });
+        bench.run("load.binary", () -> GraphBinary.open(binary.getPath()).toGraph());
+        bench.run("load.binary.mapOnly", () -> GraphBinary.open(binary.getPath()));
+        bench.run("save.tree", () -> treeSave(g, out));
+        bench.run("save.stream", () -> algo.save(out.getPath(), false));
+        bench.run("save.stream.gzip", () -> algo.save(out.getPath(), true));
+        bench.run("save.binary", () -> algo.saveBinary(binary.getPath()));
+    }
+
+    /**
+     * A random graph: nodes at random positions, each with edges to `degree` random other nodes.
+     */
+    static directed_weighted_graph randomGraph(int nodes, int degree, long seed) {
+        Random r = new Random(seed);
+        directed_weighted_graph g = new DWGraph_DS(nodes);
+        for (int i = 0; i < nodes; i++) {
+            node_data n = new NodeData(i);
+            n.setLocation(new Point3D(35 + r.nextDouble(), 32 + r.nextDouble(), 0));
+            g.addNode(n);
+        }
+        for (int i = 0; i < nodes; i++)
+            for (int k = 0; k < degree; k++) g.connect(i, r.nextInt(nodes), 1 + r.nextDouble());
+        return g;
+    }
+
+    /**
+     * The loader DWGraph_Algo.load() used before GraphJson.
+     */
+    private static directed_weighted_graph treeLoad(File file) throws Exception {
+        directed_weighted_graph newGraph = new DWGraph_DS();
+        try (FileReader reader = new FileReader(file)) {
+            JsonObject graph = JsonParser.parseReader(reader).getAsJsonObject();
+            JsonArray edges = graph.getAsJsonArray("Edges");
+            JsonArray nodes = graph.getAsJsonArray("Nodes");
+            for (JsonElement node : nodes) {
+                int key = ((JsonObject) node).get("id").getAsInt();
+                String[] posArr = ((JsonObject) node).get("pos").getAsString().split(",");
+                node_data n = new NodeData(key);
+                n.setLocation(new Point3D(Double.parseDouble(posArr[0]), Double.parseDouble(posArr[1]), Double.parseDouble(posArr[2])));
+                newGraph.addNode(n);
+            }
+            for (JsonElement edge : edges) {
+                int src = ((JsonObject) edge).get("src").getAsInt();
+                double weight = ((JsonObject) edge).get("w").getAsDouble();
+                int dest = ((JsonObject) edge).get("dest").getAsInt();
+                edge_data e = new EdgeData(src, dest, weight);
+                newGraph.connect(e.getSrc(), e.getDest(), e.getWeight());
+            }
+        }
+        return newGraph;
+    }
+
+    /**
+     * The previous DWGraph_Algo.save().
+     */
+    private static boolean treeSave(directed_weighted_graph g, File file) throws Exception {
+        JsonObject graph = new JsonObject();
+        JsonArray nodes = new JsonArray();
+        JsonArray edges = new JsonArray();
+        for (node_data node : g.getV()) {
+            JsonObject v = new JsonObject();
+            double x = node.getLocation().x(), y = node.getLocation().y(), z = node.getLocation().z();
+            v.addProperty("pos", x + "," + y + "," + z);
+            v.addProperty("id", node.getKey());
+            nodes.add(v);
+            for (edge_data outEdge : g.getE(node.getKey())) {
+                JsonObject edge = new JsonObject();
+                edge.addProperty("src", outEdge.getSrc());
+                edge.addProperty("w", outEdge.getWeight());
+                edge.addProperty("dest", outEdge.getDest());
+                edges.add(edge);
+            }
+        }
+        graph.add("Edges", edges);
+        graph.add("Nodes", nodes);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(new GsonBuilder().create().toJson(graph));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,127 @@
+package benchmarks;
+
+import Server.Game_Server_Ex2;
+import api.directed_weighted_graph;
+import gameClient.Agent;
+import gameClient.Arena;
+import gameClient.EdgeMatcher;
+import gameClient.Ex2;
+import gameClient.GameJson;
+import gameClient.Pokemon;
+import gameClient.RecordingGameService;
+import gameClient.ReplayGameService;
+import gameClient.Strategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * The client's work on real games, replayed from game logs (see RecordingGameService, ReplayGameService),
+ * so every run sees exactly the same server responses and no server is needed:
+ * agents   - decoding the agents json of one move().
+ * pokemons - decoding the pokemons json of one tick.
+ * parse    - one tick of parsing: the agents json of move(), the pokemons json, and matching the pokemons to edges.
+ * game     - a whole headless game (Ex2 with the strategy, without sleeping between ticks).
+ * The decoding benchmarks run with org.json, as the client did (Arena.getAgents(), Arena.json2Pokemons(),
+ * a new object per agent and pokemon, every pokemon matched to its edge every tick), and with the
+ * in-place codec it uses now (GameJson: no allocation, only moved pokemons are matched again, by an EdgeMatcher),
+ * as op.orgjson and op.codec.
+ * Benchmarks are named op/log, pick some with -Dbench.filter, export with -Dbench.json.
+ *
+ * Properties: bench.logs (comma separated game log files, e.g. written with -Dgame.record=file),
+ * bench.strategy (default GreedyRatioStrategy). Without bench.logs, one game of bench.level (default 11)
+ * is recorded first on the bundled server (this takes the game's length, about a minute;
+ * run from the project directory, the server reads data/).
+ */
+public class ReplayBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String logs = System.getProperty("bench.logs");
+        String strategy = System.getProperty("bench.strategy", "GreedyRatioStrategy");
+        Bench bench = new Bench("Replay"); //Reports to System.out as it is now.
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() { //The game prints as it plays.
+            @Override
+            public void write(int b) {
+            }
+        }));
+        if (logs == null) logs = record(Integer.getInteger("bench.level", 11), out);
+
+        bench.start();
+        for (String file : logs.split(",")) {
+            file = file.trim();
+            String name = new File(file).getName();
+            ReplayGameService log = new ReplayGameService(file);
+            directed_weighted_graph graph = Ex2.loadGraph(log.fresh().getGraph());
+            GameJson codec = new GameJson(graph);
+            EdgeMatcher matcher = new EdgeMatcher(graph);
+            Ticks ticks = new Ticks(log);
+            bench.run("agents.orgjson/" + name, () -> Arena.getAgents(ticks.next().move(), graph).size());
+            bench.run("agents.codec/" + name, () -> codec.readAgents(ticks.next().move()).size());
+            bench.run("pokemons.orgjson/" + name, () -> Arena.json2Pokemons(ticks.next().getPokemons()).size());
+            bench.run("pokemons.codec/" + name, () -> codec.readPokemons(ticks.next().getPokemons()).size());
+            bench.run("parse.orgjson/" + name, () -> {
+                ReplayGameService replay = ticks.next();
+                List<Agent> agents = Arena.getAgents(replay.move(), graph);
+                List<Pokemon> pokemons = Arena.json2Pokemons(replay.getPokemons());
+                for (Pokemon p : pokemons) Arena.updateEdge(p, graph);
+                return agents.size() + pokemons.size();
+            });
+            bench.run("parse.codec/" + name, () -> {
+                ReplayGameService replay = ticks.next();
+                List<Agent> agents = codec.readAgents(replay.move());
+                List<Pokemon> pokemons = codec.readPokemons(replay.getPokemons());
+                for (Pokemon p : pokemons) if (p.get_edge() == null) matcher.match(p);
+                return agents.size() + pokemons.size();
+            });
+            bench.run("game/" + name, () -> {
+                Ex2 game = new Ex2(0, 0, false, Strategy.create(strategy));
+                game.setRealTime(false);
+                return game.play(log.fresh()).getGrade();
+            });
+        }
+    }
+
+    /**
+     * Replays a log tick after tick, over and over.
+     */
+    private static class Ticks {
+        private final ReplayGameService log;
+        private ReplayGameService replay;
+        private int tick;
+
+        Ticks(ReplayGameService log) {
+            this.log = log;
+            replay = log.fresh();
+        }
+
+        /**
+         * Returns the replay, at the next tick (once the log's moves are used up, a fresh replay).
+         */
+        ReplayGameService next() {
+            if (tick++ == log.getMoves()) {
+                replay = log.fresh();
+                tick = 1;
+            }
+            return replay;
+        }
+    }
+
+    /**
+     * Plays one game on the bundled server, recorded to a temporary log.
+     *
+     * @return the log file.
+     */
+    private static String record(int level, PrintStream out) throws IOException {
+        File file = File.createTempFile("level" + level + "-", ".gamelog");
+        file.deleteOnExit();
+        out.println("Recording a game of level " + level + " to " + file + " ...");
+        try (RecordingGameService game = new RecordingGameService(Game_Server_Ex2.getServer(level), file.getPath())) {
+            new Ex2(0, level, false).play(game);
+        }
+        return file.getPath();
+    }
+}
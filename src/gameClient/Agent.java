@@ -4,6 +4,7 @@ import api.directed_weighted_graph;
 import api.edge_data;
 import api.geo_location;
 import api.node_data;
+import gameClient.util.MutablePoint3D;
 import gameClient.util.Point3D;
 import org.json.JSONObject;
 
@@ -14,6 +15,7 @@ import org.json.JSONObject;
 public class Agent {
     private int _id;
     private geo_location _pos;
+    private MutablePoint3D _mpos; //_pos once updated in place (see update(int, ...)).
     private double _speed;
     private edge_data _curr_edge;
     private node_data _curr_node;
@@ -68,6 +70,21 @@ public class Agent {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Updates this agent in place from decoded json values (see GameJson): nothing is allocated,
+     * the position is a MutablePoint3D that moves with the agent.
+     */
+    void update(int id, double value, int src, int dest, double speed, double x, double y, double z) {
+        _id = id;
+        if (_mpos == null) _mpos = new MutablePoint3D();
+        _mpos.set(x, y, z);
+        _pos = _mpos;
+        this.setCurrNode(src);
+        this.setSpeed(speed);
+        this.setNextNode(dest);
+        this.setMoney(value);
+    }
     public int getSrcNode() {return this._curr_node.getKey();}
     public String toJSON() {
         int d = this.getNextNode();
@@ -1,5 +1,6 @@
 package gameClient;
 
+import api.EdgeLocation;
 import api.directed_weighted_graph;
 import api.edge_data;
 import api.geo_location;
@@ -113,6 +114,8 @@ public class Arena {
         return ans;
     }
     public static void updateEdge(Pokemon fr, directed_weighted_graph g) {
+        GameEvents.UpdateEdge event = new GameEvents.UpdateEdge(); //Seen in flight recordings, see GameEvents.
+        event.begin();
         //	oop_edge_data ans = null;
         Iterator<node_data> itr = g.getV().iterator();
         while(itr.hasNext()) {
@@ -121,9 +124,19 @@ public class Arena {
             while(iter.hasNext()) {
                 edge_data e = iter.next();
                 boolean f = isOnEdge(fr.getLocation(), e,fr.getType(), g);
-                if(f) {fr.set_edge(e);}
+                if(f) {fr.set_edge(e); fr.set_edge_location(EdgeLocation.project(g, e, fr.getLocation()));}
             }
         }
+        if (event.shouldCommit()) {
+            event.type = fr.getType();
+            event.value = fr.getValue();
+            event.edges = g.edgeSize();
+            if (fr.get_edge() != null) {
+                event.src = fr.get_edge().getSrc();
+                event.dest = fr.get_edge().getDest();
+            }
+            event.commit();
+        }
     }
 
     /**
@@ -0,0 +1,141 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.edge_location;
+import api.geo_location;
+import gameClient.util.MutablePoint3D;
+import gameClient.util.Point3D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents an immutable view of the Arena at one game tick:
+ * the agents and pokemons as they were right after _game.move(),
+ * the game graph and its precomputed routes, and the time left.
+ * Strategies receive a snapshot and must not rely on any other game state.
+ * Note: the graph and the routing table are shared, not copied -
+ * they never change once the game has started.
+ */
+public class ArenaSnapshot {
+
+    private final directed_weighted_graph graph;
+    private final RoutingTable routes;
+    private final List<AgentView> agents;
+    private final List<PokemonView> pokemons;
+    private final long timeToEnd;
+
+    /**
+     * Constructor.
+     *
+     * @param graph     - the game graph.
+     * @param routes    - all shortest paths of the game graph.
+     * @param agents    - the agents, in the order decisions are expected.
+     * @param pokemons  - the pokemons.
+     * @param timeToEnd - milli seconds left to play.
+     */
+    public ArenaSnapshot(directed_weighted_graph graph, RoutingTable routes,
+                         List<AgentView> agents, List<PokemonView> pokemons, long timeToEnd) {
+        this.graph = graph;
+        this.routes = routes;
+        this.agents = Collections.unmodifiableList(new ArrayList<AgentView>(agents));
+        this.pokemons = Collections.unmodifiableList(new ArrayList<PokemonView>(pokemons));
+        this.timeToEnd = timeToEnd;
+    }
+
+    /**
+     * Takes a snapshot of the given arena.
+     *
+     * @param ar        - the arena (agents may be null before they were located).
+     * @param routes    - all shortest paths of the arena's graph.
+     * @param timeToEnd - milli seconds left to play.
+     * @return a snapshot of the arena.
+     */
+    public static ArenaSnapshot of(Arena ar, RoutingTable routes, long timeToEnd) {
+        List<AgentView> agents = new ArrayList<AgentView>();
+        if (ar.getAgents() != null)
+            for (Agent a : ar.getAgents()) agents.add(new AgentView(a));
+        List<PokemonView> pokemons = new ArrayList<PokemonView>();
+        if (ar.getPokemons() != null)
+            for (Pokemon p : ar.getPokemons()) pokemons.add(new PokemonView(p));
+        return new ArenaSnapshot(ar.getGraph(), routes, agents, pokemons, timeToEnd);
+    }
+
+    private static geo_location copy(geo_location p) {
+        return p instanceof MutablePoint3D ? new Point3D(p.x(), p.y(), p.z()) : p;
+    }
+
+    public directed_weighted_graph getGraph() {return graph;}
+    public RoutingTable getRoutes() {return routes;}
+    public List<AgentView> getAgents() {return agents;}
+    public List<PokemonView> getPokemons() {return pokemons;}
+    public long getTimeToEnd() {return timeToEnd;}
+
+    /**
+     * An immutable copy of an Agent's state.
+     */
+    public static class AgentView {
+        private final int id, src, dest;
+        private final double speed, value;
+        private final geo_location pos;
+        private final edge_data currEdge;
+
+        public AgentView(int id, int src, int dest, double speed, double value, geo_location pos, edge_data currEdge) {
+            this.id = id;
+            this.src = src;
+            this.dest = dest;
+            this.speed = speed;
+            this.value = value;
+            this.pos = pos;
+            this.currEdge = currEdge;
+        }
+
+        AgentView(Agent a) { //Agents move in place (see GameJson), so the position is copied.
+            this(a.getID(), a.getSrcNode(), a.getNextNode(), a.getSpeed(), a.getValue(), copy(a.get_pos()), a.get_curr_edge());
+        }
+
+        public int getID() {return id;}
+        /** The node the agent is on, or the source of the edge it moves along. */
+        public int getSrc() {return src;}
+        /** The destination of the edge the agent moves along, -1 if it is on a node. */
+        public int getDest() {return dest;}
+        public double getSpeed() {return speed;}
+        public double getValue() {return value;}
+        public geo_location getPos() {return pos;}
+        public edge_data getCurrEdge() {return currEdge;}
+        public boolean isMoving() {return currEdge != null;}
+    }
+
+    /**
+     * An immutable copy of a Pokemon's state.
+     */
+    public static class PokemonView {
+        private final double value;
+        private final int type;
+        private final geo_location pos;
+        private final edge_data edge;
+        private final edge_location location;
+
+        public PokemonView(double value, int type, geo_location pos, edge_data edge, edge_location location) {
+            this.value = value;
+            this.type = type;
+            this.pos = pos;
+            this.edge = edge;
+            this.location = location;
+        }
+
+        PokemonView(Pokemon p) {
+            this(p.getValue(), p.getType(), copy(p.getLocation()), p.get_edge(), p.get_edge_location());
+        }
+
+        public double getValue() {return value;}
+        public int getType() {return type;}
+        public geo_location getPos() {return pos;}
+        /** The edge the pokemon is on (the agent must pass it from src to dest to catch it). */
+        public edge_data getEdge() {return edge;}
+        /** The exact position of the pokemon on its edge, null if its edge is not known. */
+        public edge_location getEdgeLocation() {return location;}
+    }
+}
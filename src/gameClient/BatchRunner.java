@@ -0,0 +1,228 @@
+package gameClient;
+
+import Server.Game_Server_Ex2;
+import api.game_service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+
+/**
+ * This class plays many games (levels x seeds) concurrently on a bounded thread pool,
+ * and aggregates grade, number of moves and per-tick latency per level.
+ * Every game is played by its own headless Ex2 instance.
+ *
+ * The bundled game server keeps its "running" flag in a static field and refuses
+ * to start a second game in the same JVM, so by default every game is played in a
+ * forked JVM (one pool thread drives one child process).
+ * A GameFactory that creates independent game_service instances (e.g. a replay service)
+ * can be given to play all games inside this JVM instead.
+ *
+ * Usage: BatchRunner levels [seeds] [threads] [strategy]
+ * levels: "0-23" or "0,3,11"; seeds: comma separated, or "-" for the server default seed;
+ * strategy: a Strategy class name (default GreedyRatioStrategy).
+ */
+public class BatchRunner {
+
+    private static final String RESULT_PREFIX = "RESULT ";
+
+    /**
+     * Creates a fresh game_service for a given level and seed.
+     */
+    public interface GameFactory {
+        game_service create(int level, long seed);
+    }
+
+    private final int threads;
+    private final String strategy; //Strategy class name, a new instance is created per game.
+    private final GameFactory factory; //null --> fork a JVM per game.
+
+    /**
+     * Constructor for a runner that plays each game in a forked JVM.
+     *
+     * @param threads - maximal number of games played at the same time.
+     */
+    public BatchRunner(int threads) {
+        this(threads, GreedyRatioStrategy.class.getName(), null);
+    }
+
+    /**
+     * Constructor for a runner that plays all games inside this JVM.
+     *
+     * @param threads  - maximal number of games played at the same time.
+     * @param strategy - Strategy class name, see Strategy.create().
+     * @param factory  - creates an independent game_service per game, null to fork a JVM per game.
+     */
+    public BatchRunner(int threads, String strategy, GameFactory factory) {
+        Strategy.create(strategy); //Fail fast on a bad name rather than in every game.
+        this.threads = Math.max(1, threads);
+        this.strategy = strategy;
+        this.factory = factory;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && args[0].equals("-single")) { //Child process of a forked run.
+            GameResult r = playInProcess((level, seed) -> Game_Server_Ex2.getServer(level), args[3],
+                    Integer.parseInt(args[1]), Long.parseLong(args[2]));
+            System.out.println(RESULT_PREFIX + r.toCsv());
+            System.exit(0);
+        }
+        if (args.length < 1) {
+            System.err.println("Required arguments: levels [seeds] [threads] [strategy]");
+            return;
+        }
+        int[] levels = parseLevels(args[0]);
+        long[] seeds = args.length > 1 ? parseSeeds(args[1]) : new long[]{-1};
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String strategy = args.length > 3 ? args[3] : GreedyRatioStrategy.class.getName();
+
+        long start = System.currentTimeMillis();
+        List<GameResult> results = new BatchRunner(threads, strategy, null).runAll(levels, seeds);
+        System.out.println(GameResult.CSV_HEADER);
+        for (GameResult r : results) System.out.println(r.toCsv());
+        System.out.println();
+        System.out.print(summarize(results));
+        System.out.println("Played " + results.size() + " games in " + (System.currentTimeMillis() - start) / 1000 + "s");
+        System.exit(0);
+    }
+
+    /**
+     * Plays every (level, seed) pair and waits for all games to end.
+     * Games that failed are reported on System.err and left out of the returned list.
+     *
+     * @param levels - the levels to play.
+     * @param seeds  - the seeds to play each level with (-1 for the server default).
+     * @return the results, ordered by level and then by seed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public List<GameResult> runAll(int[] levels, long[] seeds) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<GameResult>> futures = new ArrayList<Future<GameResult>>();
+        for (int level : levels) {
+            for (long seed : seeds) {
+                futures.add(pool.submit(() -> factory == null ? playForked(strategy, level, seed) : playInProcess(factory, strategy, level, seed)));
+            }
+        }
+        pool.shutdown();
+
+        List<GameResult> results = new ArrayList<GameResult>();
+        for (Future<GameResult> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                System.err.println("Game failed: " + e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Plays one headless game inside this JVM.
+     */
+    private static GameResult playInProcess(GameFactory factory, String strategy, int level, long seed) {
+        game_service game = factory.create(level, seed);
+        if (seed >= 0) resetSeed(game, seed);
+        GameResult r = new Ex2(0, level, false, Strategy.create(strategy)).play(game);
+        r.setSeed(seed);
+        return r;
+    }
+
+    /**
+     * Plays one game in a child JVM (same class path and working directory)
+     * and reads its result line from the child's output.
+     */
+    private static GameResult playForked(String strategy, int level, long seed) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder pb = new ProcessBuilder(java, "-Djava.awt.headless=true",
+                "-cp", System.getProperty("java.class.path"),
+                BatchRunner.class.getName(), "-single", "" + level, "" + seed, strategy);
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+
+        GameResult result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) result = GameResult.fromCsv(line.substring(RESULT_PREFIX.length()));
+            }
+        }
+        int exit = p.waitFor();
+        if (result == null) throw new IOException("Level " + level + " (seed " + seed + ") exited with " + exit + " and no result");
+        return result;
+    }
+
+    /**
+     * The game_service interface has no seed control, the bundled server does (resetSeed(long)).
+     * Services without it are played with their own seed.
+     */
+    private static void resetSeed(game_service game, long seed) {
+        try {
+            Method m = game.getClass().getMethod("resetSeed", long.class);
+            m.setAccessible(true);
+            m.invoke(game, seed);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Game service does not support seeds, playing with its default seed");
+        }
+    }
+
+    /**
+     * Builds a per-level summary table: number of games, grade (mean/min/max),
+     * mean moves and tick latency (mean of p50s, worst p99 and max).
+     *
+     * @param results - results of played games.
+     * @return a printable table.
+     */
+    public static String summarize(List<GameResult> results) {
+        TreeMap<Integer, List<GameResult>> byLevel = new TreeMap<Integer, List<GameResult>>();
+        for (GameResult r : results) byLevel.computeIfAbsent(r.getLevel(), k -> new ArrayList<GameResult>()).add(r);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%5s %5s %9s %7s %7s %9s %10s %10s %10s%n",
+                "level", "games", "grade", "min", "max", "moves", "p50(us)", "p99(us)", "max(us)"));
+        for (List<GameResult> level : byLevel.values()) {
+            double grade = 0, min = Double.MAX_VALUE, max = -Double.MAX_VALUE, moves = 0, p50 = 0, p99 = 0, tickMax = 0;
+            for (GameResult r : level) {
+                grade += r.getGrade();
+                min = Math.min(min, r.getGrade());
+                max = Math.max(max, r.getGrade());
+                moves += r.getMoves();
+                p50 += r.getTickP50();
+                p99 = Math.max(p99, r.getTickP99());
+                tickMax = Math.max(tickMax, r.getTickMax());
+            }
+            int n = level.size();
+            sb.append(String.format(Locale.ROOT, "%5d %5d %9.1f %7.0f %7.0f %9.1f %10.1f %10.1f %10.1f%n",
+                    level.get(0).getLevel(), n, grade / n, min, max, moves / n, p50 / n, p99, tickMax));
+        }
+        return sb.toString();
+    }
+
+    static int[] parseLevels(String s) {
+        if (s.contains("-")) {
+            String[] r = s.split("-");
+            int from = Integer.parseInt(r[0]), to = Integer.parseInt(r[1]);
+            int[] ans = new int[to - from + 1];
+            for (int i = 0; i < ans.length; i++) ans[i] = from + i;
+            return ans;
+        }
+        String[] a = s.split(",");
+        int[] ans = new int[a.length];
+        for (int i = 0; i < a.length; i++) ans[i] = Integer.parseInt(a[i].trim());
+        return ans;
+    }
+
+    static long[] parseSeeds(String s) {
+        if (s.equals("-")) return new long[]{-1};
+        String[] a = s.split(",");
+        long[] ans = new long[a.length];
+        for (int i = 0; i < a.length; i++) ans[i] = Long.parseLong(a[i].trim());
+        return ans;
+    }
+}
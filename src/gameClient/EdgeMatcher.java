@@ -0,0 +1,94 @@
+package gameClient;
+
+import api.EdgeLocation;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.geo_location;
+import api.node_data;
+import gameClient.util.PointBuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class matches pokemons to the edge they are on, as Arena.updateEdge() does, on a game graph
+ * (which does not change during the game), without looking anything up in the graph:
+ * the node positions are kept packed (PointBuffer), and the edges in the order Arena.updateEdge() visits
+ * them (getV(), then getE() of every node), with the indices of their end nodes and their keys.
+ * A match reads only arrays, and allocates only the EdgeLocation of a pokemon that is found.
+ * The edge found is the same as Arena.updateEdge()'s: the last edge the pokemon is on, in that order.
+ */
+public class EdgeMatcher {
+
+    private final PointBuffer points; //Node positions, by node index.
+    private final edge_data[] edges;
+    private final int[] src, dest; //Node index of every edge's ends.
+    private final int[] srcKey, destKey;
+
+    /**
+     * Constructor.
+     * @Runtime: O(|V| + |E|).
+     *
+     * @param g - the graph (must not change while the matcher is used).
+     */
+    public EdgeMatcher(directed_weighted_graph g) {
+        points = new PointBuffer(g.nodeSize());
+        HashMap<Integer, Integer> indexOf = new HashMap<Integer, Integer>();
+        for (node_data n : g.getV()) {
+            geo_location p = n.getLocation();
+            indexOf.put(n.getKey(), points.add(p.x(), p.y(), p.z()));
+        }
+        List<edge_data> edgeList = new ArrayList<edge_data>(g.edgeSize());
+        for (node_data n : g.getV()) edgeList.addAll(g.getE(n.getKey()));
+        edges = edgeList.toArray(new edge_data[0]);
+        int m = edges.length;
+        src = new int[m];
+        dest = new int[m];
+        srcKey = new int[m];
+        destKey = new int[m];
+        for (int i = 0; i < m; i++) {
+            srcKey[i] = edges[i].getSrc();
+            destKey[i] = edges[i].getDest();
+            src[i] = indexOf.get(srcKey[i]);
+            dest[i] = indexOf.get(destKey[i]);
+        }
+    }
+
+    /**
+     * Sets the edge of a pokemon, and its location on the edge (see Pokemon.set_edge()).
+     * A pokemon on no edge keeps its current edge.
+     * @Runtime: O(|E|), no allocation but the EdgeLocation found.
+     *
+     * @param fr - the pokemon.
+     */
+    public void match(Pokemon fr) {
+        GameEvents.UpdateEdge event = new GameEvents.UpdateEdge(); //Seen in flight recordings, see GameEvents.
+        event.begin();
+        geo_location p = fr.getLocation();
+        int type = fr.getType();
+        for (int i = edges.length - 1; i >= 0; i--) { //From the last edge: the first match is the last one.
+            if (type < 0 && destKey[i] > srcKey[i]) continue;
+            if (type > 0 && srcKey[i] > destKey[i]) continue;
+            double dist = points.distance(src[i], dest[i]);
+            double d1 = points.distance(src[i], p) + points.distance(dest[i], p);
+            if (dist > d1 - (Arena.EPS2 * Arena.EPS2)) {
+                int s = src[i], d = dest[i];
+                fr.set_edge(edges[i]);
+                fr.set_edge_location(EdgeLocation.project(edges[i], points.x(s), points.y(s), points.z(s),
+                        points.x(d), points.y(d), points.z(d), p));
+                break;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.value = fr.getValue();
+            event.edges = edges.length;
+            if (fr.get_edge() != null) {
+                event.src = fr.get_edge().getSrc();
+                event.dest = fr.get_edge().getDest();
+            }
+            event.commit();
+        }
+    }
+}
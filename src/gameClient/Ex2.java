@@ -2,9 +2,10 @@ package gameClient;
 
 import Server.Game_Server_Ex2;
 import api.*;
-import com.google.gson.*;
-import gameClient.util.Point3D;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
 import java.util.*;
 
 /**
@@ -20,19 +21,35 @@ import java.util.*;
  */
 public class Ex2 implements Runnable {
 
-    private static List<Pokemon> _pokemons;
-    private static List<Agent> _agents;
-    private static game_service _game;
-    private static Arena _ar;
-    private static MyFrame _win;
-    private static HashMap<Integer, HashMap<Integer, List<node_data>>> allRoutes;
-    private static HashMap<Integer, HashMap<Integer, Double>> allRoutesDist;
-    private static List<node_data> agentCurrentPath;
-    private static dw_graph_algorithms graphAlgo;
-    private static directed_weighted_graph graph;
-    private static Thread client;
-    private static int _level;
-    private static long _id;
+    private static final long MIN_SLEEP = 10, MAX_SLEEP = 100; //Bounds on the time between two _game.move() calls (ms).
+
+    /*Note: all game state is kept per instance, so several games can be played
+     * side by side in one JVM (see BatchRunner). Only stateless helpers are static. */
+    private List<Pokemon> _pokemons;
+    private List<Agent> _agents;
+    private game_service _game;
+    private Arena _ar;
+    private MyFrame _win; //null when the game is played headless.
+    private RoutingTable routes;
+    private TravelTimeModel times; //Arrival times of the agents, updated every tick.
+    private ArenaSnapshot snapshot; //The arena at the last tick, given to the strategy and the window.
+    private GameStatus status; //The server status, taken once after every move().
+    private Strategy strategy;
+    private int[] nextNode, target; //Strategy decisions, reused between ticks.
+    private dw_graph_algorithms graphAlgo;
+    private directed_weighted_graph graph;
+    private int _level;
+    private long _id;
+    private boolean _display;
+    private long[] tickNanos; //Duration of every moveAgents() call, for GameResult.
+    private long[] decisionNanos; //Duration of every strategy.decide() call.
+    private long decisionBytes; //Bytes allocated by all strategy.decide() calls.
+    private int ticks;
+    private GameTelemetry telemetry; //Per phase latency, allocation and call counts of the game loop.
+    private boolean realTime = true; //false --> no sleeping between ticks (for replayed games).
+    private GameJson json; //Decodes the agents and pokemons in place, every tick.
+    private EdgeMatcher edges; //Matches new pokemons to their edges.
+    private double[] lastPokemons = new double[16]; //x,y of the pokemons before the last move, to count catches.
 
     /**
      * Start constructor
@@ -49,6 +66,40 @@ public class Ex2 implements Runnable {
             _id = 0;
             _level = 0;
         }
+        _display = true;
+        strategy = new GreedyRatioStrategy();
+        tickNanos = new long[1024];
+        decisionNanos = new long[1024];
+        telemetry = GameTelemetry.fromProperties();
+    }
+
+    /**
+     * Constructor for a game that is driven programmatically (e.g. by BatchRunner).
+     *
+     * @param id      - login id, ignored if not a valid id.
+     * @param level   - the game level to play.
+     * @param display - whether to open a game window or to play headless.
+     */
+    public Ex2(long id, int level, boolean display) {
+        this(id, level, display, new GreedyRatioStrategy());
+    }
+
+    /**
+     * Constructor for a game played with the given decision logic.
+     *
+     * @param id       - login id, ignored if not a valid id.
+     * @param level    - the game level to play.
+     * @param display  - whether to open a game window or to play headless.
+     * @param strategy - decides where agents start and where they go (a fresh instance per game).
+     */
+    public Ex2(long id, int level, boolean display, Strategy strategy) {
+        _id = id;
+        _level = level;
+        _display = display;
+        this.strategy = strategy;
+        tickNanos = new long[1024];
+        decisionNanos = new long[1024];
+        telemetry = GameTelemetry.fromProperties();
     }
 
     /**
@@ -66,57 +117,140 @@ public class Ex2 implements Runnable {
         /*Manual Run:
           args0 = (your id)
           args1 = (choose level) */
+        Ex2 ex2 = new Ex2(args0, args1);
+        game_service recorded = record(Game_Server_Ex2.getServer(ex2._level));
         try {
-            if (client != null)
-                client.join();
-            client = new Thread(new Ex2(args0, args1));
-            _game = Game_Server_Ex2.getServer(_level);
-            loginScreen(_id);
-            init();
+            ex2._game = ProfiledGameService.of(recorded);
+            ex2.loginScreen(ex2._id);
+            ex2.init();
+            Thread client = new Thread(ex2);
             client.start();
+            client.join();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+        ex2.strategy.close();
+        System.out.println(ex2._game.toString());
+        closeRecording(recorded);
+        System.exit(0);
+    }
+
+    /**
+     * Plays a whole game on the given game service, in the calling thread.
+     * The service must be fresh (agents not yet located, game not yet started).
+     * Its calls are seen in flight recordings (see ProfiledGameService),
+     * and are written to a game log when -Dgame.record=file is given (see RecordingGameService).
+     *
+     * @param game - the game server to play on.
+     * @return the result of the game once it is over.
+     */
+    public GameResult play(game_service game) {
+        game_service recorded = record(game);
+        _game = ProfiledGameService.of(recorded);
+        loginScreen(_id);
+        init();
+        try {
+            run();
+        } finally {
+            strategy.close();
+        }
+        if (_win != null) _win.dispose();
+        GameResult result = getResult();
+        closeRecording(recorded);
+        return result;
+    }
+
+    /**
+     * Returns the game recorded to the file given by -Dgame.record, or as is if there is none (or it cannot be written).
+     */
+    private static game_service record(game_service game) {
+        String file = System.getProperty("game.record");
+        if (file == null || game instanceof RecordingGameService) return game;
+        try {
+            return new RecordingGameService(game, file);
+        } catch (IOException e) {
+            System.err.println("Cannot record game to " + file + ": " + e);
+            return game;
+        }
+    }
+
+    /**
+     * Closes the log of a game wrapped by record() (writes what is left of it), if it was recorded.
+     */
+    private static void closeRecording(game_service game) {
+        if (!(game instanceof RecordingGameService)) return;
+        try {
+            ((RecordingGameService) game).close();
+        } catch (IOException e) {
+            System.err.println("Cannot record game: " + e);
+        }
+    }
+
+    /**
+     * Sets whether the game loop sleeps between ticks, as it must against the game server (the default).
+     * A ReplayGameService answers the same however fast it is played, so replays can run without sleeping.
+     *
+     * @param realTime - false to play without sleeping.
+     */
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    /**
+     * Returns the result of the game played by this instance,
+     * built from the final server status and the recorded tick durations.
+     *
+     * @return this game's result.
+     */
+    public GameResult getResult() {
+        return new GameResult(_level, strategy.getClass().getSimpleName(), GameStatus.of(_game),
+                Arrays.copyOf(tickNanos, ticks), Arrays.copyOf(decisionNanos, ticks), decisionBytes);
+    }
+
+    /**
+     * Returns the telemetry of the game played by this instance (see GameTelemetry).
+     */
+    public GameTelemetry getTelemetry() {
+        return telemetry;
     }
 
     /**
      * This method instantiates the game.
      * It is done by initializing the Arena object '_ar', the game graph,
-     * and pokemons and agents lists, and determining the starting node
-     * for each agent to start the game on. This is calculated by
-     * summing all pokemons values on all edges on the graph, meaning they will
-     * start the game catching the pokemons that currently worth most.
+     * and pokemons and agents lists, and letting the strategy determine the starting node
+     * for each agent to start the game on.
      */
-    private static void init() {
+    private void init() {
 
         _ar = new Arena(); //Init a new Arena.
         graphAlgo = new DWGraph_Algo(loadGraph(_game.getGraph())); //Init graph algo class with the game graph.
         graph = graphAlgo.getGraph(); //Get a reference to the game graph.
+        json = new GameJson(graph);
+        edges = new EdgeMatcher(graph);
 
-        _pokemons = Arena.json2Pokemons(_game.getPokemons()); //Create a Pokemon list from a Json.
+        _pokemons = json.readPokemons(_game.getPokemons()); //Create a Pokemon list from a Json.
 
 
         for (int i = 0; i < _pokemons.size(); i++) //Iterate over all pokemons
-            Arena.updateEdge(_pokemons.get(i), graph); //And match them with the right edge on the graph
+            edges.match(_pokemons.get(i)); //And match them with the right edge on the graph
 
         _ar.setGraph(graph);
         _ar.setPokemons(_pokemons); //Set the arena with the generated info.
 
+        //Calculate all shortest paths on the graph from one node to another,
+        //and store the total distance of each path (or map them, if this graph was played before).
+        routes = RoutingTable.of(graphAlgo);
+        times = new TravelTimeModel(routes);
+
         initiallySetGameAgents(); // Decide the starting nodes for all game agents.
         _ar.setAgents(_agents);
 
-        _win = new MyFrame("test Ex2"); //Initialize the game window
-        _win.setSize(1000, 700);
-        _win.update(_ar, _game);
-        _win.show();
-
-        //Calculate all shortest paths on the graph from one node to another,
-        //and store that data in HashMaps 'allRoutes' and 'allRoutesDist'
-        //to save the total distance of each path.
-        allRoutes = new HashMap<Integer, HashMap<Integer, List<node_data>>>();
-        calcAllPaths(graphAlgo);
-        allRoutesDist = new HashMap<Integer, HashMap<Integer, Double>>();
-        calcAllPathsDist(graphAlgo);
+        if (_display) {
+            _win = new MyFrame("test Ex2"); //Initialize the game window
+            _win.setSize(1000, 700);
+            _win.update(_ar, _game);
+            _win.show();
+        }
     }
 
     /**
@@ -124,421 +258,218 @@ public class Ex2 implements Runnable {
      * Start the game using the game server obj '_game'.startGame().
      * While game is not out of time, just loop agent movement along
      * the graph.
+     * After every tick the window (if any) is handed a RenderFrame of the arena,
+     * it repaints on the Swing thread and never holds the game loop.
+     * Every phase of the loop is measured by the GameTelemetry, whose summary is printed
+     * at the end of the game when asked for.
      */
     @Override
-    public synchronized void run() {
+    public void run() {
         _game.startGame();
-        _win.setTitle("Time left: " + _game.timeToEnd() + " " + _game.toString());
 
         while (_game.isRunning()) {
 
             try {
+                long bytes = allocatedBytes();
+                GameEvents.Tick event = new GameEvents.Tick();
+                event.begin();
+                long start = System.nanoTime();
                 moveAgents();
-                _win.repaint();
-                client.sleep(sleepWell());
+                long end = System.nanoTime();
+                if (event.shouldCommit()) {
+                    event.tick = ticks;
+                    event.agents = _agents.size();
+                    event.pokemons = _pokemons.size();
+                    event.commit();
+                }
+                recordTick(end - start);
+                telemetry.record(GameTelemetry.Phase.TICK, end - start);
+                if (_win != null) _win.publish(new RenderFrame(snapshot, status, _ar.get_info()));
+                start = System.nanoTime();
+                long sleep = sleepWell();
+                end = System.nanoTime();
+                telemetry.record(GameTelemetry.Phase.SLEEP_WELL, end - start);
+                bytes = allocatedBytes() - bytes;
+                if (realTime) Thread.sleep(sleep);
+                telemetry.record(GameTelemetry.Phase.SLEEP, System.nanoTime() - end);
+                telemetry.endTick(bytes, status.getTimeToEnd());
             } catch (InterruptedException e) {
                 e.printStackTrace();
+                Thread.currentThread().interrupt();
+                _game.stopGame();
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
-        String res = _game.toString();
-
-        System.out.println(res);
-        System.exit(0);
-    }
-
-    /**
-     * Moves each of the agents along the edge,
-     * in case the agent is on a node, the next destination (next edge) is chosen (randomly).
-     * How we do it?
-     * well we find that the best way to choose dest to each agent is by calculate the ratio between
-     * the path weight that cost to the fruit and the value that we collect all of the path.
-     * the lower ratio the better choose for the agent.
-     * we decided to mark all the fruit that the agent will get all they way to his path.
-     * and in the other side mark the agent fruit dest.
-     * chosen function--> getBestPokemon() , getMinimalNode.
-     * mark function-->  trackPokemonsOnList
-     */
-    private static synchronized void moveAgents() throws InterruptedException {
-
-        moveAndUpdate();
-        boolean isStuck = false;
-        agentCurrentPath = new LinkedList<>();
-        Agent ag;
-        int dest;
-
-        for (int i = 0; i < _ar.getAgents().size(); i++) {
-            ag = _ar.getAgents().get(i);
-            if (getBestPokemon(ag)) {// Match given agent with the best pokemon on the ideal edge.
-                agentCurrentPath = getShortestPathTo(ag, ag.get_curr_fruit().get_edge().getSrc());
-                trackPokemonsOnList(agentCurrentPath); //Set all pokemons on path as tracked.
-            } else //agent has nowhere to go and needs to go the lowest amount of moves.
-                isStuck = true;
-
-            int id = ag.getID();
-            if (!isStuck) {
-                if (agentCurrentPath.size() >= 1) //There is a valid route for the agent.
-                    dest = agentCurrentPath.get(1).getKey(); // Next dest will always be at index 1 on the list.
-                else {
-                    dest = ag.get_curr_fruit().get_edge().getDest(); // Catch the pokemon
-                }
-            } else { //If "stuck" -- has no pokemon to hunt.
-                dest = getMinimalNode(ag.getCurrNode());
-            }
-            _game.chooseNextEdge(id, dest);
+        try {
+            telemetry.close();
+        } catch (IOException e) {
+            System.err.println("Telemetry CSV: " + e);
         }
+        if (GameTelemetry.isSummaryEnabled()) System.out.print(telemetry.summary());
     }
 
     /**
-     * This method is called inorder to call
-     * _game.move() method which moves all agents along the
-     * graph and runs more game logic.
-     * After this method is called an update is needed so all
-     * other game info objects needs to update as well.
-     */
-    public static void moveAndUpdate() {
-        String lg = _game.move(); // Need to use at least 10 times in 1 sec according to boaz instruction
-        _win.setTitle("Time left: " + _game.timeToEnd() / 1000 + " " + _game.toString());
-        _agents = Arena.getAgents(lg, graph); //receive the last update for agents locations after game.move().
-        _ar.setAgents(_agents); //Update agents list.
-        String fs = _game.getPokemons(); //Receive new pokemons json as String.
-        _pokemons = Arena.json2Pokemons(fs); //update pokemons list.
-
-        for (Pokemon poke : _pokemons)
-            Arena.updateEdge(poke, graph); //Update graph edges to present all existing pokes.
-
-        _ar.setPokemons(_pokemons);//Update the new pokemons list in the arena.
-    }
-
-    /**
-     * This method is used to parse a json String into
-     * a graph object 'DW_GraphDS'.
+     * Stores the duration of one game tick, growing the buffer when needed.
      *
-     * @param json - a json representing a directed, weighted graph.
-     * @return a directed_weighted_graph graph.
+     * @param nanos - the tick duration in nano seconds.
      */
-    public static directed_weighted_graph loadGraph(String json) {
-        directed_weighted_graph newGraph = new DWGraph_DS();
-        JsonObject graph = new JsonParser().parse(json).getAsJsonObject();
-        JsonArray edges = graph.getAsJsonArray("Edges"); //Get The "Edges" member from the Json Value.
-        JsonArray nodes = graph.getAsJsonArray("Nodes"); //Get The "Edges" member from the Json Value.
-
-        for (JsonElement node : nodes) {
-
-            int key = ((JsonObject) node).get("id").getAsInt();
-            double x, y, z;
-            String pos = ((JsonObject) node).get("pos").getAsString();
-            String[] posArr = pos.split(",");
-            x = Double.parseDouble(posArr[0]);
-            y = Double.parseDouble(posArr[1]);
-            z = Double.parseDouble(posArr[2]);
-            geo_location location = new Point3D(x, y, z);
-            node_data n = new NodeData(key); //Insert into node_data n values from Json.
-            n.setLocation(location); //Insert into node_data n location values from Json that created.
-            newGraph.addNode(n);
-        }
-
-        for (JsonElement edge : edges) {
-            int src = ((JsonObject) edge).get("src").getAsInt(); //Receive src
-            double weight = ((JsonObject) edge).get("w").getAsDouble(); //Receive weight
-            int dest = ((JsonObject) edge).get("dest").getAsInt(); //Receive dest
-
-            edge_data e = new EdgeData(src, dest, weight); //Build a new edge with given args
-            newGraph.connect(e.getSrc(), e.getDest(), e.getWeight()); //Connect between nodes on the new graph
+    private void recordTick(long nanos) {
+        tickNanos[ticks++] = nanos;
+        if (ticks == tickNanos.length) {
+            tickNanos = Arrays.copyOf(tickNanos, ticks * 2);
+            decisionNanos = Arrays.copyOf(decisionNanos, ticks * 2);
         }
-        return newGraph;
     }
 
     /**
-     * This method returns the list representing the path of nodes to travel
-     * from an agents current node to a destination 'pokeDest'.
-     *
-     * @param agent
-     * @param pokeDest
-     * @return a List<node_data>
-     */
-    public static List<node_data> getShortestPathTo(Agent agent, int pokeDest) {
-        return allRoutes.get(agent.getSrcNode()).get(pokeDest);
-    }
-
-    /**
-     * This method sets the game agents for the first time.
-     * Fill an array of size [agents.capacity()] with the best pokemons to start from
-     * and set each agent with a pokemon to start catching.
+     * Moves each of the agents along the edge,
+     * in case the agent is on a node, the next destination (next edge) is chosen by the strategy.
+     * The strategy gets an immutable snapshot of the arena, and its decision time
+     * and allocations are recorded for GameResult.
      */
-    public static void initiallySetGameAgents() {
+    private synchronized void moveAgents() {
 
-        //Receive info from the game server for agent capacity.
-        JsonElement gameElement = JsonParser.parseString(_game.toString());
-        JsonObject gameServerObjects = gameElement.getAsJsonObject();
-        JsonElement gameServerElements = gameServerObjects.get("GameServer");
-        JsonObject gameServerObject = gameServerElements.getAsJsonObject();
-        int agentCapacity = gameServerObject.get("agents").getAsInt();
-        int[] occupiedNodes = new int[agentCapacity];
-
-        Pokemon[] pokemon = new Pokemon[agentCapacity]; //
-        int initialNode;
-        for (int i = 0; i < agentCapacity; i++) {
-            pokemon[i] = getInitialMaxRatio();
-            if (pokemon[i] == null) //Means all pokemons are tracked and the next agent will "wonder".
-                initialNode = bestInitialNode(occupiedNodes); //Find the best arbitrary node to send the agent to.
-            else
-                initialNode = pokemon[i].get_edge().getSrc();
-
-            occupiedNodes[i] = initialNode;
-            _game.addAgent(initialNode);
-            pokemon[i].setIsTracked(true);
-        }
-        _agents = Arena.getAgents(_game.getAgents(), graphAlgo.getGraph());
-        for (int i = 0; i < agentCapacity; i++) {
-            _agents.get(i).set_curr_fruit(pokemon[i]);
+        moveAndUpdate();
+        snapshot = ArenaSnapshot.of(_ar, routes, status.getTimeToEnd());
+        times.update(snapshot);
+        int size = _agents.size();
+        if (nextNode == null || nextNode.length < size) {
+            nextNode = new int[size];
+            target = new int[size];
         }
-    }
 
-    /**
-     * This method finds the best initial node to set
-     * as a starting point for some agent if all the pokemon are taken.
-     * How we do it?
-     * well we move we are moving all nodes and if we find a node that doesn't had agent on it
-     * we return this node key, if no free node exists, we return the first unused node.
-     *
-     * @param nodesNotToUse - an array of 'occupied' nodes, that other agent start from.
-     * @return the best node to start for an agent.
-     */
-    private static int bestInitialNode(int[] nodesNotToUse) {
-        node_data occupied;
-        boolean isAvailable = false;
-        int ans = 0;
-        for (node_data node : graph.getV()) {
-
-            for (int i = 0; i < nodesNotToUse.length; i++) {
-                occupied = graph.getNode(nodesNotToUse[i]);
-                if (!node.equals(occupied)) {
-                    isAvailable = true;
-                    ans = node.getKey();
-                }
-            }
-            if (isAvailable)
-                return ans;
+        GameEvents.Decide event = new GameEvents.Decide();
+        event.begin();
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        strategy.decide(snapshot, nextNode, target);
+        decisionNanos[ticks] = System.nanoTime() - start; //Stored at the index recordTick() is about to fill.
+        decisionBytes += allocatedBytes() - bytes;
+        telemetry.record(GameTelemetry.Phase.DECIDE, decisionNanos[ticks]);
+        if (event.shouldCommit()) {
+            event.strategy = strategy.getClass().getSimpleName();
+            event.agents = size;
+            event.pokemons = snapshot.getPokemons().size();
+            for (int i = 0; i < size; i++) if (nextNode[i] >= 0) event.sent++;
+            event.commit();
         }
 
-        /*
-        If reached this return statement, all nodes on the graph are currently occupied,
-        and cannot find any free node, so return just any node.
-         */
-        return graph.getNode(nodesNotToUse[0]).getKey();
-    }
-
-    /**
-     * This method calc the lowest edge by weight and returns its destination.
-     * node's key.
-     *
-     * @param from - the node to look from.
-     * @return the integer of the lowest destination node.
-     */
-    private static int getMinimalNode(node_data from) {
-        double min = Double.MAX_VALUE;
-        int ans = 0;
-        for (edge_data e : graph.getE(from.getKey())) {
-            if (e.getWeight() < min) {
-                ans = e.getSrc();
-                min = e.getWeight();
+        for (int i = 0; i < size; i++) {
+            Agent ag = _agents.get(i);
+            ag.set_curr_fruit(target[i] >= 0 ? _pokemons.get(target[i]) : null);
+            if (target[i] >= 0) _pokemons.get(target[i]).setIsTracked(true);
+            if (nextNode[i] >= 0) {
+                _game.chooseNextEdge(ag.getID(), nextNode[i]);
+                telemetry.nextEdge();
             }
         }
-        return ans;
     }
 
     /**
-     * This method returns the pokemon with the max value that is not tracked by another
-     * agent.
-     * Calculation is the sum of values for all pokemons on a certain edge,
-     * divided by the weight of the edge.
-     *
-     * @return the pokemon with the lowest ratio (Best decision).
+     * Returns the number of bytes allocated so far by the current thread, 0 if not supported by the JVM.
      */
-    public static Pokemon getInitialMaxRatio() { // Created for init agents
-        Pokemon bestPokemon = null;
-        double minRatio = Double.MAX_VALUE, weight, value, ratio;
-
-        for (Pokemon pokemon : _pokemons) {
-            if (!pokemon.getIsTracked()) {
-
-                weight = pokemon.get_edge().getWeight();
-                value = sumEdgeValue(pokemon.get_edge());
-                ratio = weight / value;
-
-                if (minRatio > ratio) {
-                    minRatio = ratio;
-                    bestPokemon = pokemon;
-                }
-            }
-        }
-        if (bestPokemon == null) return null;
-        trackPokemonsOnEdge(bestPokemon.get_edge()); //Marks all pokemons on the edge as tracked.
-        return bestPokemon;
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
     }
 
     /**
-     * This method calculates and matches a given agent 'ag'
-     * with the best pokemon available to catch.
-     * This calculation is different from the initial matching calculation
-     * by taking in account the path weight to travel.
-     * If a match is made, mark the pokemons as 'Tracked' and agent "curr_fruit".
-     *
-     * @param ag - the agent to choose a pokemon for.
-     * @return true or false if the given agent has been matched with a pokemon or not.
-     */
-    public synchronized static boolean getBestPokemon(Agent ag) {
-        double dist, minRatio = Double.MAX_VALUE; //minRatio gives the best Pokemon.
-        double value, minpath;
-        if (ag.get_curr_fruit() != null) return false; //TODO Tried something throws NULLPointer
-        Pokemon pokemon = null;
-        List<node_data> path; //Execute a shortestPath Algo from src to dest.
-
-        for (Pokemon poke : _pokemons) {
-            if (poke.getIsTracked()) continue;
-
-            path = allRoutes.get(ag.getSrcNode()).get(poke.get_edge().getSrc());//Execute a shortestPath Algo from src to dest.
-            if (path != null) {
-                minpath = allRoutesDist.get(ag.getSrcNode()).get(poke.get_edge().getDest());// dist between curr ag to curr poke
-            } else minpath = poke.get_edge().getWeight();
-
-            value = sumEdgeValue(poke.get_edge());
-            dist = minpath / value; // Pokemon value-dist ratio.
-
-            if (minRatio > dist) {
-                pokemon = poke;
-                minRatio = dist;
-            }
-
-        }
-        ag.set_curr_fruit(pokemon);
-        if (ag.get_curr_fruit() == null) return false;
-        pokemon.setIsTracked(true);
-
-        return true;
-    }
-
-    /**
-     * Calculates the distance of the path.
-     *
-     * @param path
-     * @return
+     * This method is called inorder to call
+     * _game.move() method which moves all agents along the
+     * graph and runs more game logic.
+     * After this method is called an update is needed so all
+     * other game info objects needs to update as well.
      */
-    public static double pathDist(List<node_data> path) {
-        double weight = 0;
-        for (int i = 0; i < path.size() - 1; i++) {
-            node_data node1 = path.get(i);
-            node_data node2 = path.get(i + 1);
-            weight += graph.getEdge(node1.getKey(), node2.getKey()).getWeight();
+    public void moveAndUpdate() {
+        long start = System.nanoTime();
+        String lg = _game.move(); // Need to use at least 10 times in 1 sec according to boaz instruction
+        long end = System.nanoTime();
+        telemetry.record(GameTelemetry.Phase.MOVE, end - start);
+        status = GameStatus.of(_game); //Parsed once here, read by the loop and the window.
+        _agents = json.readAgents(lg); //receive the last update for agents locations after game.move().
+        _ar.setAgents(_agents); //Update agents list.
+        String fs = _game.getPokemons(); //Receive new pokemons json as String.
+        int before = savePokemons();
+        _pokemons = json.readPokemons(fs); //update pokemons list (in place).
+        start = System.nanoTime();
+        telemetry.record(GameTelemetry.Phase.PARSE, start - end);
+        telemetry.move(caught(before));
 
-        }
-        return weight;
-    }
+        for (Pokemon poke : _pokemons)
+            if (poke.get_edge() == null) edges.match(poke); //Pokemons that did not move keep their edge.
+        telemetry.record(GameTelemetry.Phase.EDGES, System.nanoTime() - start);
 
-    /**
-     * This method sums all pokemon values that are associated with the given edge.
-     *
-     * @param edge
-     * @return
-     */
-    private static double sumEdgeValue(edge_data edge) {
-        double sum = 0;
-        for (Pokemon poke : _pokemons) {
-            if (poke.get_edge().equals(edge)) sum += poke.getValue();
-        }
-        return sum;
+        _ar.setPokemons(_pokemons);//Update the new pokemons list in the arena.
     }
 
     /**
-     * This method marks all pokemons on a given path as tracked pokemons.
+     * Keeps the positions of the pokemons (which are updated in place) before they are updated.
      *
-     * @param path
+     * @return the number of pokemons kept.
      */
-    public static void trackPokemonsOnList(List<node_data> path) {
-
-        edge_data edge;
-
-        for (int i = 0; i < path.size() - 1; i++) {
-            node_data node1 = path.get(i);
-            node_data node2 = path.get(i + 1);
-            edge = graph.getEdge(node1.getKey(), node2.getKey());
-            trackPokemonsOnEdge(edge);
+    private int savePokemons() {
+        int size = _pokemons.size();
+        if (lastPokemons.length < 2 * size) lastPokemons = new double[4 * size];
+        for (int i = 0; i < size; i++) {
+            geo_location p = _pokemons.get(i).getLocation();
+            lastPokemons[2 * i] = p.x();
+            lastPokemons[2 * i + 1] = p.y();
         }
+        return size;
     }
 
     /**
-     * This method marks all Pokemons on the given edge 'e' as tracked.
+     * Counts the pokemons that were caught between two updates:
+     * the ones no longer found at their position (a caught pokemon is replaced by a new one elsewhere).
      *
-     * @param e
+     * @param before - the number of pokemons kept by savePokemons() before the move.
+     * @return the number of pokemons caught.
      */
-    public static void trackPokemonsOnEdge(edge_data e) {
-        for (Pokemon poke : _pokemons) {
-            if (!poke.getIsTracked()) {
-                if (e.equals(poke.get_edge())) {
-                    poke.setIsTracked(true);
-                }
+    private int caught(int before) {
+        int caught = 0;
+        for (int i = 0; i < before; i++) {
+            boolean found = false;
+            for (int j = 0; j < _pokemons.size() && !found; j++) {
+                geo_location q = _pokemons.get(j).getLocation();
+                found = lastPokemons[2 * i] == q.x() && lastPokemons[2 * i + 1] == q.y();
             }
+            if (!found) caught++;
         }
+        return caught;
     }
 
     /**
-     * This method computes and stores all shortest paths from
-     * all nodes on the graph to all others.
-     * Stores the data in a HashMap<K,V> allRoutes.
+     * This method is used to parse a json String into
+     * a graph object 'DW_GraphDS'.
      *
-     * @param graphAlgo
+     * @param json - a json representing a directed, weighted graph.
+     * @return a directed_weighted_graph graph.
      */
-    public static void calcAllPaths(dw_graph_algorithms graphAlgo) { // need to change a little
-        directed_weighted_graph graph = graphAlgo.getGraph();
-        //added empty map to add values after
-        Iterator<node_data> itr = graph.getV().iterator();
-
-        while (itr.hasNext()) {
-            HashMap<Integer, List<node_data>> pathsMap = new HashMap<Integer, List<node_data>>(); //Init new HashMap for a node
-            allRoutes.put(itr.next().getKey(), pathsMap); //Put (node, pathsMap).
-        }
-
-        //Iterate over all graph nodes
-        for (node_data node : graph.getV()) {
-            int src = node.getKey();
-
-            for (node_data destNode : graph.getV()) {
-                int dest = destNode.getKey();
-                List<node_data> list = graphAlgo.shortestPath(src, dest);
-                allRoutes.get(src).put(dest, list);
-            }
+    public static directed_weighted_graph loadGraph(String json) {
+        try {
+            return GraphJson.read(new StringReader(json)); //Same streaming reader as DWGraph_Algo.load().
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Bad graph json: " + e.getMessage(), e);
         }
     }
 
     /**
-     * This method computes and stores all shortest paths distance from
-     * all nodes on the graph to all others.
-     * Stores the data in a HashMap<K,V> allRoutesDist.
-     *
-     * @param graphAlgo
+     * This method sets the game agents for the first time.
+     * The strategy chooses a starting node for each of the [agents.capacity()] agents.
      */
-    public static void calcAllPathsDist(dw_graph_algorithms graphAlgo) { // need to change a little
-        directed_weighted_graph graph = graphAlgo.getGraph();
-        //added empty map to add values after
-        Iterator<node_data> itr = graph.getV().iterator();
-
-        while (itr.hasNext()) {
-            HashMap<Integer, Double> innerHashMap = new HashMap<Integer, Double>(); //Init new HashMap for a node
-            allRoutesDist.put(itr.next().getKey(), innerHashMap); //Put (node, pathsMap).
-        }
+    public void initiallySetGameAgents() {
 
-        //Iterate over all graph nodes
-        for (node_data node : graph.getV()) {
-            int src = node.getKey();
+        //Receive info from the game server for agent capacity.
+        status = GameStatus.of(_game);
+        int agentCapacity = status.getAgents();
 
-            for (node_data destNode : graph.getV()) {
-                int dest = destNode.getKey();
-                double weight = pathDist(allRoutes.get(src).get(dest));
-                allRoutesDist.get(src).put(dest, weight);
-            }
-        }
+        int[] initialNodes = strategy.initialNodes(ArenaSnapshot.of(_ar, routes, status.getTimeToEnd()), agentCapacity);
+        for (int i = 0; i < agentCapacity; i++)
+            _game.addAgent(initialNodes[i]);
+        _agents = json.readAgents(_game.getAgents());
     }
 
     /**
@@ -546,7 +477,7 @@ public class Ex2 implements Runnable {
      *
      * @param id
      */
-    private static void loginScreen(long id) {
+    private void loginScreen(long id) {
         if (id < 111111111) return;
         if (_game.login(id))
             System.out.println("Logged in with id: " + id);
@@ -554,34 +485,37 @@ public class Ex2 implements Runnable {
 
     /**
      * This method will return the number of millis
-     * to make the game thread sleep intelligently.
-     * If an agent is "close enough" to a pokemon, the
-     * thread will sleep less --> about x ms 0<x<1.
-     * Else the thread can sleep a bit more during the game.
+     * to make the game thread sleep intelligently:
+     * until the next time an agent reaches a node (and needs a new edge),
+     * or gets to the exact position of its pokemon (edge_location) on its edge - whichever comes first.
+     * Times come from the TravelTimeModel, so they hold for agents of any speed.
      *
      * @return - The ideal time to sleep.
      */
-    private static long sleepWell() {
-        long sleep = 70; //1
-        double distFromPoke = 0;
-        int agentCurrNode = 0, pokeSrcNode = 0;
-        Pokemon pokemon;
-
-        for (Agent agent : _agents) {
-            pokemon = agent.get_curr_fruit();
-            if (pokemon == null) continue;
-            pokeSrcNode = pokemon.get_edge().getSrc();
-            agentCurrNode = agent.getSrcNode();
-            distFromPoke = agent.get_pos().distance(agent.get_curr_fruit().getLocation());
-            if (agentCurrNode == pokeSrcNode) {
-                if (distFromPoke < 0.1) // If close enough.
-                    return calcSDT(agent);
-            } else if (sleep <= 90) {
-                sleep += 40;
+    private long sleepWell() {
+        long sleep = MAX_SLEEP;
+        directed_weighted_graph g = _ar.getGraph();
+
+        for (int i = 0; i < _agents.size(); i++) {
+            Agent agent = _agents.get(i);
+            double seconds;
+            edge_data edge;
+            if (agent.isMoving()) {
+                edge = agent.get_curr_edge();
+                seconds = times.delay(i); //Remaining part of its current edge.
+            } else if (nextNode[i] >= 0 && (edge = g.getEdge(agent.getSrcNode(), nextNode[i])) != null) {
+                seconds = times.time(i, edge.getWeight()); //Just sent along an edge.
+            } else continue;
+            Pokemon pokemon = agent.get_curr_fruit();
+            if (pokemon != null && pokemon.get_edge_location() != null && GreedyRatioStrategy.sameEdge(pokemon.get_edge(), edge)) {
+                //The pokemon is on the way, before the node: wake up for the move() that catches it.
+                double catchTime = agent.isMoving() ? times.timeTo(i, pokemon.get_edge_location())
+                        : times.time(i, pokemon.get_edge_location().getRatio() * edge.getWeight());
+                seconds = Math.min(seconds, catchTime);
             }
+            sleep = Math.min(sleep, (long) (1000 * seconds) + 1);
         }
-        return sleep;
-
+        return Math.max(sleep, MIN_SLEEP);
     }
 
     /**
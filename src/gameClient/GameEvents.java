@@ -0,0 +1,120 @@
+package gameClient;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the game client, so a recording shows where each tick's time goes
+ * (e.g. java -XX:StartFlightRecording=filename=game.jfr ..., then jfr print --events 'ex2.*' game.jfr):
+ * Tick         - one Ex2.moveAgents() call, containing the events below.
+ * ServerCall   - every game_service call (see ProfiledGameService).
+ * UpdateEdge   - matching one pokemon to its edge (EdgeMatcher.match(), Arena.updateEdge()).
+ * Decide       - the strategy's planning of one tick (Strategy.decide()).
+ * RoutingTable - building (or mapping from the cache) the all-pairs tables.
+ * The graph's own api.ShortestPathEvent is in the same "Ex2" category.
+ *
+ * Events are created, begun and committed around the measured code. When no recording is on,
+ * begin() and commit() do nothing, fields are only filled if shouldCommit(), and the JIT removes the
+ * (never escaping) event objects, so instrumented code runs as fast as without events.
+ */
+public final class GameEvents {
+
+    private GameEvents() {
+    }
+
+    @Name("ex2.Tick")
+    @Label("Game Tick")
+    @Category({"Ex2", "Game"})
+    @Description("One iteration of the game loop: move, parse, match pokemons and decide")
+    static final class Tick extends Event {
+        @Label("Tick")
+        int tick;
+
+        @Label("Agents")
+        int agents;
+
+        @Label("Pokemons")
+        int pokemons;
+    }
+
+    @Name("ex2.ServerCall")
+    @Label("Server Call")
+    @Category({"Ex2", "Server"})
+    @Description("A call to the game server (game_service)")
+    static final class ServerCall extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Agent Id")
+        @Description("The agent of chooseNextEdge(), -1 for other calls")
+        int agentId = -1;
+
+        @Label("Node")
+        @Description("The node of chooseNextEdge() or addAgent(), -1 for other calls")
+        int node = -1;
+
+        @Label("Response Length")
+        @Description("Length of the returned json, -1 for calls that return no json")
+        int responseLength = -1;
+    }
+
+    @Name("ex2.UpdateEdge")
+    @Label("Update Edge")
+    @Category({"Ex2", "Game"})
+    @Description("Matching a pokemon to the edge it is on")
+    static final class UpdateEdge extends Event {
+        @Label("Type")
+        int type;
+
+        @Label("Value")
+        double value;
+
+        @Label("Graph Edges")
+        int edges;
+
+        @Label("Edge Source")
+        @Description("-1 if no edge was found")
+        int src = -1;
+
+        @Label("Edge Destination")
+        int dest = -1;
+    }
+
+    @Name("ex2.Decide")
+    @Label("Decide")
+    @Category({"Ex2", "Game"})
+    @Description("The strategy's decision for all agents in one tick")
+    static final class Decide extends Event {
+        @Label("Strategy")
+        String strategy;
+
+        @Label("Agents")
+        int agents;
+
+        @Label("Pokemons")
+        int pokemons;
+
+        @Label("Agents Sent")
+        @Description("Agents given a next node (chooseNextEdge() calls)")
+        int sent;
+    }
+
+    @Name("ex2.RoutingTable")
+    @Label("Routing Table")
+    @Category({"Ex2", "Graph"})
+    @Description("Building the all-pairs shortest path tables of a game graph")
+    static final class Routing extends Event {
+        @Label("Graph Nodes")
+        int nodes;
+
+        @Label("Graph Edges")
+        int edges;
+
+        @Label("Cached")
+        @Description("True if the tables were mapped from the routing cache instead of computed")
+        boolean cached;
+    }
+}
@@ -0,0 +1,287 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import gameClient.util.Coordinates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class decodes the game server's agents and pokemons json, on every tick, without allocating:
+ * {"Agents":[{"Agent":{"id":0,"value":0.0,"src":9,"dest":-1,"speed":1.0,"pos":"35.19,32.10,0.0"}},...]}
+ * {"Pokemons":[{"Pokemon":{"value":5.0,"type":-1,"pos":"35.20,32.10,0.0"}},...]}
+ * The response is scanned once, in place: names are compared without being extracted, numbers and the
+ * "pos" coordinates are parsed straight from the text (Coordinates.parseDouble()), and unknown names are skipped.
+ * Decoded values go into Agent and Pokemon objects owned by the decoder, which are updated in place
+ * from one tick to the next (the i-th agent/pokemon of the json updates the i-th object; objects are only
+ * created when the lists grow), so the returned lists are the same lists on every call.
+ * This replaces org.json (Arena.getAgents(), Arena.json2Pokemons()), which built a tree, turned every agent
+ * back into a string, parsed it again in Agent.update(), and split every position.
+ */
+public class GameJson {
+
+    private final directed_weighted_graph graph;
+    private final ArrayList<Agent> agents = new ArrayList<Agent>();
+    private final ArrayList<Pokemon> pokemons = new ArrayList<Pokemon>();
+
+    private CharSequence s; //The json being decoded.
+    private int i; //Position in s.
+    private int id, src, dest, type;
+    private double value, speed, x, y, z;
+
+    /**
+     * Constructor.
+     *
+     * @param graph - the game graph (agents are located on it).
+     */
+    public GameJson(directed_weighted_graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Decodes the agents json (game_service.move() or getAgents()).
+     * @Runtime: O(length of the json), no allocation once the list holds all agents.
+     *
+     * @param json - the json.
+     * @return the agents, in the json's order (the same list every call, updated in place).
+     * @throws IllegalArgumentException if the json is not an agents json.
+     */
+    public List<Agent> readAgents(CharSequence json) {
+        int count = 0;
+        begin(json);
+        expect('{');
+        if (!nextMember()) return truncate(agents, 0);
+        do {
+            if (!name("Agents")) {
+                skipValue();
+                continue;
+            }
+            expect('[');
+            if (nextElement()) {
+                do {
+                    readWrapped("Agent", true);
+                    if (count == agents.size()) agents.add(new Agent(graph, src));
+                    agents.get(count++).update(id, value, src, dest, speed, x, y, z);
+                } while (nextElement());
+            }
+        } while (nextMember());
+        return truncate(agents, count);
+    }
+
+    /**
+     * Decodes the pokemons json (game_service.getPokemons()).
+     * Pokemons that did not change since the last call keep their edge (see Pokemon.update()).
+     * @Runtime: O(length of the json), no allocation once the list holds all pokemons.
+     *
+     * @param json - the json.
+     * @return the pokemons, in the json's order (the same list every call, updated in place).
+     * @throws IllegalArgumentException if the json is not a pokemons json.
+     */
+    public List<Pokemon> readPokemons(CharSequence json) {
+        int count = 0;
+        begin(json);
+        expect('{');
+        if (!nextMember()) return truncate(pokemons, 0);
+        do {
+            if (!name("Pokemons")) {
+                skipValue();
+                continue;
+            }
+            expect('[');
+            if (nextElement()) {
+                do {
+                    readWrapped("Pokemon", false);
+                    if (count == pokemons.size()) pokemons.add(new Pokemon(null, 0, 0, 0, null));
+                    pokemons.get(count++).update(type, value, x, y, z);
+                } while (nextElement());
+            }
+        } while (nextMember());
+        return truncate(pokemons, count);
+    }
+
+    private static <T> List<T> truncate(ArrayList<T> list, int size) {
+        while (list.size() > size) list.remove(list.size() - 1);
+        return list;
+    }
+
+    private void begin(CharSequence json) {
+        s = json;
+        i = 0;
+    }
+
+    /**
+     * Reads {"wrapper":{...}} - one agent or pokemon - into the fields.
+     */
+    private void readWrapped(String wrapper, boolean agent) {
+        id = src = type = 0;
+        dest = -1;
+        value = speed = x = y = z = 0;
+        expect('{');
+        if (!nextMember()) return;
+        do {
+            if (!name(wrapper)) {
+                skipValue();
+                continue;
+            }
+            expect('{');
+            if (!nextMember()) continue;
+            do {
+                if (name("pos")) readPos();
+                else if (name("value")) value = readNumber();
+                else if (agent && name("id")) id = (int) readNumber();
+                else if (agent && name("src")) src = (int) readNumber();
+                else if (agent && name("dest")) dest = (int) readNumber();
+                else if (agent && name("speed")) speed = readNumber();
+                else if (!agent && name("type")) type = (int) readNumber();
+                else skipValue();
+            } while (nextMember());
+        } while (nextMember());
+    }
+
+    /**
+     * Reads the "x,y,z" string of a position into x, y and z.
+     */
+    private void readPos() {
+        expect('"');
+        int start = i, c1 = -1, c2 = -1;
+        for (; i < s.length() && s.charAt(i) != '"'; i++) {
+            if (s.charAt(i) == ',') {
+                if (c1 < 0) c1 = i;
+                else if (c2 < 0) c2 = i;
+            }
+        }
+        if (i == s.length() || c2 < 0) throw error("position x,y,z");
+        x = Coordinates.parseDouble(s, start, c1);
+        y = Coordinates.parseDouble(s, c1 + 1, c2);
+        z = Coordinates.parseDouble(s, c2 + 1, i);
+        i++;
+    }
+
+    private double readNumber() {
+        skipSpaces();
+        int start = i;
+        while (i < s.length() && "+-.0123456789eE".indexOf(s.charAt(i)) >= 0) i++;
+        if (start == i) throw error("number");
+        return Coordinates.parseDouble(s, start, i);
+    }
+
+    /**
+     * Moves to the next member of the current object: after '{' or ',' and before its name,
+     * or past the closing '}'.
+     *
+     * @return false if the object ended.
+     */
+    private boolean nextMember() {
+        skipSpaces();
+        if (i >= s.length()) throw error("'}'");
+        char c = s.charAt(i);
+        if (c == '}') {
+            i++;
+            return false;
+        }
+        if (c == ',') {
+            i++;
+            skipSpaces();
+        }
+        if (i < s.length() && s.charAt(i) == '}') { //After a trailing ','.
+            i++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the next element of the current array, or past the closing ']'.
+     *
+     * @return false if the array ended.
+     */
+    private boolean nextElement() {
+        skipSpaces();
+        if (i >= s.length()) throw error("']'");
+        char c = s.charAt(i);
+        if (c == ']') {
+            i++;
+            return false;
+        }
+        if (c == ',') {
+            i++;
+            skipSpaces();
+        }
+        return true;
+    }
+
+    /**
+     * Reads a member's name and its ':' if it is the given one, otherwise leaves i on the name,
+     * so other names can be tried (and the member skipped with skipValue()).
+     * Names hold no escapes in the server's json.
+     *
+     * @return true if the member at i is named `name`.
+     */
+    private boolean name(String name) {
+        skipSpaces();
+        if (i >= s.length() || s.charAt(i) != '"') throw error("name");
+        int n = name.length(), end = i + 1 + n;
+        if (end >= s.length() || s.charAt(end) != '"') return false;
+        for (int k = 0; k < n; k++) if (s.charAt(i + 1 + k) != name.charAt(k)) return false;
+        i = end + 1;
+        expect(':');
+        return true;
+    }
+
+    /**
+     * Skips a member (name, ':' and value) whose name was not wanted, or a value if i is already on it.
+     */
+    private void skipValue() {
+        skipSpaces();
+        if (i < s.length() && s.charAt(i) == '"') { //The member's name, or a string value.
+            skipString();
+            skipSpaces();
+            if (i < s.length() && s.charAt(i) == ':') {
+                i++;
+                skipValue();
+            }
+            return;
+        }
+        int depth = 0;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                skipString();
+                i--;
+            } else if (c == '{' || c == '[') depth++;
+            else if (c == '}' || c == ']') {
+                if (depth == 0) return;
+                if (--depth == 0) {
+                    i++;
+                    return;
+                }
+            } else if (c == ',' && depth == 0) return;
+        }
+    }
+
+    private void skipString() {
+        for (i++; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '"') {
+                i++;
+                return;
+            }
+        }
+        throw error("'\"'");
+    }
+
+    private void expect(char c) {
+        skipSpaces();
+        if (i >= s.length() || s.charAt(i) != c) throw error("'" + c + "'");
+        i++;
+    }
+
+    private void skipSpaces() {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Bad game json: expected " + expected + " at " + i);
+    }
+}
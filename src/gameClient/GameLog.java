@@ -0,0 +1,173 @@
+package gameClient;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class holds the format of a game log: every game_service call of a game and its response,
+ * written by RecordingGameService and served back by ReplayGameService.
+ *
+ * A log is append only, a stream of records after an 8 byte header (int magic "DWGL", int version):
+ * byte call, varint micro seconds since the previous record, the call's arguments, then its result.
+ * Numbers are unsigned LEB128 varints (signed ones zigzag encoded first), so most take one or two bytes.
+ * A json result is a flag byte - 0 if it is the same as the previous result of the same call
+ * (the pokemons json rarely changes between two ticks), 1 if a varint length and UTF-8 bytes follow.
+ * A log cut short (e.g. the recording JVM was killed) is read up to its last whole record.
+ */
+public final class GameLog {
+
+    static final int MAGIC = 'D' << 24 | 'W' << 16 | 'G' << 8 | 'L';
+    static final int VERSION = 1;
+
+    /**
+     * The game_service calls, and the type of their result.
+     */
+    enum Call {
+        GET_GRAPH(Result.JSON), GET_POKEMONS(Result.JSON), GET_AGENTS(Result.JSON), ADD_AGENT(Result.BOOLEAN),
+        START_GAME(Result.LONG), IS_RUNNING(Result.BOOLEAN), STOP_GAME(Result.LONG), CHOOSE_NEXT_EDGE(Result.LONG),
+        TIME_TO_END(Result.LONG), MOVE(Result.JSON), LOGIN(Result.BOOLEAN), TO_STRING(Result.JSON);
+
+        final Result result;
+
+        Call(Result result) {
+            this.result = result;
+        }
+
+        static final Call[] ALL = values();
+    }
+
+    enum Result {JSON, LONG, BOOLEAN}
+
+    private GameLog() {
+    }
+
+    /**
+     * Prints a game log as text, a call per line.
+     *
+     * @param args - the log file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Required arguments: log");
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+            for (Record r : read(in)) System.out.println(r);
+        }
+    }
+
+    static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Bad varint in game log");
+    }
+
+    static void writeSigned(DataOutputStream out, long v) throws IOException {
+        writeVarLong(out, (v << 1) ^ (v >> 63));
+    }
+
+    static long readSigned(DataInputStream in) throws IOException {
+        long v = readVarLong(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length > Integer.MAX_VALUE) throw new IOException("Bad string length in game log");
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One recorded call: what was called, when, with what arguments, and what it returned.
+     */
+    static final class Record {
+        Call call;
+        long micros; //Since the start of the recording.
+        long arg0, arg1; //chooseNextEdge(arg0, arg1), addAgent(arg0), login(arg0).
+        String json; //For calls that return json.
+        long value; //For calls that return a number or a boolean (0/1).
+
+        @Override
+        public String toString() {
+            String args = call == Call.CHOOSE_NEXT_EDGE ? "(" + arg0 + "," + arg1 + ")"
+                    : call == Call.ADD_AGENT || call == Call.LOGIN ? "(" + arg0 + ")" : "()";
+            return micros + "us " + call + args + " -> " + (call.result == Result.JSON ? json : "" + value);
+        }
+    }
+
+    /**
+     * Reads all records of a log.
+     *
+     * @param in - the log (read to its end, not closed).
+     * @return the records, in the order of the calls.
+     * @throws IOException if the stream is not a game log.
+     */
+    static Record[] read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a game log");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported game log version " + version);
+        String[] last = new String[Call.ALL.length];
+        Record[] records = new Record[256];
+        int count = 0;
+        long micros = 0;
+        while (true) {
+            Record r = new Record();
+            try {
+                int call = in.read();
+                if (call < 0) break;
+                if (call >= Call.ALL.length) throw new IOException("Bad call " + call + " in game log");
+                r.call = Call.ALL[call];
+                micros += readVarLong(in);
+                r.micros = micros;
+                switch (r.call) {
+                    case CHOOSE_NEXT_EDGE:
+                        r.arg0 = readSigned(in);
+                        r.arg1 = readSigned(in);
+                        break;
+                    case ADD_AGENT:
+                    case LOGIN:
+                        r.arg0 = readSigned(in);
+                        break;
+                    default:
+                }
+                if (r.call.result == Result.JSON) {
+                    r.json = in.readUnsignedByte() == 0 ? last[call] : readString(in);
+                    if (r.json == null) throw new IOException("Game log refers to a missing response");
+                    last[call] = r.json;
+                } else if (r.call.result == Result.LONG) r.value = readSigned(in);
+                else r.value = in.readUnsignedByte();
+            } catch (EOFException e) {
+                break; //A partial last record.
+            }
+            if (count == records.length) records = Arrays.copyOf(records, count * 2);
+            records[count++] = r;
+        }
+        return Arrays.copyOf(records, count);
+    }
+}
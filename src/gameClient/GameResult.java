@@ -0,0 +1,131 @@
+package gameClient;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This class represents the outcome of one played game:
+ * the level and strategy, the final grade and number of moves as reported by the game server,
+ * the distribution of the client's per-tick latency (time spent in Ex2.moveAgents()),
+ * and the cost of the strategy's decisions (latency and allocated bytes per Strategy.decide() call).
+ * A result can be written to and read back from a single CSV line,
+ * which is how forked games report back to the BatchRunner.
+ */
+public class GameResult {
+
+    public static final String CSV_HEADER = "level,seed,strategy,grade,moves,ticks,tick_mean_us,tick_p50_us,tick_p99_us,tick_max_us,"
+            + "decision_p50_us,decision_p99_us,decision_bytes";
+
+    private int level;
+    private long seed;
+    private String strategy;
+    private double grade;
+    private int moves;
+    private int ticks;
+    private double tickMean, tickP50, tickP99, tickMax; //In micro seconds.
+    private double decisionP50, decisionP99; //In micro seconds.
+    private long decisionBytes; //Average bytes allocated per decision.
+
+    /**
+     * Builds a result from the final game server status and the recorded tick durations.
+     *
+     * @param level         - the level played.
+     * @param strategy      - name of the strategy that played.
+     * @param status        - the game server's status after the game ended.
+     * @param tickNanos     - duration of every tick in nano seconds.
+     * @param decisionNanos - duration of every decision in nano seconds.
+     * @param allocated     - total bytes allocated by all decisions.
+     */
+    public GameResult(int level, String strategy, GameStatus status, long[] tickNanos, long[] decisionNanos, long allocated) {
+        this.level = level;
+        this.seed = -1;
+        this.strategy = strategy;
+        grade = status.getGrade();
+        moves = status.getMoves();
+
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        ticks = sorted.length;
+        if (ticks > 0) {
+            long sum = 0;
+            for (long t : sorted) sum += t;
+            tickMean = sum / (double) ticks / 1000;
+            tickP50 = percentile(sorted, 0.5) / 1000.0;
+            tickP99 = percentile(sorted, 0.99) / 1000.0;
+            tickMax = sorted[ticks - 1] / 1000.0;
+        }
+        sorted = decisionNanos.clone();
+        Arrays.sort(sorted);
+        if (sorted.length > 0) {
+            decisionP50 = percentile(sorted, 0.5) / 1000.0;
+            decisionP99 = percentile(sorted, 0.99) / 1000.0;
+            decisionBytes = allocated / sorted.length;
+        }
+    }
+
+    private GameResult() {
+    }
+
+    /**
+     * Returns the value at the given percentile of a sorted array (nearest rank).
+     *
+     * @param sorted - a sorted, non empty array.
+     * @param p      - percentile in [0,1].
+     * @return the value at percentile p.
+     */
+    static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+
+    /**
+     * Parses a line written by toCsv().
+     *
+     * @param line - a CSV line (see CSV_HEADER).
+     * @return the parsed result.
+     */
+    public static GameResult fromCsv(String line) {
+        String[] f = line.trim().split(",");
+        GameResult r = new GameResult();
+        r.level = Integer.parseInt(f[0]);
+        r.seed = Long.parseLong(f[1]);
+        r.strategy = f[2];
+        r.grade = Double.parseDouble(f[3]);
+        r.moves = Integer.parseInt(f[4]);
+        r.ticks = Integer.parseInt(f[5]);
+        r.tickMean = Double.parseDouble(f[6]);
+        r.tickP50 = Double.parseDouble(f[7]);
+        r.tickP99 = Double.parseDouble(f[8]);
+        r.tickMax = Double.parseDouble(f[9]);
+        r.decisionP50 = Double.parseDouble(f[10]);
+        r.decisionP99 = Double.parseDouble(f[11]);
+        r.decisionBytes = Long.parseLong(f[12]);
+        return r;
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%d,%d,%s,%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d",
+                level, seed, strategy, grade, moves, ticks, tickMean, tickP50, tickP99, tickMax,
+                decisionP50, decisionP99, decisionBytes);
+    }
+
+    public int getLevel() {return level;}
+    public long getSeed() {return seed;}
+    public void setSeed(long seed) {this.seed = seed;}
+    public String getStrategy() {return strategy;}
+    public double getGrade() {return grade;}
+    public int getMoves() {return moves;}
+    public int getTicks() {return ticks;}
+    public double getTickMean() {return tickMean;}
+    public double getTickP50() {return tickP50;}
+    public double getTickP99() {return tickP99;}
+    public double getTickMax() {return tickMax;}
+    public double getDecisionP50() {return decisionP50;}
+    public double getDecisionP99() {return decisionP99;}
+    public long getDecisionBytes() {return decisionBytes;}
+
+    @Override
+    public String toString() {
+        return toCsv();
+    }
+}
@@ -0,0 +1,72 @@
+package gameClient;
+
+import api.game_service;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * This class represents the game server's status at one moment, as reported by game_service.toString():
+ * {"GameServer":{"pokemons":..,"is_logged_in":..,"moves":..,"grade":..,"game_level":..,...}}.
+ * The json is parsed once, when the status is taken (once per move() in Ex2),
+ * and the same immutable object is then read by the game loop, the window and GameResult.
+ */
+public class GameStatus {
+
+    private final String json;
+    private final int pokemons, agents, moves, level, maxUserLevel;
+    private final double grade;
+    private final long id, timeToEnd;
+    private final boolean loggedIn;
+    private final String graph;
+
+    /**
+     * Parses a game server status.
+     *
+     * @param json      - the status json (game_service.toString()).
+     * @param timeToEnd - milli seconds left to play when the status was taken.
+     */
+    public GameStatus(String json, long timeToEnd) {
+        this.json = json;
+        this.timeToEnd = timeToEnd;
+        JsonObject gameServer = JsonParser.parseString(json).getAsJsonObject().getAsJsonObject("GameServer");
+        pokemons = gameServer.get("pokemons").getAsInt();
+        agents = gameServer.get("agents").getAsInt();
+        moves = gameServer.get("moves").getAsInt();
+        grade = gameServer.get("grade").getAsDouble();
+        level = gameServer.get("game_level").getAsInt();
+        maxUserLevel = gameServer.has("max_user_level") ? gameServer.get("max_user_level").getAsInt() : -1;
+        id = gameServer.has("id") ? gameServer.get("id").getAsLong() : 0;
+        loggedIn = gameServer.has("is_logged_in") && gameServer.get("is_logged_in").getAsBoolean();
+        graph = gameServer.has("graph") ? gameServer.get("graph").getAsString() : null;
+    }
+
+    /**
+     * Takes the current status of a game.
+     *
+     * @param game - the game server.
+     * @return its status now.
+     */
+    public static GameStatus of(game_service game) {
+        return new GameStatus(game.toString(), game.timeToEnd());
+    }
+
+    public int getPokemons() {return pokemons;}
+    public int getAgents() {return agents;}
+    public int getMoves() {return moves;}
+    public double getGrade() {return grade;}
+    public int getLevel() {return level;}
+    public int getMaxUserLevel() {return maxUserLevel;}
+    public long getId() {return id;}
+    public boolean isLoggedIn() {return loggedIn;}
+    public String getGraph() {return graph;}
+    /** Milli seconds left to play when the status was taken. */
+    public long getTimeToEnd() {return timeToEnd;}
+
+    /**
+     * Returns the status json, as given by the server.
+     */
+    @Override
+    public String toString() {
+        return json;
+    }
+}
@@ -0,0 +1,207 @@
+package gameClient;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This class records where the time of a game goes, tick by tick, at a cost of a few
+ * nano seconds per measure and no allocation: one LatencyHistogram per phase of the game loop,
+ * the bytes allocated per tick, and counts of server calls and catches.
+ *
+ * Phases (see Ex2):
+ * tick      - a whole Ex2.moveAgents() call (move, parse, edges and decide below).
+ * move      - the _game.move() server call.
+ * parse     - taking the status, the agents and the pokemons json and parsing them.
+ * edges     - matching every new or moved pokemon to its edge (EdgeMatcher).
+ * decide    - the strategy's planning (Strategy.decide(), what getBestPokemon was).
+ * sleepWell - computing the time to sleep.
+ * sleep     - the time actually slept (sleepWell() plus the scheduler's overshoot).
+ *
+ * The summary (summary()) is printed at the end of a game when -Dtelemetry=true.
+ * With -Dtelemetry.csv=file, a CSV line per tick is written to the file while the game runs
+ * (durations in micro seconds; one file per game, so not to be combined with several games in one JVM).
+ */
+public class GameTelemetry implements Closeable {
+
+    /**
+     * A measured part of the game loop, see the class comment.
+     */
+    public enum Phase {
+        TICK("tick"), MOVE("move"), PARSE("parse"), EDGES("edges"), DECIDE("decide"),
+        SLEEP_WELL("sleepWell"), SLEEP("sleep");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {return label;}
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final int MAX_CATCHES = 8; //Moves with more catches are counted in the last slot.
+
+    private final LatencyHistogram[] latency = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram allocation = new LatencyHistogram();
+    private final long[] tickNanos = new long[PHASES.length]; //The current tick's time per phase.
+    private final long[] movesByCatches = new long[MAX_CATCHES + 1];
+    private long moves, nextEdges, catches, ticks;
+    private int tickNextEdges, tickCatches;
+
+    private final Writer csv; //null --> no CSV.
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    /**
+     * Constructor.
+     *
+     * @param csv - where to write a line per tick, null for none (closed by close()).
+     */
+    public GameTelemetry(Writer csv) throws IOException {
+        for (int i = 0; i < PHASES.length; i++) latency[i] = new LatencyHistogram();
+        this.csv = csv;
+        if (csv != null) {
+            csv.write("tick");
+            for (Phase p : PHASES) csv.write("," + p.getLabel() + "_us");
+            csv.write(",alloc_bytes,next_edges,catches,time_to_end_ms\n");
+        }
+    }
+
+    /**
+     * Creates the telemetry asked for by the system properties (see the class comment).
+     * A CSV file that cannot be created is reported on System.err, and the game is played without it.
+     *
+     * @return a telemetry for one game.
+     */
+    public static GameTelemetry fromProperties() {
+        String file = System.getProperty("telemetry.csv");
+        if (file != null) {
+            try {
+                return new GameTelemetry(new BufferedWriter(new FileWriter(file)));
+            } catch (IOException e) {
+                System.err.println("Cannot write telemetry to " + file + ": " + e);
+            }
+        }
+        try {
+            return new GameTelemetry(null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); //Nothing is written without a CSV.
+        }
+    }
+
+    /**
+     * Returns true if a summary should be printed at the end of the game (-Dtelemetry=true, or a CSV file).
+     */
+    public static boolean isSummaryEnabled() {
+        return Boolean.getBoolean("telemetry") || System.getProperty("telemetry.csv") != null;
+    }
+
+    /**
+     * Records the duration of a phase in the current tick.
+     *
+     * @param phase - the phase.
+     * @param nanos - its duration in nano seconds.
+     */
+    public void record(Phase phase, long nanos) {
+        latency[phase.ordinal()].record(nanos);
+        tickNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Counts a _game.move() call.
+     *
+     * @param caught - number of pokemons caught by this move.
+     */
+    public void move(int caught) {
+        moves++;
+        catches += caught;
+        tickCatches += caught;
+        movesByCatches[Math.min(caught, MAX_CATCHES)]++;
+    }
+
+    /**
+     * Counts a _game.chooseNextEdge() call.
+     */
+    public void nextEdge() {
+        nextEdges++;
+        tickNextEdges++;
+    }
+
+    /**
+     * Ends the current tick: records its allocation and writes its CSV line (if any).
+     *
+     * @param allocatedBytes - bytes allocated by the game thread during the tick.
+     * @param timeToEnd      - milli seconds left to play.
+     */
+    public void endTick(long allocatedBytes, long timeToEnd) {
+        allocation.record(allocatedBytes);
+        if (csv != null) {
+            line.setLength(0);
+            line.append(ticks);
+            for (long t : tickNanos) line.append(',').append(t / 1000);
+            line.append(',').append(allocatedBytes).append(',').append(tickNextEdges).append(',').append(tickCatches)
+                    .append(',').append(timeToEnd).append('\n');
+            if (chars.length < line.length()) chars = new char[2 * line.length()];
+            line.getChars(0, line.length(), chars, 0); //Writer.append(CharSequence) would copy to a String.
+            try {
+                csv.write(chars, 0, line.length());
+            } catch (IOException e) {
+                System.err.println("Telemetry CSV: " + e);
+            }
+        }
+        ticks++;
+        Arrays.fill(tickNanos, 0);
+        tickNextEdges = 0;
+        tickCatches = 0;
+    }
+
+    public LatencyHistogram getLatency(Phase phase) {return latency[phase.ordinal()];}
+    /** Bytes allocated per tick. */
+    public LatencyHistogram getAllocation() {return allocation;}
+    public long getTicks() {return ticks;}
+    public long getMoves() {return moves;}
+    public long getNextEdges() {return nextEdges;}
+    public long getCatches() {return catches;}
+
+    /**
+     * Builds the end of game summary: a latency table (micro seconds) per phase,
+     * the allocation per tick, server call counts and the catches per move.
+     *
+     * @return a printable summary.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "phase", "count", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (Phase p : PHASES) {
+            LatencyHistogram h = getLatency(p);
+            sb.append(String.format(Locale.ROOT, "%-10s %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    p.getLabel(), h.getCount(), h.getMean() / 1000, h.getValueAtPercentile(0.5) / 1000.0,
+                    h.getValueAtPercentile(0.9) / 1000.0, h.getValueAtPercentile(0.99) / 1000.0,
+                    h.getValueAtPercentile(0.999) / 1000.0, h.getMax() / 1000.0));
+        }
+        sb.append(String.format(Locale.ROOT, "alloc/tick: mean %.0f, p50 %d, p99 %d, max %d bytes%n",
+                allocation.getMean(), allocation.getValueAtPercentile(0.5), allocation.getValueAtPercentile(0.99),
+                allocation.getMax()));
+        sb.append(String.format(Locale.ROOT, "ticks %d, move() %d, chooseNextEdge() %d (%.2f per move), catches %d (%.3f per move)%n",
+                ticks, moves, nextEdges, nextEdges / (double) Math.max(1, moves), catches, catches / (double) Math.max(1, moves)));
+        sb.append("moves by catches:");
+        for (int c = 0; c <= MAX_CATCHES; c++)
+            if (movesByCatches[c] > 0) sb.append(' ').append(c).append(c == MAX_CATCHES ? "+=" : "=").append(movesByCatches[c]);
+        return sb.append(String.format("%n")).toString();
+    }
+
+    /**
+     * Flushes and closes the CSV file, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        if (csv != null) csv.close();
+    }
+}
@@ -0,0 +1,198 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.geo_location;
+import api.node_data;
+import gameClient.util.Range;
+import gameClient.util.Range2D;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class represents a uniform grid over the (x,y) bounds of a graph,
+ * used to find the nodes and edges inside a view without visiting the whole graph.
+ * Every node is kept in the cell of its position, and every edge in all the cells
+ * its bounding box overlaps. A query visits only the cells the view overlaps.
+ * Nodes and edges also get dense indices, and node coordinates are kept packed ({x0,y0, x1,y1, ...}),
+ * so a caller can convert them all at once (Range2Range.world2frame(double[], int[], int)) and
+ * draw edges by the indices of their end nodes.
+ * The graph must not change after the index was built (true for game graphs).
+ */
+public class GraphSpatialIndex {
+
+    private static final int MAX_CELLS_PER_SIDE = 512;
+
+    private final node_data[] nodes;
+    private final edge_data[] edges;
+    private final double[] xy; //Packed node coordinates.
+    private final int[] edgeSrc, edgeDest; //Node indices of every edge's ends.
+    private final double[] edgeBox; //minX, minY, maxX, maxY per edge.
+    private final double minX, minY, cellW, cellH;
+    private final int cols, rows;
+    private final int[] nodeStart, nodeCell; //CSR: nodes of cell c are nodeCell[nodeStart[c] .. nodeStart[c+1]).
+    private final int[] edgeStart, edgeCell;
+    private final int[] edgeSeen; //Query stamp per edge, so an edge in several cells is reported once.
+    private int stamp;
+
+    /**
+     * Builds the index of a graph.
+     * @Runtime: O(|V| + sum of the cells overlapped by every edge).
+     *
+     * @param g - the graph.
+     */
+    public GraphSpatialIndex(directed_weighted_graph g) {
+        nodes = g.getV().toArray(new node_data[0]);
+        List<edge_data> edgeList = new ArrayList<edge_data>(g.edgeSize());
+        for (node_data n : nodes) edgeList.addAll(g.getE(n.getKey()));
+        edges = edgeList.toArray(new edge_data[0]);
+
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for (node_data n : nodes) {
+            geo_location p = n.getLocation();
+            x0 = Math.min(x0, p.x());
+            y0 = Math.min(y0, p.y());
+            x1 = Math.max(x1, p.x());
+            y1 = Math.max(y1, p.y());
+        }
+        if (nodes.length == 0) x0 = y0 = x1 = y1 = 0;
+        xy = new double[2 * nodes.length];
+        HashMap<Integer, Integer> indexOf = new HashMap<Integer, Integer>();
+        for (int i = 0; i < nodes.length; i++) {
+            xy[2 * i] = nodes[i].getLocation().x();
+            xy[2 * i + 1] = nodes[i].getLocation().y();
+            indexOf.put(nodes[i].getKey(), i);
+        }
+        edgeSrc = new int[edges.length];
+        edgeDest = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            edgeSrc[i] = indexOf.get(edges[i].getSrc());
+            edgeDest[i] = indexOf.get(edges[i].getDest());
+        }
+        int side = (int) Math.max(1, Math.min(MAX_CELLS_PER_SIDE, Math.ceil(Math.sqrt(nodes.length / 2.0))));
+        cols = rows = side;
+        minX = x0;
+        minY = y0;
+        cellW = Math.max((x1 - x0) / cols, Double.MIN_NORMAL);
+        cellH = Math.max((y1 - y0) / rows, Double.MIN_NORMAL);
+
+        int cells = cols * rows;
+        nodeStart = new int[cells + 1];
+        nodeCell = new int[nodes.length];
+        for (node_data n : nodes) nodeStart[cellOf(n.getLocation()) + 1]++;
+        for (int c = 0; c < cells; c++) nodeStart[c + 1] += nodeStart[c];
+        int[] fill = nodeStart.clone();
+        for (int i = 0; i < nodes.length; i++) nodeCell[fill[cellOf(nodes[i].getLocation())]++] = i;
+
+        edgeBox = new double[4 * edges.length];
+        edgeStart = new int[cells + 1];
+        for (int i = 0; i < edges.length; i++) {
+            int s = 2 * edgeSrc[i], d = 2 * edgeDest[i];
+            edgeBox[4 * i] = Math.min(xy[s], xy[d]);
+            edgeBox[4 * i + 1] = Math.min(xy[s + 1], xy[d + 1]);
+            edgeBox[4 * i + 2] = Math.max(xy[s], xy[d]);
+            edgeBox[4 * i + 3] = Math.max(xy[s + 1], xy[d + 1]);
+            for (int r = row(edgeBox[4 * i + 1]); r <= row(edgeBox[4 * i + 3]); r++)
+                for (int c = col(edgeBox[4 * i]); c <= col(edgeBox[4 * i + 2]); c++) edgeStart[r * cols + c + 1]++;
+        }
+        for (int c = 0; c < cells; c++) edgeStart[c + 1] += edgeStart[c];
+        edgeCell = new int[edgeStart[cells]];
+        fill = edgeStart.clone();
+        for (int i = 0; i < edges.length; i++)
+            for (int r = row(edgeBox[4 * i + 1]); r <= row(edgeBox[4 * i + 3]); r++)
+                for (int c = col(edgeBox[4 * i]); c <= col(edgeBox[4 * i + 2]); c++) edgeCell[fill[r * cols + c]++] = i;
+        edgeSeen = new int[edges.length];
+    }
+
+    private int col(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) ((x - minX) / cellW)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellH)));
+    }
+
+    private int cellOf(geo_location p) {
+        return row(p.y()) * cols + col(p.x());
+    }
+
+    public int nodeCount() {return nodes.length;}
+    public int edgeCount() {return edges.length;}
+    public node_data node(int i) {return nodes[i];}
+    public edge_data edge(int i) {return edges[i];}
+    /** Index of the node edge i starts at. */
+    public int edgeSrc(int i) {return edgeSrc[i];}
+    /** Index of the node edge i ends at. */
+    public int edgeDest(int i) {return edgeDest[i];}
+
+    /**
+     * Returns the packed coordinates of all nodes, {x0,y0, x1,y1, ...} by node index.
+     * The array is shared and must not be changed.
+     */
+    public double[] getCoordinates() {
+        return xy;
+    }
+
+    /**
+     * Finds the nodes whose position is inside the view, without allocating.
+     *
+     * @param view - a part of the world (ranges may be given in either direction).
+     * @param out  - receives the indices of the visible nodes, of size nodeCount() at least.
+     * @return the number of visible nodes.
+     */
+    public int visibleNodes(Range2D view, int[] out) {
+        if (nodes.length == 0) return 0;
+        double x0 = lo(view.get_x_range()), x1 = hi(view.get_x_range());
+        double y0 = lo(view.get_y_range()), y1 = hi(view.get_y_range());
+        int count = 0;
+        for (int r = row(y0); r <= row(y1); r++) {
+            for (int c = col(x0); c <= col(x1); c++) {
+                int cell = r * cols + c;
+                for (int k = nodeStart[cell]; k < nodeStart[cell + 1]; k++) {
+                    int i = nodeCell[k];
+                    if (xy[2 * i] >= x0 && xy[2 * i] <= x1 && xy[2 * i + 1] >= y0 && xy[2 * i + 1] <= y1) out[count++] = i;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the edges whose bounding box overlaps the view
+     * (every edge that crosses the view, and possibly a few that pass near its corners), without allocating.
+     *
+     * @param view - a part of the world (ranges may be given in either direction).
+     * @param out  - receives the indices of the visible edges, of size edgeCount() at least.
+     * @return the number of visible edges.
+     */
+    public int visibleEdges(Range2D view, int[] out) {
+        if (edges.length == 0) return 0;
+        double x0 = lo(view.get_x_range()), x1 = hi(view.get_x_range());
+        double y0 = lo(view.get_y_range()), y1 = hi(view.get_y_range());
+        int count = 0;
+        stamp++;
+        for (int r = row(y0); r <= row(y1); r++) {
+            for (int c = col(x0); c <= col(x1); c++) {
+                int cell = r * cols + c;
+                for (int k = edgeStart[cell]; k < edgeStart[cell + 1]; k++) {
+                    int i = edgeCell[k];
+                    if (edgeSeen[i] == stamp) continue;
+                    edgeSeen[i] = stamp;
+                    if (edgeBox[4 * i] <= x1 && edgeBox[4 * i + 2] >= x0 && edgeBox[4 * i + 1] <= y1 && edgeBox[4 * i + 3] >= y0)
+                        out[count++] = i;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static double lo(Range r) {
+        return Math.min(r.get_min(), r.get_max());
+    }
+
+    private static double hi(Range r) {
+        return Math.max(r.get_min(), r.get_max());
+    }
+}
@@ -0,0 +1,252 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.edge_location;
+import api.node_data;
+import gameClient.ArenaSnapshot.AgentView;
+import gameClient.ArenaSnapshot.PokemonView;
+
+import java.util.List;
+
+/**
+ * The original game logic of Ex2, as a Strategy.
+ * well we find that the best way to choose dest to each agent is by calculate the ratio between
+ * the time it takes the agent to get to the fruit and the value that we collect all of the path.
+ * the lower ratio the better choose for the agent.
+ * Time comes from a TravelTimeModel, so faster agents (and agents already on their way) win
+ * the pokemons they reach first: the (agent, pokemon) pair with the lowest ratio over all agents
+ * is matched first, then the next one, and so on.
+ * we decided to mark all the fruit that the agent will get all they way to his path.
+ * and in the other side mark the agent fruit dest.
+ * chosen function--> getBestMatch() , getMinimalNode.
+ * mark function-->  trackPokemonsOnList
+ */
+public class GreedyRatioStrategy implements Strategy {
+
+    private ArenaSnapshot snap;
+    private TravelTimeModel times;
+    private boolean[] tracked; //tracked[i] --> pokemon i is already the target (or on the way) of some agent.
+
+    /**
+     * Locates the agents on the edges with the best value/weight ratio.
+     * Fill an array of size [agents] with the best pokemons to start from.
+     */
+    @Override
+    public int[] initialNodes(ArenaSnapshot snapshot, int agents) {
+        setSnapshot(snapshot);
+        int[] occupiedNodes = new int[agents];
+
+        for (int i = 0; i < agents; i++) {
+            int pokemon = getInitialMaxRatio();
+            if (pokemon < 0) //Means all pokemons are tracked and the next agent will "wonder".
+                occupiedNodes[i] = bestInitialNode(occupiedNodes, i); //Find the best arbitrary node to send the agent to.
+            else
+                occupiedNodes[i] = snap.getPokemons().get(pokemon).getEdge().getSrc();
+        }
+        return occupiedNodes;
+    }
+
+    @Override
+    public void decide(ArenaSnapshot snapshot, int[] nextNode, int[] target) {
+        setSnapshot(snapshot);
+        if (times == null) times = new TravelTimeModel(snapshot.getRoutes());
+        times.update(snapshot);
+        List<AgentView> agents = snap.getAgents();
+        boolean[] matched = new boolean[agents.size()];
+
+        for (int round = 0; round < agents.size(); round++) {
+            int[] match = getBestMatch(matched); // Match some agent with the best pokemon on the ideal edge.
+            if (match == null) break;
+            int i = match[0], pokemon = match[1];
+            matched[i] = true;
+            target[i] = pokemon;
+            tracked[pokemon] = true;
+
+            AgentView ag = agents.get(i);
+            edge_data edge = snap.getPokemons().get(pokemon).getEdge();
+            edge_location loc = snap.getPokemons().get(pokemon).getEdgeLocation();
+            if (ag.isMoving() && loc != null && times.timeTo(i, loc) < times.delay(i)) {
+                trackPokemonsOnEdge(edge); //The pokemon is ahead on the agent's current edge.
+                nextNode[i] = -1;
+                continue;
+            }
+            int from = snap.getRoutes().key(times.origin(i));
+            List<node_data> path = snap.getRoutes().getPath(from, edge.getSrc());
+            if (path != null) trackPokemonsOnList(path); //Set all pokemons on path as tracked.
+
+            if (ag.isMoving())
+                nextNode[i] = -1; //A moving agent gets its next edge once it reaches a node.
+            else if (path != null && path.size() > 1) //There is a valid route for the agent.
+                nextNode[i] = path.get(1).getKey(); // Next dest will always be at index 1 on the list.
+            else
+                nextNode[i] = edge.getDest(); // Catch the pokemon
+        }
+
+        for (int i = 0; i < agents.size(); i++) {
+            if (matched[i]) continue;
+            target[i] = -1; //agent has nowhere to go and needs to go the lowest amount of moves.
+            nextNode[i] = agents.get(i).isMoving() ? -1 : getMinimalNode(agents.get(i).getSrc());
+        }
+    }
+
+    private void setSnapshot(ArenaSnapshot snapshot) {
+        snap = snapshot;
+        tracked = new boolean[snapshot.getPokemons().size()];
+    }
+
+    /**
+     * This method finds the best initial node to set
+     * as a starting point for some agent if all the pokemon are taken:
+     * the first node that no other agent starts from.
+     * If no free node exists, we return the first used node.
+     *
+     * @param occupied - nodes other agents start from.
+     * @param count    - number of valid entries in occupied.
+     * @return the best node to start for an agent.
+     */
+    private int bestInitialNode(int[] occupied, int count) {
+        directed_weighted_graph graph = snap.getGraph();
+        for (node_data node : graph.getV()) {
+            boolean isAvailable = true;
+            for (int i = 0; i < count; i++)
+                if (occupied[i] == node.getKey()) isAvailable = false;
+            if (isAvailable)
+                return node.getKey();
+        }
+        /*
+        If reached this return statement, all nodes on the graph are currently occupied,
+        and cannot find any free node, so return just any node.
+         */
+        return occupied[0];
+    }
+
+    /**
+     * This method calc the lowest edge by weight and returns its destination.
+     * node's key.
+     *
+     * @param from - the node to look from.
+     * @return the integer of the lowest destination node, -1 if there are no out going edges.
+     */
+    private int getMinimalNode(int from) {
+        double min = Double.MAX_VALUE;
+        int ans = -1;
+        for (edge_data e : snap.getGraph().getE(from)) {
+            if (e.getWeight() < min) {
+                ans = e.getDest();
+                min = e.getWeight();
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * This method returns the pokemon with the max value that is not tracked by another
+     * agent.
+     * Calculation is the sum of values for all pokemons on a certain edge,
+     * divided by the weight of the edge.
+     *
+     * @return index of the pokemon with the lowest ratio (Best decision), -1 if all are tracked.
+     */
+    private int getInitialMaxRatio() {
+        int bestPokemon = -1;
+        double minRatio = Double.MAX_VALUE, weight, value, ratio;
+        List<PokemonView> pokemons = snap.getPokemons();
+
+        for (int i = 0; i < pokemons.size(); i++) {
+            if (!tracked[i]) {
+                weight = pokemons.get(i).getEdge().getWeight();
+                value = sumEdgeValue(pokemons.get(i).getEdge());
+                ratio = weight / value;
+
+                if (minRatio > ratio) {
+                    minRatio = ratio;
+                    bestPokemon = i;
+                }
+            }
+        }
+        if (bestPokemon < 0) return -1;
+        trackPokemonsOnEdge(pokemons.get(bestPokemon).getEdge()); //Marks all pokemons on the edge as tracked.
+        return bestPokemon;
+    }
+
+    /**
+     * This method finds the best (agent, pokemon) match among the agents that are not matched yet
+     * and the pokemons that are not tracked yet.
+     * This calculation is different from the initial matching calculation
+     * by taking in account the time it takes the agent to get to the pokemon
+     * (its exact position on the edge, when known).
+     *
+     * @param matched - agents that already have a pokemon.
+     * @return {agent index, pokemon index}, or null if no agent can reach any pokemon.
+     */
+    private int[] getBestMatch(boolean[] matched) {
+        double ratio, minRatio = Double.MAX_VALUE; //minRatio gives the best match.
+        int agent = -1, pokemon = -1;
+        List<PokemonView> pokemons = snap.getPokemons();
+
+        for (int p = 0; p < pokemons.size(); p++) {
+            if (tracked[p] || pokemons.get(p).getEdge() == null) continue;
+            double value = sumEdgeValue(pokemons.get(p).getEdge());
+
+            for (int a = 0; a < matched.length; a++) {
+                if (matched[a]) continue;
+                edge_location loc = pokemons.get(p).getEdgeLocation();
+                double time = loc != null ? times.timeTo(a, loc) : times.timeToPass(a, pokemons.get(p).getEdge());
+                if (time == RoutingTable.NO_PATH) continue;
+                ratio = time / value; // Pokemon value-time ratio.
+                if (minRatio > ratio) {
+                    minRatio = ratio;
+                    agent = a;
+                    pokemon = p;
+                }
+            }
+        }
+        if (agent < 0) return null;
+        return new int[]{agent, pokemon};
+    }
+
+    /**
+     * This method sums all pokemon values that are associated with the given edge.
+     *
+     * @param edge
+     * @return
+     */
+    private double sumEdgeValue(edge_data edge) {
+        double sum = 0;
+        for (PokemonView poke : snap.getPokemons()) {
+            if (sameEdge(poke.getEdge(), edge)) sum += poke.getValue();
+        }
+        return sum;
+    }
+
+    /**
+     * This method marks all pokemons on a given path as tracked pokemons.
+     *
+     * @param path
+     */
+    private void trackPokemonsOnList(List<node_data> path) {
+        for (int i = 0; i < path.size() - 1; i++) {
+            node_data node1 = path.get(i);
+            node_data node2 = path.get(i + 1);
+            trackPokemonsOnEdge(snap.getGraph().getEdge(node1.getKey(), node2.getKey()));
+        }
+    }
+
+    /**
+     * This method marks all Pokemons on the given edge 'e' as tracked.
+     *
+     * @param e
+     */
+    private void trackPokemonsOnEdge(edge_data e) {
+        List<PokemonView> pokemons = snap.getPokemons();
+        for (int i = 0; i < pokemons.size(); i++) {
+            if (!tracked[i] && sameEdge(e, pokemons.get(i).getEdge()))
+                tracked[i] = true;
+        }
+    }
+
+    static boolean sameEdge(edge_data a, edge_data b) {
+        return a != null && b != null && a.getSrc() == b.getSrc() && a.getDest() == b.getDest();
+    }
+}
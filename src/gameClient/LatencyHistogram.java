@@ -0,0 +1,86 @@
+package gameClient;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a histogram of non negative long values (nano seconds, bytes...),
+ * in the log-linear layout of HdrHistogram: values below 128 have a bucket each, and every
+ * power of two above is split into 64 buckets, so any value is kept with a relative error below 1/64
+ * (two significant digits), whatever its magnitude, in a fixed array of 3776 counters.
+ * Recording is a few shifts and an increment: no allocation, no sorting, no growth,
+ * so it can be done on every tick of a game of any length.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7, SUB = 1 << SUB_BITS, HALF = SUB / 2;
+    private static final int BUCKETS = SUB + (64 - SUB_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count, sum, min = Long.MAX_VALUE, max;
+
+    /**
+     * Adds a value (negative values count as 0).
+     * @Runtime: O(1).
+     *
+     * @param value - the value.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    private static int index(long v) {
+        if (v < SUB) return (int) v;
+        int shift = 57 - Long.numberOfLeadingZeros(v); //v >> shift is in [64, 128).
+        return SUB + (shift - 1) * HALF + (int) (v >> shift) - HALF;
+    }
+
+    /**
+     * Returns the highest value that falls in the given bucket.
+     */
+    private static long highest(int index) {
+        if (index < SUB) return index;
+        int shift = (index - SUB) / HALF + 1;
+        long low = (long) ((index - SUB) % HALF + HALF) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    /**
+     * Returns the value at the given percentile (nearest rank), within the histogram's precision.
+     * @Runtime: O(number of buckets).
+     *
+     * @param p - percentile in [0,1].
+     * @return the value, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double p) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.max(min, Math.min(max, highest(i)));
+        }
+        return max;
+    }
+
+    public long getCount() {return count;}
+    public long getSum() {return sum;}
+    public long getMin() {return count == 0 ? 0 : min;}
+    public long getMax() {return max;}
+    public double getMean() {return count == 0 ? 0 : sum / (double) count;}
+
+    /**
+     * Forgets all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
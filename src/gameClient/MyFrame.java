@@ -1,218 +1,503 @@
 package gameClient;
 
 import api.directed_weighted_graph;
-import api.edge_data;
 import api.geo_location;
-import api.node_data;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import gameClient.util.Point3D;
 import gameClient.util.Range;
 import gameClient.util.Range2D;
 import api.game_service;
+import gameClient.ArenaSnapshot.AgentView;
+import gameClient.ArenaSnapshot.PokemonView;
+
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.util.Iterator;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class represents a very simple GUI class to present a
  * game on a graph.
+ * The game thread never paints: it publishes a RenderFrame after every move() into a single slot
+ * (only the latest frame is kept, older ones are simply replaced), and a Swing timer renders
+ * from that slot at most ui.fps times a second (system property, default 30).
+ * So a slow paint never delays decisions or move() calls, and painting only reads immutable frames.
+ *
+ * Images are decoded (and scaled to their drawing size) once, and the parts that never change -
+ * the background and the graph - are drawn once into a layer image that is rebuilt only when the
+ * window is resized.
+ *
+ * Rendering is active: the timer draws into a Canvas through a BufferStrategy, no repaint() requests.
+ * The picture is kept in a scene image between frames, and a new frame only restores (from the static layer)
+ * and redraws the regions of actors that moved, appeared or disappeared, plus the status panel;
+ * the scene is then blitted into the strategy's reused back buffer, with an FPS / frame time overlay.
+ *
+ * The view can be zoomed (mouse wheel) and panned (drag), double click shows the whole graph again.
+ * Only the nodes and edges inside the view are drawn, found through a GraphSpatialIndex, and node labels
+ * and edge weights are left out when the visible graph is too dense to read them (level of detail).
  */
 public class MyFrame extends JFrame {
+    private static final Font LABEL_FONT = new Font("", Font.BOLD, 15);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final int POKEMON_R = 30, AGENT_R = 20;
+    private static final double LABEL_AREA = 40 * 40, DOT_AREA = 10 * 10, MIN_LABELED_EDGE = 40; //Level of detail, in pixels.
+    private static final Rectangle PANEL_BOUNDS = new Rectangle(795, 55, 200, 105); //Area drawPanel() draws in.
+
     private int _ind;
     private Arena _ar;
-    private game_service _game;
     private gameClient.util.Range2Range _w2f;
-    private Image dbImage;
-    private Graphics dbGraphic;
+    private final AtomicReference<RenderFrame> _latest = new AtomicReference<RenderFrame>();
+    private RenderFrame _painted; //Last frame rendered, only used on the Swing thread.
+    private final Timer _renderTimer;
+    private static final Map<String, BufferedImage> SPRITES = new HashMap<String, BufferedImage>(); //"name@size" --> image.
+    private BufferedImage _staticLayer; //Background and graph, for the current window size and view.
+    private GraphSpatialIndex _index;
+    private int[] _screenXY, _visibleNodes, _visibleEdges; //Node frame coordinates for the current window and view, query buffers.
+    private int _viewVersion, _layerVersion, _sceneVersion; //Bumped on every zoom / pan, layers follow.
+    private Point _dragFrom;
+    private final Canvas _canvas;
+    private volatile boolean _exposed; //The canvas was uncovered and must be blitted again.
+    private BufferedImage _scene; //The full picture of the last frame rendered.
+    private List<Actor> _drawn = new ArrayList<Actor>(), _next = new ArrayList<Actor>(); //Actors in the scene, and of the frame being rendered.
+    private final Set<Actor> _drawnSet = new HashSet<Actor>(), _nextSet = new HashSet<Actor>();
+    private final List<Rectangle> _dirty = new ArrayList<Rectangle>();
+    private int _infoLines;
+    private Image _agentImg, _lowValue, _mediumValue, _picatchu, _highValue;
+    private long _frameNanos, _fpsStart; //Frame time (moving average) and start of the current fps second.
+    private int _fps, _fpsCount, _dirtyCount;
 
     MyFrame(String a) {
         super(a);
         int _ind = 0;
+        _canvas = new Canvas() {
+            @Override
+            public void paint(Graphics g) {
+                _exposed = true; //Rendered by the timer, never here.
+            }
+
+            @Override
+            public void update(Graphics g) {
+                paint(g);
+            }
+        };
+        getContentPane().add(_canvas);
+        addViewControls();
+        int fps = Math.max(1, Integer.getInteger("ui.fps", 30));
+        _renderTimer = new Timer(1000 / fps, e -> render());
+        _renderTimer.start();
+    }
+
+    /**
+     * Hands a new frame to the window, may be called from any thread and never blocks.
+     * A frame that was not rendered yet is replaced.
+     *
+     * @param frame - the game at the last tick.
+     */
+    public void publish(RenderFrame frame) {
+        _latest.set(frame);
+    }
+
+    @Override
+    public void dispose() {
+        _renderTimer.stop();
+        super.dispose();
     }
 
     public void update(Arena ar,game_service game) {
-        this._game=game;
         this._ar = ar;
-        updateFrame();
+        updateFrame(getWidth(), getHeight());
     }
 
     /**
      * this method was added by us to customize the panel.
      * @param g -graphic.
      */
-    private void drawPanel(Graphics g) {
+    private void drawPanel(Graphics g, RenderFrame f) {
         int x = 800, y = 60;
         Graphics2D g2 = (Graphics2D) g;
+        g2.setColor(Color.BLACK);
         g2.drawRect(x, y,150,90);
-        g.setFont(new Font("",Font.BOLD,15));
-        g2.drawString("Level:\n" + getLevel(), x+5, y+=20);
-        g2.drawString("Time to end:\n"+_game.timeToEnd()/1000,x+5, y+=20);
-        g2.drawString("Moves:\n" + getMoves(), x+5, y+=20);
-        g2.drawString("Grade:\n" + getGrade(), x+5, y+=20);
+        g.setFont(LABEL_FONT);
+        GameStatus status = f.getStatus(); //Parsed once per move() by the game thread, never here.
+        g2.drawString("Level:\n" + status.getLevel(), x+5, y+=20);
+        g2.drawString("Time to end:\n"+status.getTimeToEnd()/1000,x+5, y+=20);
+        g2.drawString("Moves:\n" + status.getMoves(), x+5, y+=20);
+        g2.drawString("Grade:\n" + (int) status.getGrade(), x+5, y+=20);
     }
 
-    private int getLevel() {
-        JsonObject json = new JsonParser().parse(_game.toString()).getAsJsonObject();
-        JsonObject gameServer = json.getAsJsonObject("GameServer");
-        int level = gameServer.get("game_level").getAsInt();
-        return level;
-    }
-
-
-    private int getMoves() {
-        JsonObject json = new JsonParser().parse(_game.toString()).getAsJsonObject();
-        JsonObject gameServer = json.getAsJsonObject("GameServer");
-        int moves = gameServer.get("moves").getAsInt();
-        return moves;
+    private void drawBackGround(Graphics g) {
+        int r = 300;
+        Graphics2D g2 = (Graphics2D) g;
+        Image backGround = sprite("backgroundsecound.png", 1550, 840);
+        g2.drawImage(backGround, 0,0, this);
     }
 
-    private int getGrade() {
-        JsonObject json = new JsonParser().parse(_game.toString()).getAsJsonObject();
-        JsonObject gameServer = json.getAsJsonObject("GameServer");
-        int grade = gameServer.get("grade").getAsInt();
-        return grade;
+    /**
+     * Returns an image of data/images, decoded and scaled to w*h on first use and cached afterwards.
+     *
+     * @param name - file name in data/images.
+     * @return the image, null if it cannot be read.
+     */
+    private static synchronized BufferedImage sprite(String name, int w, int h) {
+        String key = name + "@" + w + "x" + h;
+        if (SPRITES.containsKey(key)) return SPRITES.get(key);
+        BufferedImage scaled = null;
+        try {
+            BufferedImage img = ImageIO.read(new File("data" + File.separator + "images" + File.separator + name));
+            if (img != null) {
+                scaled = new BufferedImage(w, h, img.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = scaled.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(img, 0, 0, w, h, null);
+                g.dispose();
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot read image " + name + ": " + e.getMessage());
+        }
+        SPRITES.put(key, scaled); //A missing image is not looked for again.
+        return scaled;
     }
 
-    private void drawBackGround(Graphics g) {
-        int r = 300;
-        Graphics2D g2 = (Graphics2D) g;
-        Toolkit tk = Toolkit.getDefaultToolkit();
-        Image backGround = tk.getImage("data\\images\\backgroundsecound.png");
-        g2.drawImage(backGround, 0,0, 1550, 840, this);
+    /**
+     * Returns the background and graph layer for the current window size,
+     * rebuilding it (and the world to frame transform) after a resize.
+     */
+    private BufferedImage staticLayer(int w, int h) {
+        if (_staticLayer == null || _staticLayer.getWidth() != w || _staticLayer.getHeight() != h || _layerVersion != _viewVersion) {
+            updateFrame(w, h);
+            _layerVersion = _viewVersion;
+            _staticLayer = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = _staticLayer.createGraphics();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, w, h);
+            drawBackGround(g);
+            drawGraph(g, w, h);
+            g.dispose();
+        }
+        return _staticLayer;
     }
 
-    private void updateFrame() {
-        Range rx = new Range(20, this.getWidth() - 20);
-        Range ry = new Range(this.getHeight() - 10, 150);
+    private void updateFrame(int w, int h) {
+        Range rx = new Range(20, w - 20);
+        Range ry = new Range(h - 10, 150);
         Range2D frame = new Range2D(rx, ry);
         directed_weighted_graph g = _ar.getGraph();
+        if (_w2f != null) {
+            _w2f.setFrame(frame); //Keep the zoom and pan.
+            return;
+        }
         _w2f = Arena.w2f(g, frame); //Receive a Range2Range object that is built of 2 Range2D's:
         //Range of graph and Range of frame.
     }
 
     /**
-     * This method add to make the frame running clean.
-     * Token from: https://www.youtube.com/watch?v=4T3WJEH7zrc&feature=youtu.be
-     *
-     * @param g-graphic.
+     * Mouse wheel zooms around the mouse, dragging pans, double click shows the whole graph.
      */
-    public void paint(Graphics g) {
-        dbImage = createImage(getWidth(), getHeight());
-        dbGraphic = dbImage.getGraphics();
-        paintComponent(dbGraphic);
-        g.drawImage(dbImage, 0, 0, this);
+    private void addViewControls() {
+        _canvas.addMouseWheelListener(e -> {
+            if (_w2f == null) return;
+            _w2f.zoom(Math.pow(1.15, -e.getPreciseWheelRotation()), new Point3D(e.getX(), e.getY()));
+            viewChanged();
+        });
+        MouseAdapter drag = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                _dragFrom = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (_w2f == null || _dragFrom == null) return;
+                _w2f.pan(e.getX() - _dragFrom.x, e.getY() - _dragFrom.y);
+                _dragFrom = e.getPoint();
+                viewChanged();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (_w2f == null || e.getClickCount() < 2) return;
+                _w2f.resetView();
+                viewChanged();
+            }
+        };
+        _canvas.addMouseListener(drag);
+        _canvas.addMouseMotionListener(drag);
+    }
+
+    private void viewChanged() {
+        _viewVersion++;
+        _exposed = true; //Render at the next timer tick, even without a new game frame.
     }
 
-    public void paintComponent(Graphics g) {
-        int w = this.getWidth();
-        int h = this.getHeight();
-        g.clearRect(0, 0, w, h);
-        drawBackGround(g);
-        drawPokemons(g);
-        drawGraph(g);
-        drawAgents(g);
-        drawInfo(g);
-        drawPanel(g);
+    /**
+     * Renders the latest frame, if there is a new one (or the canvas was uncovered).
+     * Called by the render timer on the Swing thread.
+     */
+    private void render() {
+        RenderFrame f = _latest.get();
+        boolean fresh = f != _painted;
+        int w = _canvas.getWidth(), h = _canvas.getHeight();
+        if ((!fresh && !_exposed) || w <= 0 || h <= 0 || !_canvas.isDisplayable() || _ar == null) return;
+        long start = System.nanoTime();
 
+        boolean full = _scene == null || _scene.getWidth() != w || _scene.getHeight() != h || _sceneVersion != _viewVersion;
+        if (_scene == null || _scene.getWidth() != w || _scene.getHeight() != h) _scene = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        _sceneVersion = _viewVersion;
+        if (fresh || full) updateScene(f, full, w, h);
+        _painted = f;
+        _exposed = false;
+        if (fresh && f != null) setTitle("Time left: " + f.getStatus().getTimeToEnd() / 1000 + " " + f.getStatus());
+
+        BufferStrategy strategy = _canvas.getBufferStrategy();
+        if (strategy == null) {
+            _canvas.createBufferStrategy(2);
+            strategy = _canvas.getBufferStrategy();
+        }
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                g.drawImage(_scene, 0, 0, null);
+                drawOverlay(g, h);
+                g.dispose();
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+
+        long nanos = System.nanoTime() - start;
+        _frameNanos = _frameNanos == 0 ? nanos : (_frameNanos * 7 + nanos) / 8;
+        _fpsCount++;
+        if (start - _fpsStart >= 1_000_000_000L) {
+            _fps = _fpsCount;
+            _fpsCount = 0;
+            _fpsStart = start;
+        }
     }
 
-    private void drawInfo(Graphics g) {
-        List<String> str = _ar.get_info();
+    /**
+     * Brings the scene image up to date with frame f.
+     * Only dirty regions are restored from the static layer and drawn again:
+     * actors of the last frame that are gone or moved, actors of this frame that are new or moved,
+     * the status panel and the info lines - and any actor overlapping those regions.
+     */
+    private void updateScene(RenderFrame f, boolean full, int w, int h) {
+        BufferedImage layer = staticLayer(w, h);
+        _next.clear();
+        if (f != null) collectActors(f, w, h);
+
+        _dirty.clear();
+        if (full) {
+            _drawnSet.clear();
+            _dirty.add(new Rectangle(0, 0, w, h));
+        } else {
+            _nextSet.clear();
+            _nextSet.addAll(_next);
+            for (Actor a : _drawn) if (!_nextSet.contains(a)) _dirty.add(a.bounds);
+            for (Actor a : _next) if (!_drawnSet.contains(a)) _dirty.add(a.bounds);
+            _dirty.add(PANEL_BOUNDS);
+            int lines = Math.max(_infoLines, f == null ? 0 : f.getInfo().size());
+            if (lines > 0) _dirty.add(new Rectangle(95, 40, w, lines * 20 + 5));
+        }
+        //An unchanged actor that overlaps a dirty region is erased with it, and must be drawn again.
+        boolean[] redraw = new boolean[_next.size()];
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (int i = 0; i < redraw.length; i++) {
+                if (!redraw[i] && intersectsDirty(_next.get(i).bounds)) {
+                    redraw[i] = true;
+                    _dirty.add(_next.get(i).bounds);
+                    grew = true;
+                }
+            }
+        }
+
+        Graphics2D g = _scene.createGraphics();
+        for (Rectangle r : _dirty) {
+            g.setClip(r);
+            g.drawImage(layer, 0, 0, null);
+        }
+        g.setClip(null);
+        for (int i = 0; i < redraw.length; i++) if (redraw[i]) _next.get(i).draw(g); //In order: pokemons, then agents on top.
+        if (f != null) {
+            drawInfo(g, f.getInfo());
+            drawPanel(g, f);
+            _infoLines = f.getInfo().size();
+        }
+        g.dispose();
+        _dirtyCount = _dirty.size();
+
+        List<Actor> t = _drawn;
+        _drawn = _next;
+        _next = t;
+        _drawnSet.clear();
+        _drawnSet.addAll(_drawn);
+    }
+
+    private boolean intersectsDirty(Rectangle r) {
+        for (Rectangle d : _dirty) if (d.intersects(r)) return true;
+        return false;
+    }
+
+    /**
+     * Builds the actors (pokemons, then agents) of a frame, in frame coordinates.
+     */
+    private void collectActors(RenderFrame f, int w, int h) {
+        loadSprites();
+        for (PokemonView p : f.getArena().getPokemons()) {
+            if (p.getPos() == null) continue;
+            int x = (int) _w2f.world2frameX(p.getPos().x()), y = (int) _w2f.world2frameY(p.getPos().y());
+            addIfVisible(new Actor(x, y, p.getValue(), pokemonImage(p.getValue())), w, h);
+        }
+        for (AgentView a : f.getArena().getAgents()) {
+            if (a.getPos() == null) continue;
+            int x = (int) _w2f.world2frameX(a.getPos().x()), y = (int) _w2f.world2frameY(a.getPos().y());
+            addIfVisible(new Actor(x, y, Double.NaN, _agentImg), w, h);
+        }
+    }
+
+    private void addIfVisible(Actor a, int w, int h) {
+        if (a.bounds.intersects(0, 0, w, h)) _next.add(a); //Zoomed or panned out of the window: not drawn.
+    }
+
+    /**
+     * Frames per second and frame time, drawn over the scene (and so never part of it).
+     */
+    private void drawOverlay(Graphics g, int h) {
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(5, h - 25, 260, 20);
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+        g.drawString(String.format(Locale.ROOT, "%3d fps  %5.2f ms/frame  %3d dirty", _fps, _frameNanos / 1e6, _dirtyCount), 10, h - 11);
+    }
+
+    private void drawInfo(Graphics g, List<String> str) {
         String dt = "none";
+        g.setColor(Color.BLACK);
         for (int i = 0; i < str.size(); i++) {
             g.drawString(str.get(i) + " dt: " + dt, 100, 60 + i * 20);
         }
 
     }
 
-    private void drawGraph(Graphics g) {
-        directed_weighted_graph gg = _ar.getGraph();
-        Iterator<node_data> iter = gg.getV().iterator();
-        while (iter.hasNext()) {
-            node_data n = iter.next();
-            g.setColor(Color.blue);
-            drawNode(n, 5, g);
-            Iterator<edge_data> itr = gg.getE(n.getKey()).iterator();
-            while (itr.hasNext()) {
-                edge_data e = itr.next();
-                g.setColor(Color.gray);
-                drawEdge(e, g);
-            }
+    /**
+     * Draws the nodes and edges inside the window.
+     * Node coordinates are converted in one batch (cached in _screenXY) when the window or the view changes,
+     * which is also the only time the static layer, and so this method, runs.
+     * Labels (node keys, edge weights) are drawn only if there are at least LABEL_AREA pixels per visible node,
+     * and weights only on edges long enough to hold them; with under DOT_AREA pixels per node, nodes are plain dots.
+     */
+    private void drawGraph(Graphics g, int w, int h) {
+        if (_index == null) {
+            _index = new GraphSpatialIndex(_ar.getGraph());
+            _screenXY = new int[2 * _index.nodeCount()];
+            _visibleNodes = new int[_index.nodeCount()];
+            _visibleEdges = new int[_index.edgeCount()];
         }
+        _w2f.world2frame(_index.getCoordinates(), _screenXY, _index.nodeCount());
+        geo_location a = _w2f.frame2world(new Point3D(0, 0)), b = _w2f.frame2world(new Point3D(w, h));
+        Range2D window = new Range2D(new Range(a.x(), b.x()), new Range(a.y(), b.y())); //The world shown in the whole window.
+        int nodes = _index.visibleNodes(window, _visibleNodes);
+        int edges = _index.visibleEdges(window, _visibleEdges);
+
+        double areaPerNode = (double) w * h / Math.max(1, nodes);
+        boolean labels = areaPerNode >= LABEL_AREA;
+        int r = areaPerNode >= DOT_AREA ? 5 : 1;
+        for (int i = 0; i < edges; i++) drawEdge(_visibleEdges[i], g, labels);
+        g.setColor(Color.blue);
+        for (int i = 0; i < nodes; i++) drawNode(_visibleNodes[i], r, g, labels);
     }
 
-    private void drawPokemons(Graphics g) {
-        List<Pokemon> fs = _ar.getPokemons();
-        if (fs != null) {
-            Iterator<Pokemon> itr = fs.iterator();
-
-            while (itr.hasNext()) {
-
-                Pokemon f = itr.next();
-                geo_location c = f.getLocation();
-                int r = 30;
-                Graphics2D g2 = (Graphics2D) g;
-                Toolkit tk = Toolkit.getDefaultToolkit();
-                Image lowValue = tk.getImage( "data\\images\\lowValue.jpg");
-                Image mediumValue = tk.getImage("data\\images\\mediumValue.jpg");
-                Image picatchu = tk.getImage("data\\images\\picatchu.jpg");
-                Image highValue = tk.getImage("data\\images\\highvalue.jpg");
-                Image img = lowValue;
-                if (f.getValue() <= 5)
-                    img = lowValue;
-                if (f.getValue() > 5 && f.getValue() <= 10)
-                    img = mediumValue;
-                if (f.getValue() > 10&& f.getValue()<15)
-                    img=picatchu;
-                if(f.getValue()>=15)
-                    img = highValue;
-                if (c != null) {
-                    geo_location fp = this._w2f.world2frame(c);
-                    g.setFont(new Font("",Font.BOLD,15));
-                    g.setColor(Color.BLACK);
-                    g2.drawString("value: " + f.getValue(), (int) fp.x()-40, (int) fp.y() +45);
-                    g2.drawImage(img, (int) fp.x() - r, (int) fp.y() - r, 2 * r, 2 * r, this);
-                }
-            }
-        }
+    private void loadSprites() {
+        if (_agentImg != null) return;
+        _agentImg = sprite("agent.jpg", 2 * AGENT_R, 2 * AGENT_R);
+        _lowValue = sprite("lowValue.jpg", 2 * POKEMON_R, 2 * POKEMON_R);
+        _mediumValue = sprite("mediumValue.jpg", 2 * POKEMON_R, 2 * POKEMON_R);
+        _picatchu = sprite("picatchu.jpg", 2 * POKEMON_R, 2 * POKEMON_R);
+        _highValue = sprite("highvalue.jpg", 2 * POKEMON_R, 2 * POKEMON_R);
+    }
+
+    private Image pokemonImage(double value) {
+        Image img = _lowValue;
+        if (value <= 5)
+            img = _lowValue;
+        if (value > 5 && value <= 10)
+            img = _mediumValue;
+        if (value > 10&& value<15)
+            img=_picatchu;
+        if(value>=15)
+            img = _highValue;
+        return img;
     }
 
-    private void drawAgents(Graphics g) {
-        List<Agent> rs = _ar.getAgents();
-        //	Iterator<OOP_Point3D> itr = rs.iterator();
-        g.setColor(Color.red);
-        int i = 0;
-        while (rs != null && i < rs.size()) {
-            geo_location c = rs.get(i).getLocation();
-            int r = 20;
-            Graphics2D g2 = (Graphics2D) g;
-            Toolkit tk = Toolkit.getDefaultToolkit();
-            Image agent = tk.getImage("data\\images\\agent.jpg");
-            i++;
-            if (c != null) {
+    /**
+     * One pokemon (with its value label) or agent, as drawn at a position of the frame.
+     * Two actors are equal if they look the same at the same place, so an equal actor
+     * in the next frame needs no drawing.
+     */
+    private static class Actor {
+        final int x, y;
+        final double value; //NaN for agents.
+        final Image img;
+        final Rectangle bounds;
 
-                geo_location fp = this._w2f.world2frame(c);
-                g2.drawImage(agent, (int) fp.x() - r, (int) fp.y() - r, 2 * r, 2 * r, this);
+        Actor(int x, int y, double value, Image img) {
+            this.x = x;
+            this.y = y;
+            this.value = value;
+            this.img = img;
+            bounds = Double.isNaN(value) ? new Rectangle(x - AGENT_R, y - AGENT_R, 2 * AGENT_R, 2 * AGENT_R)
+                    : new Rectangle(x - POKEMON_R - 12, y - POKEMON_R, 2 * POKEMON_R + 70, 2 * POKEMON_R + 22); //Image and label.
+        }
+
+        void draw(Graphics g) {
+            if (Double.isNaN(value)) {
+                g.drawImage(img, x - AGENT_R, y - AGENT_R, null);
+                return;
             }
+            g.setFont(LABEL_FONT);
+            g.setColor(Color.BLACK);
+            g.drawString("value: " + value, x - 40, y + 45);
+            g.drawImage(img, x - POKEMON_R, y - POKEMON_R, null);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Actor)) return false;
+            Actor a = (Actor) o;
+            return x == a.x && y == a.y && img == a.img && Double.compare(value, a.value) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * x + y) + Double.hashCode(value);
         }
     }
 
-    private void drawNode(node_data n, int r, Graphics g) {
-        geo_location pos = n.getLocation();
-        geo_location fp = this._w2f.world2frame(pos);
-        g.fillOval((int) fp.x() - r, (int) fp.y() - r, 2 * r, 2 * r);
-        g.drawString("" + n.getKey(), (int) fp.x(), (int) fp.y() - 4 * r);
+    private void drawNode(int n, int r, Graphics g, boolean label) {
+        int x = _screenXY[2 * n], y = _screenXY[2 * n + 1];
+        g.fillOval(x - r, y - r, 2 * r, 2 * r);
+        if (label) g.drawString("" + _index.node(n).getKey(), x, y - 4 * r);
     }
 
-    private void drawEdge(edge_data e, Graphics g) {
-        directed_weighted_graph gg = _ar.getGraph();
-        geo_location s = gg.getNode(e.getSrc()).getLocation();
-        geo_location d = gg.getNode(e.getDest()).getLocation();
-        geo_location s0 = this._w2f.world2frame(s);
-        geo_location d0 = this._w2f.world2frame(d);
+    private void drawEdge(int e, Graphics g, boolean label) {
+        int s = 2 * _index.edgeSrc(e), d = 2 * _index.edgeDest(e);
+        int sx = _screenXY[s], sy = _screenXY[s + 1], dx = _screenXY[d], dy = _screenXY[d + 1];
         g.setColor(Color.BLACK);
-        g.drawString("" + (int) e.getWeight(), (int) (s0.x()+d0.x())/2, (int) (s0.y()+d0.y())/2);
-        g.drawLine((int) s0.x(), (int) s0.y(), (int) d0.x(), (int) d0.y());
+        if (label && Math.hypot(dx - sx, dy - sy) >= MIN_LABELED_EDGE)
+            g.drawString("" + (int) _index.edge(e).getWeight(), (sx + dx) / 2, (sy + dy) / 2);
+        g.drawLine(sx, sy, dx, dy);
     }
-}
\ No newline at end of file
+}
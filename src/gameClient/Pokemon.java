@@ -1,9 +1,11 @@
 package gameClient;
 import api.EdgeData;
 import api.edge_data;
+import api.edge_location;
 import api.geo_location;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import gameClient.util.MutablePoint3D;
 import gameClient.util.Point3D;
 
 /**
@@ -15,9 +17,11 @@ import gameClient.util.Point3D;
  */
 public class Pokemon {
     private edge_data _edge;
+    private edge_location _edge_location; //Where exactly on _edge the pokemon is.
     private double _value;
     private int _type;
     private geo_location _pos;
+    private MutablePoint3D _mpos; //_pos once updated in place (see update()).
     private double min_dist;
     private int min_ro;
     private boolean isTracked;
@@ -67,11 +71,7 @@ public class Pokemon {
             JsonObject pocemonJson = pokeJson.getAsJsonObject("Pokemon");
 
             String pos = pocemonJson.get("pos").getAsString();
-            String[] posArr = pos.split(",");
-            double x = Double.parseDouble(posArr[0]);
-            double y = Double.parseDouble(posArr[1]);
-            double z = Double.parseDouble(posArr[2]);
-            geo_location location = new Point3D(x, y, z);
+            geo_location location = new Point3D(pos);
 
             value = pocemonJson.get("value").getAsDouble();
             type = pocemonJson.get("type").getAsInt();
@@ -83,6 +83,29 @@ public class Pokemon {
             return null;
         }
     }
+    /**
+     * Updates this pokemon in place from decoded json values (see GameJson): nothing is allocated.
+     * The pokemon is untracked again, as a new one would be. A pokemon that is still where it was
+     * keeps its edge, otherwise it forgets it (and needs EdgeMatcher.match()).
+     *
+     * @return true if the pokemon changed (position, type or value).
+     */
+    boolean update(int type, double value, double x, double y, double z) {
+        boolean changed = type != _type || value != _value || _pos != _mpos;
+        if (_mpos == null) _mpos = new MutablePoint3D();
+        changed |= _mpos.set(x, y, z);
+        _pos = _mpos;
+        _type = type;
+        _value = value;
+        if (changed) {
+            _edge = null;
+            _edge_location = null;
+        }
+        min_dist = -1;
+        min_ro = -1;
+        isTracked = false;
+        return changed;
+    }
     public String toString() {return "Pokemon:{v="+_value+", t="+_type+", pos="+_pos+" ,edge ="+_edge+" ,isTrack= "+ getIsTracked()+"}";}
     public edge_data get_edge() {
         return _edge;
@@ -92,6 +115,18 @@ public class Pokemon {
         this._edge = _edge;
     }
 
+    /**
+     * Returns the pokemon's exact position on its edge (see EdgeMatcher.match()),
+     * null if its edge is not known yet.
+     */
+    public edge_location get_edge_location() {
+        return _edge_location;
+    }
+
+    public void set_edge_location(edge_location location) {
+        this._edge_location = location;
+    }
+
     public geo_location getLocation() {
         return _pos;
     }
@@ -0,0 +1,159 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.game_service;
+
+/**
+ * This class wraps a game_service, and emits a GameEvents.ServerCall flight recorder event
+ * around every call (method, agent, node and response length), so a recording shows the time spent
+ * in the game server apart from the client's own work. It changes nothing else: every call
+ * is passed as is to the wrapped service.
+ */
+public class ProfiledGameService implements game_service {
+
+    private static final long serialVersionUID = 1L;
+
+    private final game_service game;
+
+    /**
+     * Constructor.
+     *
+     * @param game - the service to profile.
+     */
+    public ProfiledGameService(game_service game) {
+        this.game = game;
+    }
+
+    /**
+     * Returns the given service profiled, unless it already is.
+     */
+    public static game_service of(game_service game) {
+        return game instanceof ProfiledGameService ? game : new ProfiledGameService(game);
+    }
+
+    /**
+     * Returns the wrapped service.
+     */
+    public game_service getService() {
+        return game;
+    }
+
+    private static GameEvents.ServerCall begin() {
+        GameEvents.ServerCall event = new GameEvents.ServerCall();
+        event.begin();
+        return event;
+    }
+
+    private static void end(GameEvents.ServerCall event, String method, int agentId, int node, String response) {
+        if (!event.shouldCommit()) return;
+        event.method = method;
+        event.agentId = agentId;
+        event.node = node;
+        event.responseLength = response == null ? -1 : response.length();
+        event.commit();
+    }
+
+    @Override
+    public String getGraph() {
+        GameEvents.ServerCall event = begin();
+        String ans = game.getGraph();
+        end(event, "getGraph", -1, -1, ans);
+        return ans;
+    }
+
+    @Override
+    public directed_weighted_graph getJava_Graph_Not_to_be_used() {
+        return game.getJava_Graph_Not_to_be_used();
+    }
+
+    @Override
+    public String getPokemons() {
+        GameEvents.ServerCall event = begin();
+        String ans = game.getPokemons();
+        end(event, "getPokemons", -1, -1, ans);
+        return ans;
+    }
+
+    @Override
+    public String getAgents() {
+        GameEvents.ServerCall event = begin();
+        String ans = game.getAgents();
+        end(event, "getAgents", -1, -1, ans);
+        return ans;
+    }
+
+    @Override
+    public boolean addAgent(int start_node) {
+        GameEvents.ServerCall event = begin();
+        boolean ans = game.addAgent(start_node);
+        end(event, "addAgent", -1, start_node, null);
+        return ans;
+    }
+
+    @Override
+    public long startGame() {
+        GameEvents.ServerCall event = begin();
+        long ans = game.startGame();
+        end(event, "startGame", -1, -1, null);
+        return ans;
+    }
+
+    @Override
+    public boolean isRunning() {
+        GameEvents.ServerCall event = begin();
+        boolean ans = game.isRunning();
+        end(event, "isRunning", -1, -1, null);
+        return ans;
+    }
+
+    @Override
+    public long stopGame() {
+        GameEvents.ServerCall event = begin();
+        long ans = game.stopGame();
+        end(event, "stopGame", -1, -1, null);
+        return ans;
+    }
+
+    @Override
+    public long chooseNextEdge(int id, int next_node) {
+        GameEvents.ServerCall event = begin();
+        long ans = game.chooseNextEdge(id, next_node);
+        end(event, "chooseNextEdge", id, next_node, null);
+        return ans;
+    }
+
+    @Override
+    public long timeToEnd() {
+        GameEvents.ServerCall event = begin();
+        long ans = game.timeToEnd();
+        end(event, "timeToEnd", -1, -1, null);
+        return ans;
+    }
+
+    @Override
+    public String move() {
+        GameEvents.ServerCall event = begin();
+        String ans = game.move();
+        end(event, "move", -1, -1, ans);
+        return ans;
+    }
+
+    @Override
+    public boolean login(long id) {
+        GameEvents.ServerCall event = begin();
+        boolean ans = game.login(id);
+        end(event, "login", -1, -1, null);
+        return ans;
+    }
+
+    /**
+     * Returns the wrapped service's status json (see GameStatus), also as a server call.
+     */
+    @Override
+    public String toString() {
+        GameEvents.ServerCall event = begin();
+        String ans = game.toString();
+        end(event, "toString", -1, -1, ans);
+        return ans;
+    }
+}
@@ -0,0 +1,204 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.game_service;
+import gameClient.GameLog.Call;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class wraps a game_service, and writes every call and its response, with its time,
+ * to an append only game log (see GameLog), so a real game can later be played again,
+ * without the server, by a ReplayGameService.
+ * The log is flushed when the game ends (isRunning() answers false, or stopGame()), and by close().
+ * A log that cannot be written is reported once on System.err, the game itself goes on.
+ */
+public class RecordingGameService implements game_service, Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final game_service game;
+    private final DataOutputStream out;
+    private final String[] last = new String[Call.ALL.length]; //Last json result of each call.
+    private final long start = System.nanoTime();
+    private long lastMicros;
+    private boolean closed; //After close(), or after a write error.
+
+    /**
+     * Constructor.
+     *
+     * @param game - the service to record.
+     * @param out  - where to write the log (closed by close()).
+     * @throws IOException if the log header cannot be written.
+     */
+    public RecordingGameService(game_service game, OutputStream out) throws IOException {
+        this.game = game;
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(GameLog.MAGIC);
+        this.out.writeInt(GameLog.VERSION);
+    }
+
+    /**
+     * Constructor for a log file (overwritten if it exists).
+     *
+     * @param game - the service to record.
+     * @param file - the log file.
+     * @throws IOException if the file cannot be written.
+     */
+    public RecordingGameService(game_service game, String file) throws IOException {
+        this(game, new FileOutputStream(file));
+    }
+
+    /**
+     * Returns the wrapped service.
+     */
+    public game_service getService() {
+        return game;
+    }
+
+    private synchronized void record(Call call, long arg0, long arg1, String json, long value) {
+        if (closed) return;
+        try {
+            long micros = (System.nanoTime() - start) / 1000;
+            out.writeByte(call.ordinal());
+            GameLog.writeVarLong(out, Math.max(0, micros - lastMicros));
+            lastMicros = Math.max(lastMicros, micros);
+            if (call == Call.CHOOSE_NEXT_EDGE) {
+                GameLog.writeSigned(out, arg0);
+                GameLog.writeSigned(out, arg1);
+            } else if (call == Call.ADD_AGENT || call == Call.LOGIN) GameLog.writeSigned(out, arg0);
+            if (call.result == GameLog.Result.JSON) {
+                if (json == null) json = ""; //Replayed as an empty response.
+                if (json.equals(last[call.ordinal()])) out.writeByte(0);
+                else {
+                    out.writeByte(1);
+                    GameLog.writeString(out, json);
+                    last[call.ordinal()] = json;
+                }
+            } else if (call.result == GameLog.Result.LONG) GameLog.writeSigned(out, value);
+            else out.writeByte((int) value);
+        } catch (IOException e) {
+            closed = true;
+            System.err.println("Cannot record game: " + e);
+        }
+    }
+
+    private synchronized void flush() {
+        if (closed) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            closed = true;
+            System.err.println("Cannot record game: " + e);
+        }
+    }
+
+    @Override
+    public String getGraph() {
+        String ans = game.getGraph();
+        record(Call.GET_GRAPH, 0, 0, ans, 0);
+        return ans;
+    }
+
+    @Override
+    public directed_weighted_graph getJava_Graph_Not_to_be_used() {
+        return game.getJava_Graph_Not_to_be_used();
+    }
+
+    @Override
+    public String getPokemons() {
+        String ans = game.getPokemons();
+        record(Call.GET_POKEMONS, 0, 0, ans, 0);
+        return ans;
+    }
+
+    @Override
+    public String getAgents() {
+        String ans = game.getAgents();
+        record(Call.GET_AGENTS, 0, 0, ans, 0);
+        return ans;
+    }
+
+    @Override
+    public boolean addAgent(int start_node) {
+        boolean ans = game.addAgent(start_node);
+        record(Call.ADD_AGENT, start_node, 0, null, ans ? 1 : 0);
+        return ans;
+    }
+
+    @Override
+    public long startGame() {
+        long ans = game.startGame();
+        record(Call.START_GAME, 0, 0, null, ans);
+        return ans;
+    }
+
+    @Override
+    public boolean isRunning() {
+        boolean ans = game.isRunning();
+        record(Call.IS_RUNNING, 0, 0, null, ans ? 1 : 0);
+        if (!ans) flush();
+        return ans;
+    }
+
+    @Override
+    public long stopGame() {
+        long ans = game.stopGame();
+        record(Call.STOP_GAME, 0, 0, null, ans);
+        flush();
+        return ans;
+    }
+
+    @Override
+    public long chooseNextEdge(int id, int next_node) {
+        long ans = game.chooseNextEdge(id, next_node);
+        record(Call.CHOOSE_NEXT_EDGE, id, next_node, null, ans);
+        return ans;
+    }
+
+    @Override
+    public long timeToEnd() {
+        long ans = game.timeToEnd();
+        record(Call.TIME_TO_END, 0, 0, null, ans);
+        return ans;
+    }
+
+    @Override
+    public String move() {
+        String ans = game.move();
+        record(Call.MOVE, 0, 0, ans, 0);
+        return ans;
+    }
+
+    @Override
+    public boolean login(long id) {
+        boolean ans = game.login(id);
+        record(Call.LOGIN, id, 0, null, ans ? 1 : 0);
+        return ans;
+    }
+
+    /**
+     * Returns the wrapped service's status json (see GameStatus), and records it.
+     */
+    @Override
+    public String toString() {
+        String ans = game.toString();
+        record(Call.TO_STRING, 0, 0, ans, 0);
+        return ans;
+    }
+
+    /**
+     * Flushes and closes the log. Calls after close() are passed to the service, and no longer recorded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.close();
+    }
+}
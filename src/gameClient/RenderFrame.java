@@ -0,0 +1,37 @@
+package gameClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents everything MyFrame needs to draw one frame of the game:
+ * an immutable ArenaSnapshot, the parsed server status and the arena info lines,
+ * all taken by the game thread right after _game.move().
+ * The game thread publishes frames to MyFrame, which paints the latest one on its own schedule,
+ * so painting never reads the live Arena lists that the game loop replaces.
+ */
+public class RenderFrame {
+
+    private final ArenaSnapshot arena;
+    private final GameStatus status;
+    private final List<String> info;
+
+    /**
+     * Constructor.
+     *
+     * @param arena  - the arena at this tick.
+     * @param status - the game server status.
+     * @param info   - the arena's info lines (copied).
+     */
+    public RenderFrame(ArenaSnapshot arena, GameStatus status, List<String> info) {
+        this.arena = arena;
+        this.status = status;
+        this.info = info == null ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(new ArrayList<String>(info));
+    }
+
+    public ArenaSnapshot getArena() {return arena;}
+    public GameStatus getStatus() {return status;}
+    public List<String> getInfo() {return info;}
+}
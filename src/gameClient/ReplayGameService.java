@@ -0,0 +1,195 @@
+package gameClient;
+
+import api.game_service;
+import gameClient.GameLog.Call;
+import gameClient.GameLog.Record;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class is a game_service that plays a game log (see GameLog, RecordingGameService) back,
+ * without the game server: every call is answered with the recorded response of the same call,
+ * in the recorded order (the n-th move() gets the response of the n-th recorded move(), and so on).
+ * It does not look at the clock, so a replay gives the same responses however fast it is played,
+ * and the same game can be replayed any number of times (see fresh()), which makes it a fixed
+ * input for benchmarking json parsing and planning on real games.
+ *
+ * Calls that change the game (addAgent, chooseNextEdge) are answered from the log but change nothing:
+ * the replayed game is the recorded one, whatever the client decides. Calls whose arguments differ
+ * from the recorded ones are counted (getMismatches()), a client deciding as the recorded one has none.
+ * Once a call's records are used up, isRunning() answers false, timeToEnd() 0,
+ * json calls repeat their last response, and other calls answer false / 0.
+ */
+public class ReplayGameService implements game_service {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Record[] records;
+    private final int[][] byCall; //Call ordinal --> indices (in records) of its records, in order.
+    private final int[] played = new int[Call.ALL.length]; //Call ordinal --> records of the call served so far.
+    private int mismatches;
+
+    /**
+     * Constructor.
+     *
+     * @param in - a game log (read to its end, not closed).
+     * @throws IOException if the stream is not a game log.
+     */
+    public ReplayGameService(InputStream in) throws IOException {
+        this(GameLog.read(new DataInputStream(in)));
+    }
+
+    /**
+     * Constructor for a log file.
+     *
+     * @param file - the game log file.
+     * @throws IOException if the file cannot be read or is not a game log.
+     */
+    public ReplayGameService(String file) throws IOException {
+        this(read(file));
+    }
+
+    private ReplayGameService(Record[] records) {
+        this.records = records;
+        byCall = index(records);
+    }
+
+    private static Record[] read(String file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            return GameLog.read(new DataInputStream(in));
+        }
+    }
+
+    private static int[][] index(Record[] records) {
+        int[] counts = new int[Call.ALL.length];
+        for (Record r : records) counts[r.call.ordinal()]++;
+        int[][] byCall = new int[Call.ALL.length][];
+        for (int c = 0; c < byCall.length; c++) byCall[c] = new int[counts[c]];
+        int[] filled = new int[Call.ALL.length];
+        for (int i = 0; i < records.length; i++) {
+            int c = records[i].call.ordinal();
+            byCall[c][filled[c]++] = i;
+        }
+        return byCall;
+    }
+
+    /**
+     * Returns a new replay of the same log, from its start (the log is read only once).
+     */
+    public ReplayGameService fresh() {
+        return new ReplayGameService(records);
+    }
+
+    /**
+     * Returns the number of recorded calls.
+     */
+    public int size() {
+        return records.length;
+    }
+
+    /**
+     * Returns the number of recorded move() calls.
+     */
+    public int getMoves() {
+        return byCall[Call.MOVE.ordinal()].length;
+    }
+
+    /**
+     * Returns the number of addAgent / chooseNextEdge / login calls made with other arguments than the recorded ones.
+     */
+    public synchronized int getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * Returns the next record of a call, null if they are used up.
+     */
+    private Record next(Call call) {
+        int[] indices = byCall[call.ordinal()];
+        int i = played[call.ordinal()];
+        if (i == indices.length) return null;
+        played[call.ordinal()]++;
+        return records[indices[i]];
+    }
+
+    private synchronized String json(Call call) {
+        Record r = next(call);
+        if (r != null) return r.json;
+        int[] indices = byCall[call.ordinal()];
+        return indices.length == 0 ? null : records[indices[indices.length - 1]].json;
+    }
+
+    private synchronized long value(Call call, long arg0, long arg1) {
+        Record r = next(call);
+        if (r == null) return 0;
+        if (r.arg0 != arg0 || r.arg1 != arg1) mismatches++;
+        return r.value;
+    }
+
+    @Override
+    public String getGraph() {
+        return json(Call.GET_GRAPH);
+    }
+
+    @Override
+    public String getPokemons() {
+        return json(Call.GET_POKEMONS);
+    }
+
+    @Override
+    public String getAgents() {
+        return json(Call.GET_AGENTS);
+    }
+
+    @Override
+    public boolean addAgent(int start_node) {
+        return value(Call.ADD_AGENT, start_node, 0) != 0;
+    }
+
+    @Override
+    public long startGame() {
+        return value(Call.START_GAME, 0, 0);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return value(Call.IS_RUNNING, 0, 0) != 0;
+    }
+
+    @Override
+    public long stopGame() {
+        return value(Call.STOP_GAME, 0, 0);
+    }
+
+    @Override
+    public long chooseNextEdge(int id, int next_node) {
+        return value(Call.CHOOSE_NEXT_EDGE, id, next_node);
+    }
+
+    @Override
+    public long timeToEnd() {
+        return value(Call.TIME_TO_END, 0, 0);
+    }
+
+    @Override
+    public String move() {
+        return json(Call.MOVE);
+    }
+
+    @Override
+    public boolean login(long id) {
+        return value(Call.LOGIN, id, 0) != 0;
+    }
+
+    /**
+     * Returns the recorded status json (see GameStatus).
+     */
+    @Override
+    public String toString() {
+        return json(Call.TO_STRING);
+    }
+}
@@ -0,0 +1,393 @@
+package gameClient;
+
+import api.edge_data;
+import api.edge_location;
+import gameClient.ArenaSnapshot.AgentView;
+import gameClient.ArenaSnapshot.PokemonView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * A Monte Carlo planner for all agents together.
+ * Every tick, within a hard time budget, it plays random rollouts of the near future:
+ * agents repeatedly pick a next pokemon to visit (favouring high value and short travel time),
+ * taking into account which pokemons other agents have already taken in the same rollout.
+ * The rollout with the best total (time discounted) value wins, and each agent heads
+ * towards the first pokemon of its sequence in that rollout.
+ *
+ * Rollouts run on all cores: the game thread plus a pool of daemon worker threads.
+ * They only read the RoutingTable arrays and per-tick arrays filled before the workers start,
+ * and write into arrays preallocated per worker, so a rollout allocates nothing.
+ * A worker that misses the end of its tick is left to stop on its own: it is handed no new tick
+ * until it has, and the input it reads is not reused meanwhile. close() stops the worker threads.
+ * The first rollout of the game thread is greedy (always the best ratio), so there is
+ * always a plan even if the budget is too small for any random rollout.
+ *
+ * Tuning (system properties): planner.budget.ms (default 15), planner.horizon.s (default 10),
+ * planner.threads (default: number of cores).
+ */
+public class RolloutStrategy implements Strategy {
+
+    private static final double EPS = 1e-6;
+
+    private final long budgetNanos = Long.getLong("planner.budget.ms", 15) * 1_000_000L;
+    private final double maxHorizon = Double.parseDouble(System.getProperty("planner.horizon.s", "10"));
+    private final int threads = Math.max(1, Integer.getInteger("planner.threads", Runtime.getRuntime().availableProcessors()));
+
+    private final GreedyRatioStrategy initial = new GreedyRatioStrategy(); //Used to locate the agents.
+    private ExecutorService pool;
+    private Worker[] workers;
+    private Future<?>[] futures; //Of the workers handed the current tick, null for those left out.
+    private final List<Input> inputs = new ArrayList<Input>(); //Reused from tick to tick, see freeInput().
+    private TravelTimeModel times;
+    private volatile long tick;
+
+    /**
+     * The input of one tick: written by the game thread before the workers start, read-only while they run.
+     * A late worker (whose result is ignored) may go on reading its tick's input for a while,
+     * so the next ticks are prepared in other Inputs (see freeInput()).
+     */
+    private static final class Input {
+        long tick;
+        RoutingTable routes;
+        int agentCount, pokemonCount;
+        int[] agentNode; //Node index each agent starts planning from (see TravelTimeModel).
+        double[] agentDelay; //Seconds until the agent reaches agentNode.
+        double[] agentSpeed;
+        int[] pokeSrc, pokeDest; //Node indices of each pokemon's edge.
+        double[] pokeValue, pokeEdgeTime; //pokeEdgeTime is the edge weight (divided by speed when used).
+        double[] pokeRatio; //Where on its edge the pokemon is (edge_location ratio).
+        double[] pokeAhead; //Seconds until an agent already moving on the pokemon's edge catches it, -1 if none.
+        double horizon; //Seconds ahead to plan.
+        long deadline; //System.nanoTime() after which no rollout may start.
+    }
+
+    @Override
+    public int[] initialNodes(ArenaSnapshot snapshot, int agents) {
+        return initial.initialNodes(snapshot, agents);
+    }
+
+    @Override
+    public void decide(ArenaSnapshot snapshot, int[] nextNode, int[] target) {
+        long deadline = System.nanoTime() + budgetNanos;
+        if (pool == null) startPool();
+        Input in = freeInput();
+        in.deadline = deadline;
+        prepare(snapshot, in);
+        in.tick = ++tick; //Late workers of earlier ticks see the new tick, and stop.
+
+        //Hand the tick to the idle workers (a late one still running sits this tick out),
+        //and plan on the game thread as well (worker 0).
+        for (int w = 1; w < workers.length; w++) {
+            futures[w] = null;
+            if (workers[w].busy) continue;
+            workers[w].start(in);
+            futures[w] = pool.submit(workers[w]);
+        }
+        workers[0].start(in);
+        workers[0].call();
+
+        Worker best = workers[0];
+        for (int w = 1; w < workers.length; w++) {
+            if (futures[w] == null) continue;
+            try {
+                futures[w].get(Math.max(0, in.deadline - System.nanoTime()) + 1_000_000L, TimeUnit.NANOSECONDS);
+                if (workers[w].resultTick == in.tick && workers[w].bestScore > best.bestScore) best = workers[w];
+            } catch (TimeoutException e) {
+                //Late worker: its result is ignored, the game loop does not wait (it stops after its rollout).
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+        }
+
+        List<AgentView> agents = snapshot.getAgents();
+        for (int i = 0; i < agents.size(); i++) {
+            AgentView ag = agents.get(i);
+            int p = best.bestFirst[i];
+            target[i] = p;
+            if (ag.isMoving()) nextNode[i] = -1; //The server only accepts a next edge on a node.
+            else if (p >= 0) nextNode[i] = nextNodeTowards(in, in.routes.index(ag.getSrc()), p);
+            else nextNode[i] = fallbackNode(snapshot, ag.getSrc());
+        }
+    }
+
+    /**
+     * Stops the worker threads, the strategy cannot decide afterwards.
+     */
+    @Override
+    public void close() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    /**
+     * Returns the key of the next node to go to from node index u, inorder to catch pokemon p.
+     */
+    private static int nextNodeTowards(Input in, int u, int p) {
+        if (u == in.pokeSrc[p]) return in.routes.key(in.pokeDest[p]); // Catch the pokemon
+        int hop = in.routes.nextHop(u, in.pokeSrc[p]);
+        return hop < 0 ? in.routes.key(in.pokeDest[p]) : in.routes.key(hop);
+    }
+
+    /**
+     * Nothing worth going for within the horizon: keep moving along the lightest out going edge.
+     */
+    private static int fallbackNode(ArenaSnapshot snapshot, int from) {
+        double min = Double.MAX_VALUE;
+        int ans = -1;
+        for (edge_data e : snapshot.getGraph().getE(from)) {
+            if (e.getWeight() < min) {
+                ans = e.getDest();
+                min = e.getWeight();
+            }
+        }
+        return ans;
+    }
+
+    private void startPool() {
+        pool = Executors.newFixedThreadPool(Math.max(1, threads - 1), r -> {
+            Thread t = new Thread(r, "rollout-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        workers = new Worker[threads];
+        futures = new Future<?>[threads];
+        for (int w = 0; w < threads; w++) workers[w] = new Worker(w, 0x9E3779B97F4A7C15L * (w + 1));
+    }
+
+    /**
+     * Returns an input no late worker is reading, a new one if there is none
+     * (so there are at most as many inputs as workers).
+     */
+    private Input freeInput() {
+        for (Input in : inputs) {
+            boolean read = false;
+            for (Worker w : workers) read |= w.busy && w.in == in;
+            if (!read) return in;
+        }
+        Input in = new Input();
+        inputs.add(in);
+        return in;
+    }
+
+    /**
+     * Copies the snapshot into the flat arrays of a tick's input, growing them when needed.
+     */
+    private void prepare(ArenaSnapshot snapshot, Input in) {
+        RoutingTable routes = snapshot.getRoutes();
+        List<AgentView> agents = snapshot.getAgents();
+        List<PokemonView> pokemons = snapshot.getPokemons();
+        in.routes = routes;
+        in.agentCount = agents.size();
+
+        if (in.agentNode == null || in.agentNode.length < in.agentCount) {
+            in.agentNode = new int[in.agentCount];
+            in.agentDelay = new double[in.agentCount];
+            in.agentSpeed = new double[in.agentCount];
+        }
+        if (in.pokeSrc == null || in.pokeSrc.length < pokemons.size()) {
+            int size = Math.max(pokemons.size(), 16);
+            in.pokeSrc = new int[size];
+            in.pokeDest = new int[size];
+            in.pokeValue = new double[size];
+            in.pokeEdgeTime = new double[size];
+            in.pokeRatio = new double[size];
+            in.pokeAhead = new double[size];
+        }
+
+        if (times == null) times = new TravelTimeModel(routes);
+        times.update(snapshot);
+        for (int a = 0; a < in.agentCount; a++) { //A moving agent plans from the end of its edge.
+            in.agentNode[a] = times.origin(a);
+            in.agentDelay[a] = times.delay(a);
+            in.agentSpeed[a] = times.speed(a);
+        }
+
+        in.pokemonCount = 0;
+        for (int p = 0; p < pokemons.size(); p++) {
+            edge_data e = pokemons.get(p).getEdge();
+            //Pokemons are indexed as in the snapshot, an unknown edge is kept but never chosen.
+            in.pokeSrc[p] = e == null ? -1 : routes.index(e.getSrc());
+            in.pokeDest[p] = e == null ? -1 : routes.index(e.getDest());
+            in.pokeValue[p] = pokemons.get(p).getValue();
+            in.pokeEdgeTime[p] = e == null ? 0 : e.getWeight();
+            edge_location l = pokemons.get(p).getEdgeLocation();
+            in.pokeRatio[p] = l == null ? 1 : l.getRatio();
+            in.pokeAhead[p] = -1;
+            if (l != null) //An agent moving along the pokemon's edge, before it, catches it for sure.
+                for (int a = 0; a < in.agentCount; a++) {
+                    double t = times.timeTo(a, l);
+                    if (t < times.delay(a) && (in.pokeAhead[p] < 0 || t < in.pokeAhead[p])) in.pokeAhead[p] = t;
+                }
+            in.pokemonCount++;
+        }
+        in.horizon = Math.min(maxHorizon, snapshot.getTimeToEnd() / 1000.0);
+    }
+
+    /**
+     * One rollout worker. All its state is preallocated, call() only reads its tick's input
+     * and writes its own best plan. A busy worker is handed no new tick (see decide()),
+     * so its arrays are never used by two runs at once.
+     */
+    private class Worker implements Callable<Void> {
+        private final int id;
+        private long seed;
+        private boolean[] taken;
+        private double[] weight, clock;
+        private int[] loc, first;
+        private boolean[] active;
+        private Input in; //The tick being planned.
+        double bestScore;
+        int[] bestFirst;
+        volatile long resultTick;
+        volatile boolean busy; //From start() until call() returns, even after its future was cancelled.
+
+        Worker(int id, long seed) {
+            this.id = id;
+            this.seed = seed;
+        }
+
+        /**
+         * Hands the (idle) worker a tick, growing its arrays when needed.
+         */
+        void start(Input in) {
+            this.in = in;
+            int agents = in.agentCount, pokemons = in.pokeSrc.length;
+            if (first == null || first.length < agents) {
+                clock = new double[agents];
+                loc = new int[agents];
+                first = new int[agents];
+                bestFirst = new int[agents];
+                active = new boolean[agents];
+            }
+            if (taken == null || taken.length < pokemons) {
+                taken = new boolean[pokemons];
+                weight = new double[pokemons];
+            }
+            busy = true;
+        }
+
+        @Override
+        public Void call() {
+            try {
+                Input in = this.in;
+                bestScore = -1;
+                for (int a = 0; a < in.agentCount; a++) bestFirst[a] = -1;
+
+                boolean greedy = id == 0; //The game thread starts with one greedy rollout.
+                do {
+                    double score = rollout(in, greedy);
+                    greedy = false;
+                    if (score > bestScore) {
+                        bestScore = score;
+                        System.arraycopy(first, 0, bestFirst, 0, in.agentCount);
+                    }
+                } while (System.nanoTime() < in.deadline && tick == in.tick && !Thread.currentThread().isInterrupted());
+                if (tick == in.tick) resultTick = in.tick;
+                return null;
+            } finally {
+                busy = false;
+            }
+        }
+
+        /**
+         * Plays one future: the agent whose clock is earliest picks its next pokemon,
+         * until no agent can reach any free pokemon within the in.horizon.
+         *
+         * @param in     - the tick's input.
+         * @param greedy - pick the best candidate instead of a random one.
+         * @return the total value collected, discounted by time of catch.
+         */
+        private double rollout(Input in, boolean greedy) {
+            double score = 0;
+            int n = in.routes.size();
+            for (int p = 0; p < in.pokemonCount; p++) {
+                taken[p] = in.pokeSrc[p] < 0 || in.pokeAhead[p] >= 0;
+                if (in.pokeAhead[p] >= 0) score += in.pokeValue[p] * discount(in, in.pokeAhead[p]);
+            }
+            int activeCount = 0;
+            for (int a = 0; a < in.agentCount; a++) {
+                clock[a] = in.agentDelay[a];
+                loc[a] = in.agentNode[a];
+                first[a] = -1;
+                active[a] = loc[a] >= 0;
+                if (active[a]) activeCount++;
+            }
+
+            while (activeCount > 0) {
+                int a = -1;
+                for (int i = 0; i < in.agentCount; i++)
+                    if (active[i] && (a < 0 || clock[i] < clock[a])) a = i;
+
+                //Score every free pokemon for agent a.
+                double total = 0, bestW = 0;
+                int bestP = -1;
+                for (int p = 0; p < in.pokemonCount; p++) {
+                    weight[p] = 0;
+                    if (taken[p]) continue;
+                    double d = in.routes.dist(loc[a], in.pokeSrc[p]);
+                    if (d == RoutingTable.NO_PATH) continue;
+                    double travel = (d + in.pokeRatio[p] * in.pokeEdgeTime[p]) / in.agentSpeed[a]; //To the pokemon itself.
+                    if (clock[a] + travel > in.horizon) continue;
+                    double w = in.pokeValue[p] / (travel + EPS);
+                    w *= w; //Sharpen: prefer clearly better candidates.
+                    weight[p] = w;
+                    total += w;
+                    if (w > bestW) {
+                        bestW = w;
+                        bestP = p;
+                    }
+                }
+                if (bestP < 0) {
+                    active[a] = false;
+                    activeCount--;
+                    continue;
+                }
+
+                int chosen = bestP;
+                if (!greedy) { //Roulette wheel selection.
+                    double r = nextDouble() * total;
+                    for (int p = 0; p < in.pokemonCount; p++) {
+                        r -= weight[p];
+                        if (weight[p] > 0 && r <= 0) {
+                            chosen = p;
+                            break;
+                        }
+                    }
+                }
+
+                double edgeStart = clock[a] + in.routes.dist(loc[a], in.pokeSrc[chosen]) / in.agentSpeed[a];
+                clock[a] = edgeStart + in.pokeEdgeTime[chosen] / in.agentSpeed[a];
+                loc[a] = in.pokeDest[chosen];
+                if (first[a] < 0) first[a] = chosen;
+                for (int p = 0; p < in.pokemonCount; p++) { //Passing the edge catches every pokemon on it, each at its own point.
+                    if (!taken[p] && in.pokeSrc[p] == in.pokeSrc[chosen] && in.pokeDest[p] == in.pokeDest[chosen]) {
+                        taken[p] = true;
+                        score += in.pokeValue[p] * discount(in, edgeStart + in.pokeRatio[p] * in.pokeEdgeTime[p] / in.agentSpeed[a]);
+                    }
+                }
+            }
+            return score;
+        }
+
+        /**
+         * Sooner is better, the future is uncertain.
+         */
+        private double discount(Input in, double catchTime) {
+            return 1 - 0.5 * catchTime / (in.horizon + EPS);
+        }
+
+        /**
+         * xorshift64* - a fast, allocation free random in [0,1).
+         */
+        private double nextDouble() {
+            seed ^= seed >>> 12;
+            seed ^= seed << 25;
+            seed ^= seed >>> 27;
+            return ((seed * 0x2545F4914F6CDD1DL) >>> 11) * 0x1.0p-53;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package gameClient;
+
+import api.DWGraph_DS;
+import api.directed_weighted_graph;
+import api.dw_graph_algorithms;
+import api.edge_data;
+import api.edge_location;
+import api.node_data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class holds all shortest paths of a game graph, from every node to every other node,
+ * and the total distance of each path.
+ * The tables are computed once when the game starts and never change afterwards,
+ * so a RoutingTable can be shared freely between the game loop and strategies.
+ *
+ * Nodes are given dense indices [0, size()), and the tables are stored as flat arrays:
+ * dist(i, j) is the distance from node index i to node index j, and nextHop(i, j) is the
+ * index of the node following i on that path. Reading them never allocates, which is what
+ * planners that evaluate many plans per tick need. Lists of node_data are built on demand.
+ *
+ * The tables of a game graph can be persisted (see of()): they are written to a cache directory,
+ * in a file named by the graph's structural fingerprint (DWGraph_DS.fingerprint()), and later games
+ * on the same graph memory map that file instead of computing them again.
+ * Cache file layout (little endian): int magic ("DWRT"), int version, int n, int 0, long fingerprint,
+ * double[n*n] dist, int[n*n] next, int[n] node keys (the index order).
+ */
+public class RoutingTable {
+
+    public static final double NO_PATH = Double.POSITIVE_INFINITY;
+
+    private static final int MAGIC = 'D' | 'W' << 8 | 'R' << 16 | 'T' << 24;
+    private static final int VERSION = 2;
+    private static final int HEADER = 24;
+    /** Cache directory (system property routes.cache), "none" turns the cache off. */
+    private static final String CACHE_DIR = System.getProperty("routes.cache",
+            System.getProperty("java.io.tmpdir") + File.separator + "ex2-routes");
+
+    private directed_weighted_graph graph;
+    private int n;
+    private int[] keys; //index --> node key.
+    private int[] indexByKey; //node key --> index, for small non-negative keys (the usual case).
+    private HashMap<Integer, Integer> indexMap; //node key --> index, used if keys are too sparse for indexByKey.
+    private DoubleBuffer dist; //n*n, NO_PATH if unreachable. An array, or a mapped cache file.
+    private IntBuffer next; //n*n, -1 if unreachable or i == j.
+
+    /**
+     * Computes all shortest paths (and their distances) of the graph held by graphAlgo.
+     *
+     * @param graphAlgo - the algorithms object holding the game graph.
+     */
+    public RoutingTable(dw_graph_algorithms graphAlgo) {
+        GameEvents.Routing event = new GameEvents.Routing();
+        event.begin();
+        graph = graphAlgo.getGraph();
+        keys = new int[graph.nodeSize()];
+        int i = 0;
+        for (node_data node : graph.getV()) keys[i++] = node.getKey();
+        indexNodes();
+        double[] d = new double[n * n];
+        int[] hop = new int[n * n];
+        calcAllPaths(d, hop);
+        dist = DoubleBuffer.wrap(d);
+        next = IntBuffer.wrap(hop);
+        commit(event, false);
+    }
+
+    /**
+     * Reads the tables of a graph from a mapped cache file.
+     *
+     * @throws IOException if the file does not hold the tables of this graph.
+     */
+    private RoutingTable(directed_weighted_graph graph, long fingerprint, ByteBuffer file) throws IOException {
+        GameEvents.Routing event = new GameEvents.Routing();
+        event.begin();
+        this.graph = graph;
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        n = graph.nodeSize();
+        if (file.capacity() != fileSize(n) || file.getInt(0) != MAGIC || file.getInt(4) != VERSION || file.getInt(8) != n
+                || file.getLong(16) != fingerprint)
+            throw new IOException("Not a routing table of this graph");
+        keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = file.getInt(Math.toIntExact(HEADER + 12L * n * n + 4L * i));
+            if (graph.getNode(keys[i]) == null) throw new IOException("Not a routing table of this graph");
+        }
+        indexNodes();
+        dist = slice(file, HEADER, 8L * n * n).asDoubleBuffer();
+        next = slice(file, HEADER + 8L * n * n, 4L * n * n).asIntBuffer();
+        commit(event, true);
+    }
+
+    private void commit(GameEvents.Routing event, boolean cached) {
+        if (!event.shouldCommit()) return;
+        event.nodes = n;
+        event.edges = graph.edgeSize();
+        event.cached = cached;
+        event.commit();
+    }
+
+    /**
+     * Returns the routing table of a game graph, from the cache directory if it was computed before
+     * (the file is memory mapped, nothing is computed), otherwise computes it and stores it there.
+     * The cache is only an optimization: if it cannot be read or written, the table is just computed
+     * (a failed write is reported on System.err). Graphs whose file would not fit in one mapped buffer
+     * (2 GB, about 13000 nodes) are not cached.
+     *
+     * @param graphAlgo - the algorithms object holding the game graph.
+     * @return the table.
+     */
+    public static RoutingTable of(dw_graph_algorithms graphAlgo) {
+        if (CACHE_DIR.isEmpty() || CACHE_DIR.equals("none") || fileSize(graphAlgo.getGraph().nodeSize()) > Integer.MAX_VALUE)
+            return new RoutingTable(graphAlgo);
+        long fingerprint = DWGraph_DS.fingerprint(graphAlgo.getGraph());
+        Path file = new File(CACHE_DIR, String.format("%016x.routes", fingerprint)).toPath();
+        if (Files.isRegularFile(file)) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new RoutingTable(graphAlgo.getGraph(), fingerprint, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+            } catch (IOException e) {
+                //Damaged or foreign file: compute the table, and replace the file.
+            }
+        }
+        RoutingTable table = new RoutingTable(graphAlgo);
+        try {
+            table.write(file, fingerprint);
+        } catch (IOException e) {
+            System.err.println("Cannot cache routing table to " + file + ": " + e);
+        }
+        return table;
+    }
+
+    /**
+     * Writes the tables to a cache file. The file is written aside and then moved in place,
+     * so concurrent games (BatchRunner runs several JVMs) never see a partial file.
+     */
+    private void write(Path file, long fingerprint) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), "routes", ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(n));
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0).putLong(fingerprint);
+                slice(buf, HEADER, 8L * n * n).asDoubleBuffer().put(dist.duplicate());
+                slice(buf, HEADER + 8L * n * n, 4L * n * n).asIntBuffer().put(next.duplicate());
+                slice(buf, HEADER + 12L * n * n, 4L * n).asIntBuffer().put(keys);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Returns the size of the cache file of a graph of n nodes (in long: it passes 2 GB at about 13000 nodes).
+     */
+    private static long fileSize(int n) {
+        return HEADER + 12L * n * n + 4L * n;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buf, long from, long length) {
+        ByteBuffer b = buf.duplicate();
+        b.position(Math.toIntExact(from)).limit(Math.toIntExact(from + length));
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Number of nodes (indices) in this table.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the dense index of a node key.
+     *
+     * @param key - node key.
+     * @return the index, -1 if the node is not in the graph.
+     */
+    public int index(int key) {
+        if (indexByKey != null) return key >= 0 && key < indexByKey.length ? indexByKey[key] : -1;
+        Integer i = indexMap.get(key);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the node key of a dense index.
+     */
+    public int key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Distance between two node indices, NO_PATH if there is no path.
+     */
+    public double dist(int i, int j) {
+        return dist.get(i * n + j);
+    }
+
+    /**
+     * Index of the node following i on the shortest path from i to j,
+     * -1 if there is no such path or i == j.
+     */
+    public int nextHop(int i, int j) {
+        return next.get(i * n + j);
+    }
+
+    /**
+     * Distance from node index i to a point in the middle of an edge:
+     * to the edge's src, then the part of the edge before the point.
+     *
+     * @param i   - node index.
+     * @param loc - location on an edge of this graph.
+     * @return the distance, NO_PATH if the edge cannot be reached.
+     */
+    public double dist(int i, edge_location loc) {
+        int src = index(loc.getEdge().getSrc());
+        if (src < 0 || dist.get(i * n + src) == NO_PATH) return NO_PATH;
+        return dist.get(i * n + src) + loc.getRatio() * loc.getEdge().getWeight();
+    }
+
+    /**
+     * Returns the shortest path from node src to a point in the middle of an edge:
+     * src-->...-->edge.src-->edge.dest (the edge must be passed to get to the point).
+     *
+     * @param src - start node.
+     * @param loc - location on an edge of this graph.
+     * @return the path, or null if there is no such path.
+     */
+    public List<node_data> getPath(int src, edge_location loc) {
+        List<node_data> path = getPath(src, loc.getEdge().getSrc());
+        if (path == null) return null;
+        if (path.isEmpty()) path.add(graph.getNode(src));
+        path.add(graph.getNode(loc.getEdge().getDest()));
+        return path;
+    }
+
+    /**
+     * Returns the shortest path from src to dest, as a list of nodes src-->...-->dest.
+     * The path from a node to itself is an empty list.
+     *
+     * @param src  - start node.
+     * @param dest - end node.
+     * @return the path, or null if there is no such path.
+     */
+    public List<node_data> getPath(int src, int dest) {
+        int i = index(src), j = index(dest);
+        if (i < 0 || j < 0) return null;
+        List<node_data> path = new LinkedList<node_data>();
+        if (i == j) return path;
+        if (next.get(i * n + j) < 0) return null;
+
+        path.add(graph.getNode(src));
+        while (i != j) {
+            i = next.get(i * n + j);
+            path.add(graph.getNode(keys[i]));
+        }
+        return path;
+    }
+
+    /**
+     * Returns the total weight of the shortest path from src to dest.
+     *
+     * @param src  - start node.
+     * @param dest - end node.
+     * @return the distance, or -1 if there is no such path.
+     */
+    public double getDist(int src, int dest) {
+        int i = index(src), j = index(dest);
+        if (i < 0 || j < 0 || dist.get(i * n + j) == NO_PATH) return -1;
+        return dist.get(i * n + j);
+    }
+
+    /**
+     * Gives every node a dense index, its position in keys.
+     */
+    private void indexNodes() {
+        n = keys.length;
+        int i, maxKey = -1;
+        boolean negative = false;
+        for (int key : keys) {
+            maxKey = Math.max(maxKey, key);
+            negative |= key < 0;
+        }
+        if (!negative && maxKey < 8 * n + 1024) {
+            indexByKey = new int[maxKey + 1];
+            Arrays.fill(indexByKey, -1);
+            for (i = 0; i < n; i++) indexByKey[keys[i]] = i;
+        } else {
+            indexMap = new HashMap<Integer, Integer>();
+            for (i = 0; i < n; i++) indexMap.put(keys[i], i);
+        }
+    }
+
+    /**
+     * This method computes and stores all shortest paths from
+     * all nodes on the graph to all others:
+     * one Dijkstra run per source node, over an array copy of the graph's adjacency.
+     * @Runtime: O(|V| * (|V|+|E|) * log|E|).
+     */
+    private void calcAllPaths(double[] dist, int[] next) {
+        //Adjacency in CSR form: out edges of index i are [start[i], start[i+1]).
+        int[] start = new int[n + 1];
+        for (int i = 0; i < n; i++) start[i + 1] = start[i] + graph.getE(keys[i]).size();
+        int[] adj = new int[start[n]];
+        double[] w = new double[start[n]];
+        for (int i = 0; i < n; i++) {
+            int k = start[i];
+            for (edge_data e : graph.getE(keys[i])) {
+                adj[k] = index(e.getDest());
+                w[k++] = e.getWeight();
+            }
+        }
+
+        //Lazy-deletion binary heap, reused between sources.
+        double[] heapDist = new double[start[n] + 1];
+        int[] heapNode = new int[start[n] + 1];
+        boolean[] done = new boolean[n];
+
+        for (int src = 0; src < n; src++) {
+            int row = src * n;
+            Arrays.fill(dist, row, row + n, NO_PATH);
+            Arrays.fill(next, row, row + n, -1);
+            Arrays.fill(done, false);
+            dist[row + src] = 0;
+            int size = push(heapDist, heapNode, 0, 0, src);
+
+            while (size > 0) {
+                int u = heapNode[0];
+                double du = heapDist[0];
+                size = pop(heapDist, heapNode, size);
+                if (done[u]) continue;
+                done[u] = true;
+
+                for (int k = start[u]; k < start[u + 1]; k++) {
+                    int v = adj[k];
+                    double dv = du + w[k];
+                    if (dv < dist[row + v]) {
+                        dist[row + v] = dv;
+                        next[row + v] = u == src ? v : next[row + u]; //First hop is inherited from the parent.
+                        size = push(heapDist, heapNode, size, dv, v);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int push(double[] heapDist, int[] heapNode, int size, double d, int node) {
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heapDist[parent] <= d) break;
+            heapDist[i] = heapDist[parent];
+            heapNode[i] = heapNode[parent];
+            i = parent;
+        }
+        heapDist[i] = d;
+        heapNode[i] = node;
+        return size;
+    }
+
+    private static int pop(double[] heapDist, int[] heapNode, int size) {
+        size--;
+        double d = heapDist[size];
+        int node = heapNode[size];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heapDist[child + 1] < heapDist[child]) child++;
+            if (heapDist[child] >= d) break;
+            heapDist[i] = heapDist[child];
+            heapNode[i] = heapNode[child];
+            i = child;
+        }
+        heapDist[i] = d;
+        heapNode[i] = node;
+        return size;
+    }
+}
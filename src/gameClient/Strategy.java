@@ -0,0 +1,55 @@
+package gameClient;
+
+/**
+ * This interface represents the decision logic of the game client:
+ * where to locate the agents when the game starts, and which node each agent
+ * should head to on every tick.
+ * A strategy only sees immutable ArenaSnapshot objects and answers with node keys,
+ * the game loop (Ex2) is the only one talking to the game server.
+ * A new strategy instance is created for every game, so implementations may keep
+ * state between ticks, and must have a public no-arguments constructor to be
+ * used by BatchRunner and Tournament. The game loop closes the strategy when the game ends.
+ */
+public interface Strategy {
+
+    /**
+     * Chooses the starting node of every agent.
+     *
+     * @param snapshot - the arena before any agent was located (no agents in it).
+     * @param agents   - the number of agents to locate.
+     * @return an array of size agents, holding node keys.
+     */
+    public int[] initialNodes(ArenaSnapshot snapshot, int agents);
+
+    /**
+     * Decides the next move of every agent in snapshot.getAgents().
+     * Both arrays are allocated by the caller (at least as long as the agents list)
+     * and are filled in the agents' order.
+     *
+     * @param snapshot - the arena right after the last move.
+     * @param nextNode - out: the next node for each agent, -1 to leave the agent as is.
+     * @param target   - out: index (in snapshot.getPokemons()) of the pokemon each agent is heading to, -1 if none.
+     */
+    public void decide(ArenaSnapshot snapshot, int[] nextNode, int[] target);
+
+    /**
+     * Releases what the strategy holds (e.g. threads) once its game is over. Does nothing by default.
+     */
+    public default void close() {
+    }
+
+    /**
+     * Creates a strategy by class name. Simple names are looked up in the gameClient package.
+     *
+     * @param name - e.g. "GreedyRatioStrategy" or "my.pkg.MyStrategy".
+     * @return a new strategy instance.
+     */
+    public static Strategy create(String name) {
+        String className = name.contains(".") ? name : Strategy.class.getPackage().getName() + "." + name;
+        try {
+            return (Strategy) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Not a strategy: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package gameClient;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class runs several strategies head-to-head: every strategy plays exactly
+ * the same (level, seed) scenarios, and the results are compared on both quality and cost:
+ * grade and moves per game, decision latency (p50/p99 of Strategy.decide()) and bytes allocated per decision.
+ * Games are played through a BatchRunner, one forked JVM per game.
+ *
+ * Usage: Tournament strategies levels [seeds] [threads]
+ * strategies: comma separated Strategy class names, e.g. "GreedyRatioStrategy,my.pkg.MyStrategy".
+ */
+public class Tournament {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Required arguments: strategies levels [seeds] [threads]");
+            return;
+        }
+        String[] names = args[0].split(",");
+        int[] levels = BatchRunner.parseLevels(args[1]);
+        long[] seeds = args.length > 2 ? BatchRunner.parseSeeds(args[2]) : new long[]{-1};
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Map<String, List<GameResult>> results = new LinkedHashMap<String, List<GameResult>>();
+        for (String name : names) {
+            System.out.println("Playing " + name.trim() + " ...");
+            results.put(name.trim(), new BatchRunner(threads, name.trim(), null).runAll(levels, seeds));
+        }
+        System.out.print(report(results));
+        System.exit(0);
+    }
+
+    /**
+     * Builds the tournament report: a per-level grade table (one column per strategy)
+     * followed by a per-strategy summary of quality and cost: means per game (so strategies played
+     * on different numbers of games compare), but the worst p99 latency.
+     *
+     * @param results - results of each strategy, all played on the same scenarios.
+     * @return a printable report.
+     */
+    public static String report(Map<String, List<GameResult>> results) {
+        StringBuilder sb = new StringBuilder();
+
+        TreeMap<Integer, Map<String, double[]>> byLevel = new TreeMap<Integer, Map<String, double[]>>(); //level -> strategy -> {sum, count}
+        for (Map.Entry<String, List<GameResult>> e : results.entrySet()) {
+            for (GameResult r : e.getValue()) {
+                double[] acc = byLevel.computeIfAbsent(r.getLevel(), k -> new LinkedHashMap<String, double[]>())
+                        .computeIfAbsent(e.getKey(), k -> new double[2]);
+                acc[0] += r.getGrade();
+                acc[1]++;
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "%5s", "level"));
+        for (String name : results.keySet()) sb.append(String.format(Locale.ROOT, " %22s", shortName(name)));
+        sb.append(String.format("%n"));
+        for (Map.Entry<Integer, Map<String, double[]>> level : byLevel.entrySet()) {
+            sb.append(String.format(Locale.ROOT, "%5d", level.getKey()));
+            for (String name : results.keySet()) {
+                double[] acc = level.getValue().get(name);
+                sb.append(acc == null ? String.format(Locale.ROOT, " %22s", "-")
+                        : String.format(Locale.ROOT, " %22.1f", acc[0] / acc[1]));
+            }
+            sb.append(String.format("%n"));
+        }
+
+        sb.append(String.format("%n%-22s %5s %10s %9s %14s %14s %15s%n",
+                "strategy", "games", "grade/game", "moves", "decide p50(us)", "decide p99(us)", "bytes/decision"));
+        for (Map.Entry<String, List<GameResult>> e : results.entrySet()) {
+            List<GameResult> games = e.getValue();
+            double grade = 0, moves = 0, p50 = 0, p99 = 0, bytes = 0;
+            for (GameResult r : games) {
+                grade += r.getGrade();
+                moves += r.getMoves();
+                p50 += r.getDecisionP50();
+                p99 = Math.max(p99, r.getDecisionP99());
+                bytes += r.getDecisionBytes();
+            }
+            int n = Math.max(1, games.size());
+            sb.append(String.format(Locale.ROOT, "%-22s %5d %10.1f %9.1f %14.1f %14.1f %15.0f%n",
+                    shortName(e.getKey()), games.size(), grade / n, moves / n, p50 / n, p99, bytes / n));
+        }
+        return sb.toString();
+    }
+
+    private static String shortName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
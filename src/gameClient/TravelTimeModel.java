@@ -0,0 +1,148 @@
+package gameClient;
+
+import api.EdgeLocation;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.edge_location;
+import api.geo_location;
+import gameClient.ArenaSnapshot.AgentView;
+
+import java.util.List;
+
+/**
+ * This class turns the distance tables of a RoutingTable into per-agent arrival times.
+ * An agent passes an edge of weight w in w/speed seconds, and agents have different
+ * speeds that rise during the game, so for fast agents the real cost of a target is time, not weight.
+ *
+ * An agent that is on a node plans from that node. An agent that moves along an edge
+ * cannot turn back, so it plans from the edge's destination, which it reaches after
+ * the remaining part of the edge (measured from its position _pos) is passed.
+ *
+ * Targets in the middle of an edge (edge_location, e.g. a pokemon) are reached after the
+ * part of the edge before them, which is how the exact move() that catches a pokemon is timed.
+ *
+ * A model is updated once per tick and then answers queries without allocating.
+ */
+public class TravelTimeModel {
+
+    private static final double MIN_SPEED = 1e-6;
+
+    private final RoutingTable routes;
+    private int agents;
+    private int[] origin; //Node index each agent plans from.
+    private double[] delay; //Seconds until the agent is at origin.
+    private double[] speed;
+    private double[] progress; //Part [0,1] of the current edge already passed, 0 for agents on a node.
+    private edge_data[] edge; //Current edge, null for agents on a node.
+
+    /**
+     * Constructor.
+     *
+     * @param routes - all shortest paths of the game graph.
+     */
+    public TravelTimeModel(RoutingTable routes) {
+        this.routes = routes;
+        origin = new int[0];
+    }
+
+    /**
+     * Reads the agents' positions and speeds from a snapshot.
+     *
+     * @param snapshot - the arena at this tick (with the same routes as this model).
+     */
+    public void update(ArenaSnapshot snapshot) {
+        List<AgentView> list = snapshot.getAgents();
+        agents = list.size();
+        if (origin.length < agents) {
+            origin = new int[agents];
+            delay = new double[agents];
+            speed = new double[agents];
+            progress = new double[agents];
+            edge = new edge_data[agents];
+        }
+        directed_weighted_graph g = snapshot.getGraph();
+
+        for (int a = 0; a < agents; a++) {
+            AgentView ag = list.get(a);
+            speed[a] = Math.max(ag.getSpeed(), MIN_SPEED);
+            edge_data e = ag.getCurrEdge();
+            edge[a] = e;
+            if (e == null) {
+                origin[a] = routes.index(ag.getSrc());
+                delay[a] = 0;
+                progress[a] = 0;
+            } else {
+                geo_location p = ag.getPos();
+                progress[a] = p == null ? 0 : EdgeLocation.project(g, e, p).getRatio(); //Clamped to [0,1].
+                origin[a] = routes.index(e.getDest());
+                delay[a] = (1 - progress[a]) * e.getWeight() / speed[a];
+            }
+        }
+    }
+
+    /** Number of agents in the last update. */
+    public int agents() {return agents;}
+
+    /** Node index agent a plans from: its node, or the destination of the edge it moves along. */
+    public int origin(int a) {return origin[a];}
+
+    /** Seconds until agent a is at origin(a), 0 if it is on a node. */
+    public double delay(int a) {return delay[a];}
+
+    public double speed(int a) {return speed[a];}
+
+    /** Part [0,1] of agent a's current edge already passed. */
+    public double progress(int a) {return progress[a];}
+
+    /**
+     * Seconds agent a needs to pass a distance (sum of weights).
+     */
+    public double time(int a, double dist) {
+        return dist / speed[a];
+    }
+
+    /**
+     * Seconds until agent a arrives at a node.
+     *
+     * @param a         - agent index (in the snapshot's order).
+     * @param nodeIndex - routing table index of the node.
+     * @return the arrival time, RoutingTable.NO_PATH if it cannot get there.
+     */
+    public double timeTo(int a, int nodeIndex) {
+        if (origin[a] < 0 || nodeIndex < 0) return RoutingTable.NO_PATH;
+        double d = routes.dist(origin[a], nodeIndex);
+        if (d == RoutingTable.NO_PATH) return d;
+        return delay[a] + d / speed[a];
+    }
+
+    /**
+     * Seconds until agent a gets to a point in the middle of an edge.
+     * If the agent is already on that edge, before the point, it gets there directly.
+     *
+     * @param a   - agent index.
+     * @param loc - the location on an edge.
+     * @return the arrival time, RoutingTable.NO_PATH if the point cannot be reached.
+     */
+    public double timeTo(int a, edge_location loc) {
+        edge_data e = loc.getEdge();
+        if (edge[a] != null && edge[a].getSrc() == e.getSrc() && edge[a].getDest() == e.getDest()
+                && progress[a] <= loc.getRatio())
+            return (loc.getRatio() - progress[a]) * e.getWeight() / speed[a];
+        double t = timeTo(a, routes.index(e.getSrc()));
+        if (t == RoutingTable.NO_PATH) return t;
+        return t + loc.getRatio() * e.getWeight() / speed[a];
+    }
+
+    /**
+     * Seconds until agent a has passed edge e (and so caught whatever is on it).
+     *
+     * @param a - agent index.
+     * @param e - the edge to pass.
+     * @return the time, RoutingTable.NO_PATH if the edge cannot be reached.
+     */
+    public double timeToPass(int a, edge_data e) {
+        double t = timeTo(a, routes.index(e.getSrc()));
+        if (t == RoutingTable.NO_PATH) return t;
+        return t + e.getWeight() / speed[a];
+    }
+}
@@ -0,0 +1,191 @@
+package gameClient.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class parses positions ("x,y,z", as the game server and the graph files write them) and the numbers
+ * in them straight from the text, without splitting it or creating any string or boxed number.
+ * The text is a CharSequence (a String, or a range of a larger json) or a range of ASCII (UTF-8) bytes,
+ * and the coordinates go into primitives, a packed array (see PointBuffer) or a MutablePoint3D.
+ *
+ * Numbers of up to 18 significant digits with a small exponent (the usual coordinates, including the
+ * 17 digits of Double.toString()) are computed here, rounded exactly as Double.parseDouble would
+ * (see nearest()); anything else is left to Double.parseDouble.
+ */
+public final class Coordinates {
+
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private Coordinates() {
+    }
+
+    /**
+     * Parses a decimal number in s[from, to) (surrounding spaces allowed).
+     *
+     * @return the number.
+     * @throws NumberFormatException if the text is not a number.
+     */
+    public static double parseDouble(CharSequence s, int from, int to) {
+        return number(s, from, to);
+    }
+
+    /**
+     * Parses a decimal number in the ASCII bytes b[from, to) (surrounding spaces allowed).
+     *
+     * @return the number.
+     * @throws NumberFormatException if the text is not a number.
+     */
+    public static double parseDouble(byte[] b, int from, int to) {
+        return number(b, from, to);
+    }
+
+    /**
+     * Parses the position "x,y,z" in s[from, to) into xyz[at], xyz[at + 1] and xyz[at + 2].
+     *
+     * @throws NumberFormatException if the text is not three numbers separated by commas.
+     */
+    public static void parse(CharSequence s, int from, int to, double[] xyz, int at) {
+        position(s, from, to, xyz, at);
+    }
+
+    /**
+     * Parses the position "x,y,z" in the ASCII bytes b[from, to) into xyz[at], xyz[at + 1] and xyz[at + 2].
+     *
+     * @throws NumberFormatException if the text is not three numbers separated by commas.
+     */
+    public static void parse(byte[] b, int from, int to, double[] xyz, int at) {
+        position(b, from, to, xyz, at);
+    }
+
+    /**
+     * Parses the position "x,y,z" in s[from, to) into p.
+     *
+     * @return true if p moved (see MutablePoint3D.set()).
+     * @throws NumberFormatException if the text is not three numbers separated by commas.
+     */
+    public static boolean parse(CharSequence s, int from, int to, MutablePoint3D p) {
+        return position(s, from, to, p);
+    }
+
+    /**
+     * Parses the position "x,y,z" in the ASCII bytes b[from, to) into p.
+     *
+     * @return true if p moved (see MutablePoint3D.set()).
+     * @throws NumberFormatException if the text is not three numbers separated by commas.
+     */
+    public static boolean parse(byte[] b, int from, int to, MutablePoint3D p) {
+        return position(b, from, to, p);
+    }
+
+    /**
+     * Returns the i-th character of text, a CharSequence or ASCII bytes: the parsing below is written once
+     * for both (the JIT sees a single type at any call site).
+     */
+    private static char charAt(Object text, int i) {
+        return text instanceof byte[] ? (char) (((byte[]) text)[i] & 0xFF) : ((CharSequence) text).charAt(i);
+    }
+
+    private static void position(Object text, int from, int to, double[] xyz, int at) {
+        long commas = commas(text, from, to);
+        int c1 = (int) (commas >>> 32), c2 = (int) commas;
+        xyz[at] = number(text, from, c1);
+        xyz[at + 1] = number(text, c1 + 1, c2);
+        xyz[at + 2] = number(text, c2 + 1, to);
+    }
+
+    private static boolean position(Object text, int from, int to, MutablePoint3D p) {
+        long commas = commas(text, from, to);
+        int c1 = (int) (commas >>> 32), c2 = (int) commas;
+        return p.set(number(text, from, c1), number(text, c1 + 1, c2), number(text, c2 + 1, to));
+    }
+
+    /**
+     * Finds the two commas of a position.
+     *
+     * @return the index of the first comma in the high 32 bits, of the second in the low 32 bits.
+     */
+    private static long commas(Object text, int from, int to) {
+        int c1 = -1;
+        for (int i = from; i < to; i++) {
+            if (charAt(text, i) != ',') continue;
+            if (c1 >= 0) return (long) c1 << 32 | i;
+            c1 = i;
+        }
+        throw new NumberFormatException("Not a position x,y,z: \"" + text(text, from, to) + "\"");
+    }
+
+    private static double number(Object text, int from, int to) {
+        while (from < to && charAt(text, from) == ' ') from++;
+        while (to > from && charAt(text, to - 1) == ' ') to--;
+        int i = from;
+        boolean negative = false;
+        if (i < to && (charAt(text, i) == '-' || charAt(text, i) == '+')) negative = charAt(text, i++) == '-';
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean any = false, dot = false, dropped = false;
+        for (; i < to; i++) {
+            char c = charAt(text, i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    if (dot) scale--;
+                } else {
+                    dropped = true;
+                    if (!dot) scale++;
+                }
+            } else if (c == '.' && !dot) dot = true;
+            else break;
+        }
+        if (i < to && (charAt(text, i) == 'e' || charAt(text, i) == 'E')) {
+            int j = i + 1, exp = 0;
+            boolean expNegative = false;
+            if (j < to && (charAt(text, j) == '-' || charAt(text, j) == '+')) expNegative = charAt(text, j++) == '-';
+            if (j == to) return slowParse(text, from, to);
+            for (; j < to && charAt(text, j) >= '0' && charAt(text, j) <= '9'; j++) exp = Math.min(exp * 10 + (charAt(text, j) - '0'), 100000);
+            scale += expNegative ? -exp : exp;
+            i = j;
+        }
+        if (!any || i != to || dropped || scale < -22 || scale > 22) return slowParse(text, from, to);
+        double v;
+        if (digits <= 15) v = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale]; //Exact: both are exact doubles.
+        else if (Double.isNaN(v = nearest(mantissa, scale))) return slowParse(text, from, to);
+        return negative ? -v : v;
+    }
+
+    /**
+     * Returns the double nearest to m * 10^scale (m < 10^18, |scale| <= 22), NaN if it cannot be told apart here.
+     * m does not fit a double, so m and the product (or quotient) by the exact power of ten are carried
+     * as double-double pairs (hi + lo, with the error terms from Math.fma), accurate to about 2^-100.
+     * Rounding hi + lo to one double is then exact, unless it falls within that error of a midpoint
+     * between two doubles (about once in 2^30 numbers), where NaN sends the caller to Double.parseDouble.
+     */
+    private static double nearest(long m, int scale) {
+        double mh = (double) m, ml = (double) (m - (long) mh); //m == mh + ml exactly.
+        double p = POW10[Math.abs(scale)], hi, lo;
+        if (scale >= 0) {
+            hi = mh * p;
+            lo = Math.fma(mh, p, -hi) + ml * p;
+        } else {
+            hi = mh / p;
+            lo = (Math.fma(-hi, p, mh) + ml) / p; //The remainder of mh / p is exact.
+        }
+        double sum = hi + lo;
+        double bv = sum - hi, t = (hi - (sum - bv)) + (lo - bv); //hi + lo == sum + t exactly.
+        double ulp = Math.ulp(sum);
+        if (Math.abs(Math.abs(t) - ulp / 2) <= ulp * 0x1p-30) return Double.NaN; //Too close to a midpoint.
+        if (t < 0 && (Double.doubleToRawLongBits(sum) & 0xFFFFFFFFFFFFFL) == 0) return Double.NaN; //Power of two: smaller ulp below.
+        return sum;
+    }
+
+    private static double slowParse(Object text, int from, int to) {
+        return Double.parseDouble(text(text, from, to));
+    }
+
+    private static String text(Object text, int from, int to) {
+        if (text instanceof byte[]) return new String((byte[]) text, from, to - from, StandardCharsets.ISO_8859_1);
+        return ((CharSequence) text).subSequence(from, to).toString();
+    }
+}
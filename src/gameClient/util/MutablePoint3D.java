@@ -0,0 +1,50 @@
+package gameClient.util;
+
+import api.geo_location;
+
+/**
+ * This class represents a 3D point that can be moved (set()), for positions that change on every tick
+ * (agents, pokemons): the same object is updated in place, so following a position allocates nothing.
+ * Whoever keeps a position beyond the current tick (e.g. an ArenaSnapshot) must copy it (new Point3D(x, y, z)).
+ * Positions are parsed straight into it with Coordinates.parse().
+ */
+public class MutablePoint3D implements geo_location {
+    private double _x, _y, _z;
+
+    public MutablePoint3D() {
+    }
+
+    public MutablePoint3D(double x, double y, double z) {
+        set(x, y, z);
+    }
+
+    /**
+     * Moves this point.
+     *
+     * @return true if the point moved (any coordinate changed).
+     */
+    public boolean set(double x, double y, double z) {
+        boolean moved = x != _x || y != _y || z != _z;
+        _x = x;
+        _y = y;
+        _z = z;
+        return moved;
+    }
+
+    @Override
+    public double x() {return _x;}
+    @Override
+    public double y() {return _y;}
+    @Override
+    public double z() {return _z;}
+
+    @Override
+    public double distance(geo_location p2) {
+        double dx = _x - p2.x();
+        double dy = _y - p2.y();
+        double dz = _z - p2.z();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    public String toString() { return _x+","+_y+","+_z; }
+}
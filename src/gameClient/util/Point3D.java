@@ -33,11 +33,15 @@ public class Point3D implements geo_location, Serializable{
         this(p.x(), p.y(), p.z());
     }
     public Point3D(double x, double y) {this(x,y,0);}
+    /**
+     * Parses "x,y,z" (see Coordinates: no splitting, no intermediate strings).
+     */
     public Point3D(String s) { try {
-        String[] a = s.split(",");
-        _x = Double.parseDouble(a[0]);
-        _y = Double.parseDouble(a[1]);
-        _z = Double.parseDouble(a[2]);
+        double[] a = new double[3];
+        Coordinates.parse(s, 0, s.length(), a, 0);
+        _x = a[0];
+        _y = a[1];
+        _z = a[2];
     }
     catch(IllegalArgumentException e) {
         System.err.println("ERR: got wrong format string for POint3D init, got:"+s+"  should be of format: x,y,x");
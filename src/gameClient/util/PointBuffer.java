@@ -0,0 +1,118 @@
+package gameClient.util;
+
+import api.geo_location;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class holds many points packed in one array ({x0,y0,z0, x1,y1,z1, ...}), by index,
+ * instead of an object per point: e.g. the node positions of a graph being loaded (api.GraphJson),
+ * or of a game graph matched against the pokemons on every tick (gameClient.EdgeMatcher).
+ * Reading a point follows no reference and allocates nothing; positions can be parsed straight
+ * into the buffer (see Coordinates).
+ */
+public class PointBuffer {
+    private double[] xyz;
+    private int size;
+
+    public PointBuffer() {
+        this(16);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity - the number of points held before the buffer grows.
+     */
+    public PointBuffer(int capacity) {
+        xyz = new double[3 * Math.max(1, capacity)];
+    }
+
+    /**
+     * Returns the number of points.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @return its index.
+     */
+    public int add(double x, double y, double z) {
+        if (3 * size == xyz.length) xyz = Arrays.copyOf(xyz, 2 * xyz.length);
+        set(size++, x, y, z);
+        return size - 1;
+    }
+
+    /**
+     * Moves the point at index i.
+     */
+    public void set(int i, double x, double y, double z) {
+        Objects.checkIndex(i, size);
+        xyz[3 * i] = x;
+        xyz[3 * i + 1] = y;
+        xyz[3 * i + 2] = z;
+    }
+
+    /**
+     * Moves the point at index i to the position "x,y,z" in s[from, to).
+     *
+     * @throws NumberFormatException if the text is not a position (the point is then unchanged).
+     */
+    public void set(int i, CharSequence s, int from, int to) {
+        Objects.checkIndex(i, size);
+        double x = xyz[3 * i], y = xyz[3 * i + 1], z = xyz[3 * i + 2];
+        try {
+            Coordinates.parse(s, from, to, xyz, 3 * i);
+        } catch (NumberFormatException e) {
+            set(i, x, y, z);
+            throw e;
+        }
+    }
+
+    public double x(int i) {
+        return xyz[3 * Objects.checkIndex(i, size)];
+    }
+
+    public double y(int i) {
+        return xyz[3 * Objects.checkIndex(i, size) + 1];
+    }
+
+    public double z(int i) {
+        return xyz[3 * Objects.checkIndex(i, size) + 2];
+    }
+
+    /**
+     * Copies the point at index i into p.
+     *
+     * @return p.
+     */
+    public MutablePoint3D get(int i, MutablePoint3D p) {
+        p.set(x(i), y(i), z(i));
+        return p;
+    }
+
+    /**
+     * Returns the distance between the points at indices i and j (as Point3D.distance()).
+     */
+    public double distance(int i, int j) {
+        return distance(i, x(j), y(j), z(j));
+    }
+
+    /**
+     * Returns the distance between the point at index i and p (as Point3D.distance()).
+     */
+    public double distance(int i, geo_location p) {
+        return distance(i, p.x(), p.y(), p.z());
+    }
+
+    private double distance(int i, double x, double y, double z) {
+        double dx = x(i) - x;
+        double dy = y(i) - y;
+        double dz = z(i) - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
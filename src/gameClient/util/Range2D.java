@@ -16,6 +16,12 @@ public class Range2D {
         _x_range = new Range(w._x_range);
         _y_range = new Range(w._y_range);
     }
+    public Range get_x_range() {
+        return _x_range;
+    }
+    public Range get_y_range() {
+        return _y_range;
+    }
     public Point3D getPortion(geo_location p) {
         double x = _x_range.getPortion(p.x());
         double y = _y_range.getPortion(p.y());
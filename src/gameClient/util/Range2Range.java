@@ -4,25 +4,55 @@ import api.geo_location;
 
 /**
  * This class represents a simple world 2 frame conversion (both ways).
+ * The frame shows a view: a part of the world that can be zoomed and panned,
+ * by default the whole world.
+ * The mapping is affine, its coefficients are computed once per (view, frame) and kept
+ * until the frame is resized or the view changes, so bulk and scalar conversions allocate nothing.
  * @author boaz.benmoshe
  *
  */
 
 public class Range2Range {
+    private static final double MIN_VIEW = 1e-4, MAX_VIEW = 10; //View size limits, relative to the world.
+
     private Range2D _world, _frame;
+    private Range2D _view; //The part of _world shown in _frame.
+    private double _ax, _bx, _ay, _by; //frame x = _ax * world x + _bx, same for y.
 
     public Range2Range(Range2D w, Range2D f) {
         _world = new Range2D(w);
         _frame = new Range2D(f);
+        _view = new Range2D(w);
+        updateTransform();
     }
     public geo_location world2frame(geo_location p) {
-        Point3D d = _world.getPortion(p);
+        Point3D d = _view.getPortion(p);
         Point3D ans = _frame.fromPortion(d);
         return ans;
     }
+    /**
+     * Converts packed world coordinates {x0,y0, x1,y1, ...} to frame (pixel) coordinates, in one pass.
+     *
+     * @param xy    - world coordinates, 2 per point.
+     * @param out   - frame coordinates (truncated to int), 2 per point.
+     * @param count - number of points to convert.
+     */
+    public void world2frame(double[] xy, int[] out, int count) {
+        double ax = _ax, bx = _bx, ay = _ay, by = _by;
+        for (int i = 0, n = 2 * count; i < n; i += 2) {
+            out[i] = (int) (ax * xy[i] + bx);
+            out[i + 1] = (int) (ay * xy[i + 1] + by);
+        }
+    }
+    public double world2frameX(double x) {
+        return _ax * x + _bx;
+    }
+    public double world2frameY(double y) {
+        return _ay * y + _by;
+    }
     public geo_location frame2world(geo_location p) {
         Point3D d = _frame.getPortion(p);
-        Point3D ans = _world.fromPortion(d);
+        Point3D ans = _view.fromPortion(d);
         return ans;
     }
     public Range2D getWorld() {
@@ -31,4 +61,66 @@ public class Range2Range {
     public Range2D getFrame() {
         return _frame;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the part of the world shown in the frame.
+     */
+    public Range2D getView() {
+        return _view;
+    }
+
+    /**
+     * Sets a new frame (e.g. after the window was resized), keeping the view.
+     */
+    public void setFrame(Range2D f) {
+        _frame = new Range2D(f);
+        updateTransform();
+    }
+
+    /**
+     * Zooms the view, keeping the world point under a frame point in place.
+     *
+     * @param factor     - above 1 zooms in, below 1 zooms out.
+     * @param framePoint - the fixed point, in frame coordinates (e.g. the mouse position).
+     */
+    public void zoom(double factor, geo_location framePoint) {
+        geo_location c = frame2world(framePoint);
+        Range x = _view.get_x_range(), y = _view.get_y_range();
+        double wx = Math.abs(_world.get_x_range().get_length()), wy = Math.abs(_world.get_y_range().get_length());
+        double lx = Math.abs(x.get_length()) / factor, ly = Math.abs(y.get_length()) / factor;
+        if (wx > 0 && (lx < wx * MIN_VIEW || lx > wx * MAX_VIEW)) return;
+        if (wy > 0 && (ly < wy * MIN_VIEW || ly > wy * MAX_VIEW)) return;
+        _view = new Range2D(
+                new Range(c.x() - (c.x() - x.get_min()) / factor, c.x() + (x.get_max() - c.x()) / factor),
+                new Range(c.y() - (c.y() - y.get_min()) / factor, c.y() + (y.get_max() - c.y()) / factor));
+        updateTransform();
+    }
+
+    /**
+     * Moves the view by a distance in frame coordinates (e.g. a mouse drag),
+     * so that the world moves along with the mouse.
+     */
+    public void pan(double dx, double dy) {
+        Range x = _view.get_x_range(), y = _view.get_y_range();
+        double wx = dx / _frame.get_x_range().get_length() * x.get_length();
+        double wy = dy / _frame.get_y_range().get_length() * y.get_length();
+        _view = new Range2D(new Range(x.get_min() - wx, x.get_max() - wx), new Range(y.get_min() - wy, y.get_max() - wy));
+        updateTransform();
+    }
+
+    /**
+     * Shows the whole world again.
+     */
+    public void resetView() {
+        _view = new Range2D(_world);
+        updateTransform();
+    }
+
+    private void updateTransform() {
+        Range vx = _view.get_x_range(), vy = _view.get_y_range(), fx = _frame.get_x_range(), fy = _frame.get_y_range();
+        _ax = fx.get_length() / vx.get_length();
+        _bx = fx.get_min() - vx.get_min() * _ax;
+        _ay = fy.get_length() / vy.get_length();
+        _by = fy.get_min() - vy.get_min() * _ay;
+    }
+}
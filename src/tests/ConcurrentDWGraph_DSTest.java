@@ -0,0 +1,145 @@
+package tests;
+
+import api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentDWGraph_DSTest {
+
+    @Test
+    void sameAsDWGraph_DS() {
+        DWGraph_DS a = new DWGraph_DS();
+        ConcurrentDWGraph_DS b = new ConcurrentDWGraph_DS();
+        Random r = new Random(1);
+        for (int i = 0; i < 20000; i++) { //The same random changes on both graphs.
+            int src = r.nextInt(30), dest = r.nextInt(30), op = r.nextInt(10);
+            if (op < 2) {
+                a.addNode(new NodeData(src));
+                b.addNode(new NodeData(src));
+            } else if (op < 6) {
+                double w = r.nextInt(4) - 1; //Negative weights are ignored by both.
+                a.connect(src, dest, w);
+                b.connect(src, dest, w);
+            } else if (op < 9) {
+                a.removeEdge(src, dest);
+                b.removeEdge(src, dest);
+            } else if (r.nextInt(4) == 0) {
+                assertEquals(a.removeNode(src) == null, b.removeNode(src) == null);
+            }
+        }
+        assertEquals(a.nodeSize(), b.nodeSize());
+        assertEquals(a.edgeSize(), b.edgeSize());
+        assertEquals(a.fingerprint(), b.fingerprint());
+        for (node_data n : a.getV()) {
+            assertEquals(a.getE(n.getKey()).size(), b.getE(n.getKey()).size());
+            for (edge_data e : a.getE(n.getKey()))
+                assertEquals(e.getWeight(), b.getEdge(e.getSrc(), e.getDest()).getWeight());
+        }
+        assertEquals(b, new ConcurrentDWGraph_DS(b));
+        assertEquals(a.fingerprint(), new DWGraph_DS(b).fingerprint());
+        assertTrue(b.getE(1000).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> b.getE(b.getV().iterator().next().getKey()).clear());
+    }
+
+    @Test
+    void concurrentChanges() throws InterruptedException {
+        ConcurrentDWGraph_DS g = new ConcurrentDWGraph_DS();
+        for (int i = 0; i < 64; i++) g.addNode(new NodeData(i));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                try {
+                    Random r = new Random(seed);
+                    for (int i = 0; i < 50000; i++) {
+                        int src = r.nextInt(64), dest = r.nextInt(64), op = r.nextInt(100);
+                        if (op < 45) g.connect(src, dest, 1 + r.nextInt(5));
+                        else if (op < 80) g.removeEdge(src, dest);
+                        else if (op < 88) g.addNode(new NodeData(src));
+                        else if (op < 90) g.removeNode(src);
+                        else { //Reading while others change the graph.
+                            for (node_data n : g.getV())
+                                for (edge_data e : g.getE(n.getKey())) assertEquals(n.getKey(), e.getSrc());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertNull(failure.get());
+        assertConsistent(g);
+    }
+
+    @Test
+    void removeAddReconnect() throws InterruptedException {
+        ConcurrentDWGraph_DS g = new ConcurrentDWGraph_DS();
+        for (int i = 0; i < 4; i++) g.addNode(new NodeData(i));
+        g.connect(0, 1, 1);
+        g.connect(1, 0, 1);
+        edge_data old = g.getEdge(0, 1);
+        assertNotNull(g.removeNode(1));
+        g.addNode(new NodeData(1));
+        assertNull(g.getEdge(0, 1));
+        g.connect(0, 1, 1); //Equal to the removed edge, but a new one.
+        g.connect(1, 0, 1);
+        assertEquals(old, g.getEdge(0, 1));
+        assertNotSame(old, g.getEdge(0, 1));
+        assertEquals(2, g.edgeSize());
+        assertConsistent(g);
+
+        //The same, while another thread keeps removing the node: always the same weights, so
+        //the edges of a removed node equal those connected to it again.
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread remover = new Thread(() -> {
+            try {
+                for (int i = 0; i < 50000; i++) g.removeNode(1 + i % 3);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        remover.start();
+        for (int i = 0; i < 50000; i++) {
+            int k = 1 + i % 3;
+            g.addNode(new NodeData(k));
+            for (int j = 0; j < 4; j++) {
+                g.connect(j, k, 1);
+                g.connect(k, j, 1);
+            }
+        }
+        remover.join();
+        assertNull(failure.get());
+        assertConsistent(g);
+    }
+
+    /**
+     * Checks that a graph (no longer changed) has every edge in both maps, and matching counts.
+     */
+    private static void assertConsistent(ConcurrentDWGraph_DS g) {
+        int edges = 0, inEdges = 0;
+        for (node_data n : g.getV()) {
+            for (edge_data e : g.getE(n.getKey())) {
+                edges++;
+                assertSame(e, g.getEdge(e.getSrc(), e.getDest()));
+                assertTrue(g.getInE(e.getDest()).contains(e)); //In both maps.
+            }
+            for (edge_data e : g.getInE(n.getKey())) {
+                assertSame(e, g.getEdge(e.getSrc(), n.getKey()));
+                inEdges++;
+            }
+        }
+        assertEquals(edges, inEdges);
+        assertEquals(edges, g.edgeSize());
+        assertEquals(new DWGraph_DS(g).fingerprint(), g.fingerprint());
+        assertEquals(g.fingerprint(), DWGraph_DS.fingerprint(g));
+    }
+}
@@ -0,0 +1,107 @@
+package tests;
+
+import gameClient.util.Coordinates;
+import gameClient.util.MutablePoint3D;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinatesTest {
+
+    @Test
+    void sameAsParseDouble() {
+        SplittableRandom r = new SplittableRandom(7);
+        for (int k = 0; k < 400000; k++) {
+            String s;
+            switch (k % 4) {
+                case 0: //Game coordinates.
+                    s = Double.toString(35 + r.nextDouble() * 0.03);
+                    break;
+                case 1: //Any magnitude, as Double.toString() writes it (with an exponent past 1e7).
+                    s = Double.toString(r.nextDouble() * Math.pow(10, r.nextInt(-20, 20)));
+                    break;
+                case 2: //Up to 24 digits (past the 18 computed exactly), a '.' anywhere, and an exponent.
+                    StringBuilder b = new StringBuilder(r.nextBoolean() ? "-" : "");
+                    int digits = r.nextInt(1, 25);
+                    for (int j = 0; j < digits; j++) b.append((char) ('0' + r.nextInt(10)));
+                    b.insert(b.length() - r.nextInt(0, digits), '.');
+                    if (r.nextBoolean()) b.append(r.nextBoolean() ? 'e' : 'E').append(r.nextInt(-30, 30));
+                    s = b.toString();
+                    break;
+                default: //Any bits, from 1e-19 to 1e19.
+                    s = Double.toString(Double.longBitsToDouble(r.nextLong(0x3C00000000000000L, 0x4300000000000000L)));
+            }
+            assertSame(s);
+        }
+    }
+
+    @Test
+    void edgeCases() {
+        String[] numbers = {"0", "-0", "-0.0", "0.0", "1", "-1", "1.", ".5", "-.5", "1e0", "1E+2", "1e-2", "1.5e300",
+                "4.9e-324", "2.2250738585072014E-308", "1.7976931348623157e308", "123456789012345678",
+                "1234567890123456789", "12345678901234567890123", "9007199254740993", "0.1000000000000000055511151231257827",
+                "35.19589389346247", "0.000000000000000000000001", "  2.5 ", "100000000000000000000000.0"};
+        for (String s : numbers) assertSame(s);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(Coordinates.parseDouble("-0", 0, 2)));
+
+        String[] bad = {"", " ", "-", ".", "e5", "1e", "1..2", "1x", "--1", "1,2"};
+        for (String s : bad) {
+            assertThrows(NumberFormatException.class, () -> Coordinates.parseDouble(s, 0, s.length()), s);
+            byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+            assertThrows(NumberFormatException.class, () -> Coordinates.parseDouble(b, 0, b.length), s);
+        }
+    }
+
+    @Test
+    void positions() {
+        double[] xyz = new double[4];
+        Coordinates.parse("[35.5, -32.25,0]", 1, 15, xyz, 1);
+        assertArrayEquals(new double[]{0, 35.5, -32.25, 0}, xyz);
+        MutablePoint3D p = new MutablePoint3D();
+        assertTrue(Coordinates.parse("1,2,3".getBytes(StandardCharsets.US_ASCII), 0, 5, p));
+        assertFalse(Coordinates.parse("1.0,2.0,3.0", 0, 11, p)); //Same point.
+        assertEquals(2, p.y());
+        for (String s : new String[]{"1,2", "1,2,3,4", "1,,3", "1,2,a", ""}) {
+            assertThrows(NumberFormatException.class, () -> Coordinates.parse(s, 0, s.length(), xyz, 0), s);
+        }
+    }
+
+    @Test
+    void dataPositions() throws IOException {
+        Pattern pos = Pattern.compile("\"pos\":\"([^\"]*)\"");
+        int count = 0;
+        for (String name : new String[]{"A0", "A1", "A2", "A3", "A4", "A5"}) {
+            String json = new String(Files.readAllBytes(Paths.get("data", name)), StandardCharsets.UTF_8);
+            Matcher m = pos.matcher(json);
+            double[] xyz = new double[3];
+            while (m.find()) {
+                String[] parts = m.group(1).split(",");
+                Coordinates.parse(json, m.start(1), m.end(1), xyz, 0);
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(Double.doubleToLongBits(Double.parseDouble(parts[i])), Double.doubleToLongBits(xyz[i]), m.group(1));
+                    assertSame(parts[i]);
+                }
+                count++;
+            }
+        }
+        assertTrue(count > 0);
+    }
+
+    /**
+     * Checks that a number parses to the very same double as Double.parseDouble(), from a String and from bytes.
+     */
+    private static void assertSame(String s) {
+        long expected = Double.doubleToLongBits(Double.parseDouble(s));
+        assertEquals(expected, Double.doubleToLongBits(Coordinates.parseDouble(s, 0, s.length())), s);
+        byte[] b = (" " + s + ",").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected, Double.doubleToLongBits(Coordinates.parseDouble(b, 1, b.length - 1)), s);
+    }
+}
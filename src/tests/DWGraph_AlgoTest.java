@@ -4,6 +4,8 @@ import api.*;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -212,6 +214,21 @@ class DWGraph_AlgoTest {
     }
 
 
+    @Test
+    void saveLoadBinary() throws IOException {
+        DWGraph_Algo ga2 = new DWGraph_Algo();
+        File file = File.createTempFile("graph", ".dwg"); //Not "Test" + i: saveLoad() writes json there.
+        file.deleteOnExit();
+        for (int i = 0; i < 6; i++) {
+            ga.load("data/A" + i); //Load next graph A0-A5
+            ga2.init(ga.getGraph());
+            assertTrue(ga2.saveBinary(file.getPath())); //Save the given graph
+            assertTrue(ga2.loadBinary(file.getPath())); //Load the given graph
+            assertEquals(ga.getGraph(), ga2.getGraph()); //Make sure graphs are equal after saving and loading them.
+        }
+        assertFalse(ga2.loadBinary("data/A0")); //A json file is not a binary graph.
+    }
+
     void testSaveLoad(String path, String file, int i) {
         dw_graph_algorithms ga2 = new DWGraph_Algo();
         ga.load(path + file + i); //Load next graph A0-A5
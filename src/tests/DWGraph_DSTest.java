@@ -90,6 +90,39 @@ class DWGraph_DSTest {
     }
 
 
+    @Test
+    void fingerprint() {
+        DWGraph_DS a = new DWGraph_DS(), b = new DWGraph_DS();
+        for (int i = 0; i < 5; i++) {
+            a.addNode(new NodeData(i));
+            b.addNode(new NodeData(4 - i)); //Same graph, built in another order.
+        }
+        a.connect(0, 1, 1.5);
+        a.connect(1, 2, 2);
+        a.connect(3, 4, 1);
+        b.connect(3, 4, 1);
+        b.connect(1, 2, 2);
+        b.connect(0, 1, 1.5);
+        assertEquals(a.fingerprint(), b.fingerprint());
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a, b);
+
+        long f = a.fingerprint();
+        a.connect(0, 1, 3); //Override weight.
+        assertNotEquals(f, a.fingerprint());
+        assertNotEquals(a, b);
+        a.connect(0, 1, 1.5);
+        assertEquals(f, a.fingerprint());
+
+        a.removeNode(1);
+        assertNotEquals(f, a.fingerprint());
+        a.addNode(new NodeData(1));
+        a.connect(0, 1, 1.5);
+        a.connect(1, 2, 2);
+        assertEquals(f, a.fingerprint()); //Back to the same structure.
+        assertEquals(f, DWGraph_DS.fingerprint(new DWGraph_DS(a)));
+    }
+
     void nodeSize(boolean req, int actualSize) {
         assertEquals(req, actualSize == g.nodeSize());
     }
@@ -0,0 +1,71 @@
+package tests;
+
+import api.*;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeLocationTest {
+
+    private static final double EPS = 1e-12;
+
+    private static directed_weighted_graph graph() {
+        directed_weighted_graph g = new DWGraph_DS();
+        double[][] pos = {{1, 1, 0}, {5, 4, 0}, {3, 3, 2}, {3, 3, 2}};
+        for (int i = 0; i < pos.length; i++) {
+            node_data n = new NodeData(i);
+            n.setLocation(new Point3D(pos[i][0], pos[i][1], pos[i][2]));
+            g.addNode(n);
+        }
+        g.connect(0, 1, 10); //Length 5.
+        g.connect(1, 0, 10);
+        g.connect(2, 3, 4); //Zero length: both ends at the same place.
+        return g;
+    }
+
+    @Test
+    void onTheEdge() {
+        directed_weighted_graph g = graph();
+        edge_data e = g.getEdge(0, 1);
+        EdgeLocation l = EdgeLocation.project(g, e, new Point3D(1 + 0.8 * 4, 1 + 0.8 * 3, 0));
+        assertSame(e, l.getEdge());
+        assertEquals(0.8, l.getRatio(), EPS);
+        assertEquals(8, l.getWeightFromSrc(), EPS);
+        assertEquals(0, EdgeLocation.project(g, e, new Point3D(1, 1, 0)).getRatio());
+        assertEquals(1, EdgeLocation.project(g, e, new Point3D(5, 4, 0)).getRatio(), EPS);
+        assertEquals(0.2, EdgeLocation.project(g, g.getEdge(1, 0), new Point3D(4.2, 3.4, 0)).getRatio(), EPS); //The other way.
+
+        //Off the edge: the closest point of it.
+        assertEquals(0.5, EdgeLocation.project(g, e, new Point3D(3 - 3, 2.5 + 4, 0)).getRatio(), EPS);
+    }
+
+    @Test
+    void pastTheEnds() {
+        directed_weighted_graph g = graph();
+        edge_data e = g.getEdge(0, 1);
+        assertEquals(0, EdgeLocation.project(g, e, new Point3D(-2, -3, 0)).getRatio()); //Before src.
+        assertEquals(0, EdgeLocation.project(g, e, new Point3D(1, 1, 7)).getRatio());
+        assertEquals(1, EdgeLocation.project(g, e, new Point3D(8, 8, 0)).getRatio()); //After dest.
+        assertEquals(1, EdgeLocation.project(g, e, new Point3D(500, 400, -1)).getRatio());
+        assertEquals(0, new EdgeLocation(e, -0.5).getRatio());
+        assertEquals(1, new EdgeLocation(e, 1.5).getRatio());
+    }
+
+    @Test
+    void zeroLength() {
+        directed_weighted_graph g = graph();
+        edge_data e = g.getEdge(2, 3);
+        assertEquals(0, EdgeLocation.project(g, e, new Point3D(3, 3, 2)).getRatio());
+        assertEquals(0, EdgeLocation.project(g, e, new Point3D(9, -9, 0)).getRatio());
+        assertEquals(0, EdgeLocation.project(e, 3, 3, 2, 3, 3, 2, new Point3D(4, 3, 2)).getRatio());
+    }
+
+    @Test
+    void givenEnds() { //The same as from the graph.
+        directed_weighted_graph g = graph();
+        edge_data e = g.getEdge(0, 1);
+        for (Point3D p : new Point3D[]{new Point3D(2, 2, 0), new Point3D(-1, 0, 0), new Point3D(6, 5, 1)})
+            assertEquals(EdgeLocation.project(g, e, p), EdgeLocation.project(e, 1, 1, 0, 5, 4, 0, p));
+    }
+}
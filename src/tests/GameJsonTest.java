@@ -0,0 +1,157 @@
+package tests;
+
+import Server.Game_Server_Ex2;
+import api.*;
+import gameClient.Agent;
+import gameClient.Arena;
+import gameClient.Ex2;
+import gameClient.GameJson;
+import gameClient.Pokemon;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJsonTest {
+
+    private static final String AGENT = "{\"Agent\":{\"id\":%d,\"value\":%s,\"src\":%d,\"dest\":%d,\"speed\":%s,\"pos\":\"%s\"}}";
+    private static final String POKEMON = "{\"Pokemon\":{\"value\":%s,\"type\":%d,\"pos\":\"%s\"}}";
+
+    @Test
+    void sameAsOrgJson() throws InterruptedException {
+        game_service game = Game_Server_Ex2.getServer(11);
+        directed_weighted_graph g = Ex2.loadGraph(game.getGraph());
+        GameJson json = new GameJson(g);
+        for (int i = 0; i < 3; i++) game.addAgent(i);
+        game.startGame();
+        try {
+            for (int tick = 0; tick < 30; tick++) { //Agents moving along their edges, and pokemons being caught.
+                String agents = game.move();
+                List<Agent> expected = Arena.getAgents(agents, g), actual = json.readAgents(agents);
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) assertEquals(expected.get(i).toJSON(), actual.get(i).toJSON());
+
+                String pokemons = game.getPokemons();
+                List<Pokemon> expectedP = Arena.json2Pokemons(pokemons), actualP = json.readPokemons(pokemons);
+                assertEquals(expectedP.size(), actualP.size());
+                for (int i = 0; i < expectedP.size(); i++) assertSamePokemon(expectedP.get(i), actualP.get(i));
+
+                for (Agent a : actual)
+                    if (a.getNextNode() == -1) game.chooseNextEdge(a.getID(), g.getE(a.getSrcNode()).iterator().next().getDest());
+                Thread.sleep(20);
+            }
+        } finally {
+            game.stopGame();
+        }
+    }
+
+    @Test
+    void listsShrinkAndGrow() {
+        GameJson json = new GameJson(graph());
+        List<Agent> agents = json.readAgents(agents(agent(0, 0, 1.5), agent(1, 1, 2), agent(2, 2, 3)));
+        assertEquals(3, agents.size());
+        Agent second = agents.get(1);
+
+        assertSame(agents, json.readAgents(agents(agent(5, 2, 7))));
+        assertEquals(1, agents.size());
+        assertEquals(5, agents.get(0).getID());
+        assertEquals(2, agents.get(0).getSrcNode());
+        assertEquals(7, agents.get(0).getLocation().x());
+
+        json.readAgents(agents(agent(0, 0, 1), agent(1, 1, 4)));
+        assertEquals(2, agents.size());
+        assertEquals(1, agents.get(1).getID());
+        assertEquals(4, agents.get(1).getLocation().x());
+        assertNotSame(second, agents.get(1)); //Dropped when the list shrank.
+        assertTrue(json.readAgents("{\"Agents\":[]}").isEmpty());
+
+        List<Pokemon> pokemons = json.readPokemons(pokemons(pokemon(5, -1, 1), pokemon(8, 1, 2)));
+        assertEquals(2, pokemons.size());
+        edge_data e = new EdgeData(0, 1, 1);
+        pokemons.get(0).set_edge(e);
+        pokemons.get(0).setIsTracked(true);
+        pokemons.get(1).set_edge(e);
+        pokemons.get(1).setIsTracked(true);
+
+        //The first pokemon stays, the second is a new one, a third appears.
+        assertSame(pokemons, json.readPokemons(pokemons(pokemon(5, -1, 1), pokemon(9, 1, 3), pokemon(2, -1, 4))));
+        assertEquals(3, pokemons.size());
+        assertSame(e, pokemons.get(0).get_edge()); //Unchanged: keeps its edge.
+        assertNull(pokemons.get(1).get_edge());
+        assertEquals(9, pokemons.get(1).getValue());
+        assertEquals(3, pokemons.get(1).getLocation().x());
+        assertEquals(-1, pokemons.get(2).getType());
+        for (Pokemon p : pokemons) assertFalse(p.getIsTracked()); //Tracking is decided again every tick.
+
+        assertEquals(1, json.readPokemons(pokemons(pokemon(2, -1, 4))).size());
+        assertNull(pokemons.get(0).get_edge());
+        assertEquals(4, pokemons.get(0).getLocation().x());
+    }
+
+    @Test
+    void unknownFieldsEscapesAndSpaces() {
+        GameJson json = new GameJson(graph());
+        String agents = " {\n \"x\" : [1, {\"a\":\"}\\\"]\"}, null, true] ,\t\"Agents\" : [ { \"Agent\" : {"
+                + " \"pos\" : \"1.5,2,3\" , \"name\":\"a \\\"quoted\\\" \\\\ name\", \"extra\":{\"q\":[1,2,{}]},"
+                + " \"id\" : 4, \"src\" : 0 , \"dest\":1, \"speed\":2.5e0, \"value\":-3 } } ] , \"y\":-1.5e3 } ";
+        Agent a = json.readAgents(agents).get(0);
+        assertEquals(4, a.getID());
+        assertEquals(0, a.getSrcNode());
+        assertEquals(1, a.getNextNode());
+        assertEquals(2.5, a.getSpeed());
+        assertEquals(-3, a.getValue());
+        assertEquals(1.5, a.getLocation().x());
+        assertEquals(2, a.getLocation().y());
+        assertEquals(3, a.getLocation().z());
+
+        Pokemon p = json.readPokemons("{\"Pokemons\":[{\"Pokemon\":{\"speed\":1,\"value\":5.0,\"type\":-1,"
+                + "\"pos\":\"35.2,32.1,0.0\",\"s\":\"\\u0022\"}}],}").get(0);
+        assertEquals(5, p.getValue());
+        assertEquals(-1, p.getType());
+        assertEquals(35.2, p.getLocation().x());
+        assertTrue(json.readPokemons("{}").isEmpty());
+        assertTrue(json.readPokemons("{\"Agents\":[" + agent(0, 0, 1) + "]}").isEmpty()); //Not a pokemons json.
+    }
+
+    @Test
+    void malformed() {
+        GameJson json = new GameJson(graph());
+        String[] bad = {"", "[]", "{", "{\"Agents\":[", "{\"Agents\":[{\"Agent\":{\"pos\":\"1,2\"}}]}",
+                "{\"Agents\":[{\"Agent\":{\"id\":x}}]}", "{\"Agents\":[{\"Agent\":{\"pos\":\"1,2,3}}]}",
+                "{\"Agents\":[{\"Agent\":{\"pos\":\"1,a,3\"}}]}", "{Agents:[]}", "{\"Agents\"[]}"};
+        for (String s : bad) assertThrows(IllegalArgumentException.class, () -> json.readAgents(s), s);
+        assertThrows(IllegalArgumentException.class, () -> json.readPokemons("{\"Pokemons\":[{\"Pokemon\":{\"value\":}}]}"));
+    }
+
+    private static directed_weighted_graph graph() {
+        directed_weighted_graph g = new DWGraph_DS();
+        for (int i = 0; i < 3; i++) g.addNode(new NodeData(i));
+        g.connect(0, 1, 1); //An agent's dest is only kept if it is an edge.
+        return g;
+    }
+
+    private static String agent(int id, int src, double x) {
+        return String.format(AGENT, id, "0.0", src, -1, "1.0", x + ",0.0,0.0");
+    }
+
+    private static String agents(String... agents) {
+        return "{\"Agents\":[" + String.join(",", agents) + "]}";
+    }
+
+    private static String pokemon(double value, int type, double x) {
+        return String.format(POKEMON, value, type, x + ",0.0,0.0");
+    }
+
+    private static String pokemons(String... pokemons) {
+        return "{\"Pokemons\":[" + String.join(",", pokemons) + "]}";
+    }
+
+    private static void assertSamePokemon(Pokemon expected, Pokemon actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getValue(), actual.getValue());
+        assertEquals(expected.getLocation().x(), actual.getLocation().x());
+        assertEquals(expected.getLocation().y(), actual.getLocation().y());
+        assertEquals(expected.getLocation().z(), actual.getLocation().z());
+    }
+}
@@ -0,0 +1,168 @@
+package tests;
+
+import Server.Game_Server_Ex2;
+import api.game_service;
+import gameClient.Ex2;
+import gameClient.GameResult;
+import gameClient.GreedyRatioStrategy;
+import gameClient.RecordingGameService;
+import gameClient.ReplayGameService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLogTest {
+
+    /**
+     * Answers with fixed values, the extremes of the log's varints included.
+     */
+    private static class FixedGameService implements game_service {
+        private static final long serialVersionUID = 1L;
+
+        long value;
+        String json = "{}";
+
+        public String getGraph() {return "{\"Nodes\":[],\"Edges\":[]}";}
+        public String getPokemons() {return json;}
+        public String getAgents() {return json;}
+        public boolean addAgent(int start_node) {return start_node >= 0;}
+        public long startGame() {return value;}
+        public boolean isRunning() {return value != 0;}
+        public long stopGame() {return -value;}
+        public long chooseNextEdge(int id, int next_node) {return value;}
+        public long timeToEnd() {return value;}
+        public String move() {return json;}
+        public boolean login(long id) {return true;}
+        public String toString() {return "{\"GameServer\":{}}";}
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        FixedGameService game = new FixedGameService();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RecordingGameService recording = new RecordingGameService(game, bytes);
+        long[] values = {0, 1, -1, 63, -64, 64, 127, 128, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        assertEquals("{\"Nodes\":[],\"Edges\":[]}", recording.getGraph());
+        assertTrue(recording.login(Long.MAX_VALUE));
+        assertFalse(recording.addAgent(-7));
+        for (long v : values) {
+            game.value = v;
+            game.json = "{\"v\":\"" + v + " é€\"}"; //Not ASCII.
+            recording.move();
+            recording.move(); //The same response again.
+            recording.getPokemons();
+            assertEquals(v, recording.timeToEnd());
+            assertEquals(v, recording.chooseNextEdge((int) v, (int) -v));
+            assertEquals(-v, recording.stopGame());
+            assertEquals(v != 0, recording.isRunning());
+        }
+        recording.toString();
+        recording.close();
+
+        ReplayGameService replay = new ReplayGameService(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(3 + 7 * values.length + 1, replay.size());
+        assertEquals(2 * values.length, replay.getMoves());
+        assertEquals("{\"Nodes\":[],\"Edges\":[]}", replay.getGraph());
+        assertTrue(replay.login(Long.MAX_VALUE));
+        assertFalse(replay.addAgent(-7));
+        for (long v : values) {
+            String json = "{\"v\":\"" + v + " é€\"}";
+            assertEquals(json, replay.move());
+            assertEquals(json, replay.move());
+            assertEquals(json, replay.getPokemons());
+            assertEquals(v, replay.timeToEnd());
+            assertEquals(v, replay.chooseNextEdge((int) v, (int) -v));
+            assertEquals(-v, replay.stopGame());
+            assertEquals(v != 0, replay.isRunning());
+        }
+        assertEquals("{\"GameServer\":{}}", replay.toString());
+        assertEquals(0, replay.getMismatches());
+
+        //Used up: json calls repeat their last response, other calls answer 0.
+        assertEquals("{\"v\":\"" + Long.MIN_VALUE + " é€\"}", replay.move());
+        assertFalse(replay.isRunning());
+        assertEquals(0, replay.timeToEnd());
+
+        ReplayGameService again = replay.fresh();
+        assertEquals("{\"Nodes\":[],\"Edges\":[]}", again.getGraph());
+        assertTrue(again.login(1));
+        assertEquals(1, again.getMismatches()); //Not the recorded id.
+    }
+
+    @Test
+    void cutShort() throws IOException {
+        FixedGameService game = new FixedGameService();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (RecordingGameService recording = new RecordingGameService(game, bytes)) {
+            for (int i = 0; i < 10; i++) {
+                game.json = "{\"tick\":" + i + "}";
+                recording.move();
+            }
+        }
+        byte[] log = bytes.toByteArray();
+        ReplayGameService replay = new ReplayGameService(new ByteArrayInputStream(Arrays.copyOf(log, log.length - 3)));
+        assertEquals(9, replay.getMoves()); //Up to the last whole record.
+        assertEquals("{\"tick\":0}", replay.move());
+
+        log[0] = 'X';
+        assertThrows(IOException.class, () -> new ReplayGameService(new ByteArrayInputStream(log)));
+    }
+
+    /**
+     * The game server, stopped after a number of moves (a short game).
+     */
+    private static class ShortGameService implements game_service {
+        private static final long serialVersionUID = 1L;
+
+        private final game_service game;
+        private int moves;
+
+        ShortGameService(game_service game, int moves) {
+            this.game = game;
+            this.moves = moves;
+        }
+
+        public String getGraph() {return game.getGraph();}
+        public String getPokemons() {return game.getPokemons();}
+        public String getAgents() {return game.getAgents();}
+        public boolean addAgent(int start_node) {return game.addAgent(start_node);}
+        public long startGame() {return game.startGame();}
+        public boolean isRunning() {return game.isRunning();}
+        public long stopGame() {return game.stopGame();}
+        public long chooseNextEdge(int id, int next_node) {return game.chooseNextEdge(id, next_node);}
+        public long timeToEnd() {return game.timeToEnd();}
+        public boolean login(long id) {return game.login(id);}
+        public String toString() {return game.toString();}
+
+        public String move() {
+            String ans = game.move();
+            if (--moves == 0) game.stopGame();
+            return ans;
+        }
+    }
+
+    @Test
+    void replayGame() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RecordingGameService recording = new RecordingGameService(new ShortGameService(Game_Server_Ex2.getServer(0), 40), bytes);
+        GameResult recorded = new Ex2(0, 0, false, new GreedyRatioStrategy()).play(recording);
+        assertEquals(40, recorded.getMoves());
+
+        //Replayed without sleeping, the client decides as it did against the server.
+        ReplayGameService log = new ReplayGameService(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int i = 0; i < 2; i++) {
+            ReplayGameService replay = log.fresh();
+            Ex2 client = new Ex2(0, 0, false, new GreedyRatioStrategy());
+            client.setRealTime(false);
+            GameResult replayed = client.play(replay);
+            assertEquals(recorded.getGrade(), replayed.getGrade());
+            assertEquals(recorded.getMoves(), replayed.getMoves());
+            assertEquals(0, replay.getMismatches());
+        }
+    }
+}
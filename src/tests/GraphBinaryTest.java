@@ -0,0 +1,59 @@
+package tests;
+
+import api.*;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphBinaryTest {
+
+    @Test
+    void negativeIds() throws IOException {
+        directed_weighted_graph g = new DWGraph_DS();
+        int[] keys = {3, -2, 0, 5}; //Not sorted, and not 0..n-1.
+        for (int k : keys) {
+            node_data n = new NodeData(k);
+            n.setLocation(new Point3D(k, -k, 0.5));
+            g.addNode(n);
+        }
+        g.connect(3, -2, 1.5);
+        g.connect(-2, 0, 2);
+        g.connect(0, 5, 0.25);
+        g.connect(5, -2, 3);
+
+        directed_weighted_graph loaded = roundTrip(g);
+        assertEquals(g, loaded);
+        assertEquals(DWGraph_DS.fingerprint(g), DWGraph_DS.fingerprint(loaded));
+        assertEquals(-2, loaded.getNode(-2).getLocation().x());
+        assertEquals(2, loaded.getNode(-2).getLocation().y());
+        assertEquals(1.5, loaded.getEdge(3, -2).getWeight());
+        assertNull(loaded.getEdge(-2, 3));
+    }
+
+    @Test
+    void missingNode() throws IOException {
+        GraphBinary.Builder b = new GraphBinary.Builder(2, 1);
+        b.node(1, 0, 0, 0);
+        b.node(-1, 0, 0, 0);
+        b.edge(1, 7, 1);
+        File file = File.createTempFile("missing", ".dwg");
+        file.deleteOnExit();
+        assertThrows(IOException.class, () -> b.write(file.getPath()));
+    }
+
+    /**
+     * Saves a graph with DWGraph_Algo.saveBinary(), and loads it back.
+     */
+    static directed_weighted_graph roundTrip(directed_weighted_graph g) throws IOException {
+        File file = File.createTempFile("graph", ".dwg");
+        file.deleteOnExit();
+        assertTrue(new DWGraph_Algo(g).saveBinary(file.getPath()));
+        DWGraph_Algo loaded = new DWGraph_Algo();
+        assertTrue(loaded.loadBinary(file.getPath()));
+        return loaded.getGraph();
+    }
+}
@@ -0,0 +1,69 @@
+package tests;
+
+import api.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphGeneratorTest {
+
+    private static final int NODES = 3000;
+
+    @Test
+    void sameSeedSameGraph() {
+        for (String family : GraphGenerator.FAMILIES) {
+            DWGraph_DS g = GraphGenerator.generate(family, NODES, 5);
+            assertTrue(g.nodeSize() > NODES * 0.9, family);
+            assertTrue(g.edgeSize() > g.nodeSize(), family);
+            DWGraph_DS again = GraphGenerator.generate(family, NODES, 5);
+            assertEquals(g.fingerprint(), again.fingerprint(), family);
+            assertEquals(g, again, family);
+            assertNotEquals(g.fingerprint(), GraphGenerator.generate(family, NODES, 6).fingerprint(), family);
+        }
+    }
+
+    @Test
+    void binaryRoundTrip() throws IOException {
+        for (String family : GraphGenerator.FAMILIES) {
+            DWGraph_DS g = GraphGenerator.generate(family, NODES, 5);
+            directed_weighted_graph loaded = GraphBinaryTest.roundTrip(g);
+            assertEquals(g, loaded, family);
+            assertEquals(g.fingerprint(), DWGraph_DS.fingerprint(loaded), family);
+
+            //Generated straight into a binary file: the same graph.
+            GraphBinary.Builder b = new GraphBinary.Builder(g.nodeSize(), g.edgeSize());
+            GraphGenerator.generate(family, NODES, 5, b);
+            File file = File.createTempFile(family, ".dwg");
+            file.deleteOnExit();
+            b.write(file.getPath());
+            DWGraph_Algo algo = new DWGraph_Algo();
+            assertTrue(algo.loadBinary(file.getPath()), family);
+            assertEquals(g.fingerprint(), DWGraph_DS.fingerprint(algo.getGraph()), family);
+        }
+    }
+
+    @Test
+    void negativeIdsRoundTrip() throws IOException {
+        for (String family : GraphGenerator.FAMILIES) {
+            //Keys shifted to [-NODES/2, NODES/2), so the binary file's signed order differs from the unsigned one.
+            GraphGenerator.GraphSink sink = new GraphGenerator.GraphSink(NODES);
+            GraphGenerator.generate(family, NODES, 5, new GraphGenerator.Sink() {
+                public void node(int key, double x, double y, double z) {
+                    sink.node(key - NODES / 2, x, y, z);
+                }
+
+                public void edge(int src, int dest, double w) {
+                    sink.edge(src - NODES / 2, dest - NODES / 2, w);
+                }
+            });
+            DWGraph_DS g = sink.getGraph();
+            assertNotNull(g.getNode(-1), family);
+            directed_weighted_graph loaded = GraphBinaryTest.roundTrip(g);
+            assertEquals(g, loaded, family);
+            assertEquals(g.fingerprint(), DWGraph_DS.fingerprint(loaded), family);
+        }
+    }
+}